@@ -13,6 +13,27 @@ GO
 USE FintocApiLogger;
 GO
 
+-- ===============================================
+-- Create Sequences
+-- ===============================================
+-- Ids for logsbook and webhook_logs. The application reserves 50 ids per call (pooled) so it
+-- can batch inserts; keep INCREMENT BY equal to the entities' allocationSize.
+-- A logsbook created by an earlier version of this script has an IDENTITY id: rebuild it with
+-- the column below, and restart logsbook_seq above MAX(id) before starting the application.
+IF NOT EXISTS (SELECT * FROM sys.sequences WHERE object_id = OBJECT_ID(N'[dbo].[logsbook_seq]'))
+BEGIN
+    CREATE SEQUENCE [dbo].[logsbook_seq] AS BIGINT START WITH 1 INCREMENT BY 50;
+    PRINT 'Sequence logsbook_seq created successfully.';
+END
+GO
+
+IF NOT EXISTS (SELECT * FROM sys.sequences WHERE object_id = OBJECT_ID(N'[dbo].[webhook_logs_seq]'))
+BEGIN
+    CREATE SEQUENCE [dbo].[webhook_logs_seq] AS BIGINT START WITH 1 INCREMENT BY 50;
+    PRINT 'Sequence webhook_logs_seq created successfully.';
+END
+GO
+
 -- ===============================================
 -- Create Tables
 -- ===============================================
@@ -22,7 +43,7 @@ GO
 IF NOT EXISTS (SELECT * FROM sys.objects WHERE object_id = OBJECT_ID(N'[dbo].[logsbook]') AND type in (N'U'))
 BEGIN
     CREATE TABLE [dbo].[logsbook] (
-        [id] BIGINT IDENTITY(1,1) NOT NULL,
+        [id] BIGINT NOT NULL DEFAULT (NEXT VALUE FOR [dbo].[logsbook_seq]),
         [type] NVARCHAR(50) NOT NULL,
         [url] NVARCHAR(500) NOT NULL,
         [request_headers] NTEXT NULL,
@@ -111,6 +132,34 @@ BEGIN
 END
 GO
 
+-- Tables: nonce_tracking_0 .. nonce_tracking_7 (JWS replay protection)
+-- Used JWS nonces in a ring of per-hour slot tables; a nonce marked in hour h is written to the
+-- slots of hours h and h+1 (slot = hour since the epoch mod 8), and cleanup truncates whole slots.
+-- Migration: the single nonce_tracking table of earlier versions is no longer used and can be dropped.
+DECLARE @nonce_slot INT = 0;
+DECLARE @nonce_sql NVARCHAR(MAX);
+WHILE @nonce_slot < 8
+BEGIN
+    IF OBJECT_ID(N'[dbo].[nonce_tracking_' + CAST(@nonce_slot AS NVARCHAR(1)) + N']', N'U') IS NULL
+    BEGIN
+        SET @nonce_sql = N'CREATE TABLE [dbo].[nonce_tracking_' + CAST(@nonce_slot AS NVARCHAR(1)) + N'] (
+            [nonce] NVARCHAR(64) NOT NULL,
+            [created_at] DATETIME2(7) NOT NULL,
+            [expires_at] DATETIME2(7) NOT NULL,
+
+            CONSTRAINT [PK_nonce_tracking_' + CAST(@nonce_slot AS NVARCHAR(1)) + N'] PRIMARY KEY CLUSTERED ([nonce] ASC)
+        );';
+        EXEC sp_executesql @nonce_sql;
+        PRINT 'Table nonce_tracking_' + CAST(@nonce_slot AS NVARCHAR(1)) + ' created successfully.';
+    END
+    ELSE
+    BEGIN
+        PRINT 'Table nonce_tracking_' + CAST(@nonce_slot AS NVARCHAR(1)) + ' already exists.';
+    END
+    SET @nonce_slot = @nonce_slot + 1;
+END
+GO
+
 -- ===============================================
 -- Create Indexes for Performance
 -- ===============================================
@@ -187,6 +236,15 @@ BEGIN
     PRINT 'Index IX_account_validation_counterparty_account_type created.';
 END
 
+-- Index on webhook_logs table (replay pages through unprocessed rows by id)
+IF OBJECT_ID(N'[dbo].[webhook_logs]') IS NOT NULL
+   AND NOT EXISTS (SELECT * FROM sys.indexes WHERE object_id = OBJECT_ID(N'[dbo].[webhook_logs]') AND name = N'IX_webhook_logs_processed_id')
+BEGIN
+    CREATE NONCLUSTERED INDEX [IX_webhook_logs_processed_id] 
+    ON [dbo].[webhook_logs] ([processed] ASC, [id] ASC);
+    PRINT 'Index IX_webhook_logs_processed_id created.';
+END
+
 -- Indexes on validation_usage_stats table
 IF NOT EXISTS (SELECT * FROM sys.indexes WHERE object_id = OBJECT_ID(N'[dbo].[validation_usage_stats]') AND name = N'IX_validation_stats_count')
 BEGIN
@@ -370,6 +428,15 @@ END
 GRANT SELECT, INSERT, UPDATE, DELETE ON logsbook TO fintoc_app_user;
 GRANT SELECT, INSERT, UPDATE, DELETE ON account_validation TO fintoc_app_user;
 GRANT SELECT, INSERT, UPDATE, DELETE ON validation_usage_stats TO fintoc_app_user;
+-- TRUNCATE TABLE needs ALTER on each nonce slot table
+GRANT SELECT, INSERT, ALTER ON nonce_tracking_0 TO fintoc_app_user;
+GRANT SELECT, INSERT, ALTER ON nonce_tracking_1 TO fintoc_app_user;
+GRANT SELECT, INSERT, ALTER ON nonce_tracking_2 TO fintoc_app_user;
+GRANT SELECT, INSERT, ALTER ON nonce_tracking_3 TO fintoc_app_user;
+GRANT SELECT, INSERT, ALTER ON nonce_tracking_4 TO fintoc_app_user;
+GRANT SELECT, INSERT, ALTER ON nonce_tracking_5 TO fintoc_app_user;
+GRANT SELECT, INSERT, ALTER ON nonce_tracking_6 TO fintoc_app_user;
+GRANT SELECT, INSERT, ALTER ON nonce_tracking_7 TO fintoc_app_user;
 GRANT SELECT ON vw_recent_validations TO fintoc_app_user;
 GRANT SELECT ON vw_validation_summary TO fintoc_app_user;
 GRANT SELECT ON vw_successful_validations TO fintoc_app_user;
@@ -391,6 +458,9 @@ PRINT 'Tables created:';
 PRINT '  - logsbook (simplified 9-column schema)';
 PRINT '  - account_validation (structured Fintoc response data)';
 PRINT '  - validation_usage_stats (aggregated statistics)';
+PRINT '  - nonce_tracking_0 .. nonce_tracking_7 (JWS replay protection, one slot per hour)';
+PRINT 'Sequences created:';
+PRINT '  - logsbook_seq, webhook_logs_seq (pooled ids, 50 per call)';
 PRINT 'Views created:';
 PRINT '  - vw_recent_validations (last 24 hours)';
 PRINT '  - vw_validation_summary (performance metrics)';
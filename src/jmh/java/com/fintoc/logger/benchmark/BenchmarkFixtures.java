@@ -0,0 +1,118 @@
+package com.fintoc.logger.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fintoc.logger.config.JwsSignatureConfig;
+import com.fintoc.logger.config.ValidationCacheConfig;
+import com.fintoc.logger.repository.WebhookLogRepository;
+import com.fintoc.logger.service.RecentWebhookEvents;
+import com.fintoc.logger.service.ValidationResultCache;
+import com.fintoc.logger.service.WebhookService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.security.KeyPair;
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+
+/**
+ * Services and payloads shared by the benchmarks, built without a Spring context or a database
+ */
+final class BenchmarkFixtures {
+
+    static final String WEBHOOK_SECRET = "whsec_benchmark";
+
+    static final String VALIDATION_REQUEST =
+        "{\"account_number\":\"123456789\",\"institution_id\":\"cl_banco_de_chile\",\"holder_id\":\"111111111\"}";
+
+    static final String VALIDATION_RESPONSE = "{\"id\":\"av_2JmLXr1XlWrhM9fQ\",\"object\":\"account_verification\","
+        + "\"status\":\"succeeded\",\"reason\":null,\"transfer_id\":\"tr_2JmLXpXN7rLQ6T0p\","
+        + "\"counterparty\":{\"account_number\":\"123456789\",\"holder_id\":\"111111111\","
+        + "\"holder_name\":\"Jane Doe\",\"account_type\":\"checking_account\","
+        + "\"institution\":{\"id\":\"cl_banco_de_chile\",\"name\":\"Banco de Chile\",\"country\":\"cl\"}},"
+        + "\"mode\":\"live\",\"receipt_url\":\"https://fintoc.com/receipts/av_2JmLXr1XlWrhM9fQ\","
+        + "\"transaction_date\":\"2024-05-02T14:31:07Z\"}";
+
+    static final String WEBHOOK_EVENT = "{\"id\":\"evt_2JmLY6bGxvKtH8aQ\",\"type\":\"account_verification.succeeded\","
+        + "\"mode\":\"live\",\"created_at\":\"2024-05-02T14:31:09Z\",\"data\":" + VALIDATION_RESPONSE + "}";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Inline JWS key configuration with a fresh 2048-bit RSA pair
+     */
+    static JwsSignatureConfig jwsConfig() throws GeneralSecurityException {
+        return jwsConfig("RS256");
+    }
+
+    /**
+     * Inline JWS key configuration with a fresh pair for a JWS algorithm: 2048-bit RSA for
+     * RS256 and PS256, P-256 for ES256, Ed25519 for EdDSA
+     */
+    static JwsSignatureConfig jwsConfig(String algorithm) throws GeneralSecurityException {
+        KeyPairGenerator generator;
+        if ("ES256".equals(algorithm)) {
+            generator = KeyPairGenerator.getInstance("EC");
+            generator.initialize(new ECGenParameterSpec("secp256r1"));
+        } else if ("EdDSA".equals(algorithm)) {
+            generator = KeyPairGenerator.getInstance("Ed25519");
+        } else {
+            generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+        }
+        KeyPair keyPair = generator.generateKeyPair();
+        JwsSignatureConfig config = new JwsSignatureConfig();
+        config.setAlgorithm(algorithm);
+        config.setPrivateKey(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+        config.setPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+        return config;
+    }
+
+    /**
+     * Configured the way Spring Boot configures the application's ObjectMapper
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+            .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .build();
+    }
+
+    /**
+     * WebhookService with WEBHOOK_SECRET, a real validation cache and a repository that stores nothing
+     */
+    static WebhookService webhookService(ObjectMapper objectMapper) {
+        ValidationResultCache cache = new ValidationResultCache(new ValidationCacheConfig(), new SimpleMeterRegistry());
+        RecentWebhookEvents recentEvents = new RecentWebhookEvents(new SimpleMeterRegistry(), 100000, 72);
+        WebhookService webhookService = new WebhookService(objectMapper, discardingRepository(WebhookLogRepository.class),
+            cache, recentEvents);
+        ReflectionTestUtils.setField(webhookService, "webhookSecret", WEBHOOK_SECRET);
+        return webhookService;
+    }
+
+    /**
+     * Repository whose save methods hand the entity back and whose other methods return null.
+     * A Mockito mock would record every call and grow for the whole run.
+     */
+    static <T> T discardingRepository(Class<T> repositoryType) {
+        Object repository = Proxy.newProxyInstance(repositoryType.getClassLoader(), new Class<?>[]{repositoryType},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "toString":
+                        return "discarding " + repositoryType.getSimpleName();
+                    default:
+                        break;
+                }
+                return method.getName().startsWith("save") && args != null ? args[0] : null;
+            });
+        return repositoryType.cast(repository);
+    }
+}
@@ -0,0 +1,128 @@
+package com.fintoc.logger.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintoc.logger.config.JwsSignatureConfig;
+import com.fintoc.logger.service.JwsSignatureService;
+import com.fintoc.logger.service.WebhookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.SecureRandom;
+import java.security.Signature;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-call Signature, Mac and SecureRandom instances (the way JwsSignatureService and
+ * WebhookService used to work, copied here as the baseline) against the reused ones.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="CryptoPrimitives -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CryptoPrimitivesBenchmark {
+
+    private static final String PAYLOAD =
+        "{\"account_number\":\"123456789\",\"institution_id\":\"cl_banco_de_chile\",\"holder_id\":\"111111111\"}";
+    private static final String WEBHOOK_SECRET = "whsec_benchmark";
+    private static final long WEBHOOK_TIMESTAMP = 1700000000L;
+
+    private KeyPair keyPair;
+    private JwsSignatureService jwsSignatureService;
+    private WebhookService webhookService;
+    private String signature;
+    private SecureRandom sharedRandom;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+
+        JwsSignatureConfig config = new JwsSignatureConfig();
+        config.setPrivateKey(Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded()));
+        config.setPublicKey(Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded()));
+        jwsSignatureService = new JwsSignatureService(config);
+        signature = jwsSignatureService.signData(PAYLOAD);
+
+        // signWebhookPayload needs neither the repository nor the caches
+        webhookService = new WebhookService(new ObjectMapper(), null, null, null);
+        ReflectionTestUtils.setField(webhookService, "webhookSecret", WEBHOOK_SECRET);
+
+        sharedRandom = SecureRandom.getInstance("NativePRNGNonBlocking");
+    }
+
+    @Benchmark
+    public String signPerCallInstance() throws Exception {
+        Signature signer = Signature.getInstance("SHA256withRSA");
+        signer.initSign(keyPair.getPrivate());
+        signer.update(PAYLOAD.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(signer.sign());
+    }
+
+    @Benchmark
+    public String signReusedInstance() {
+        return jwsSignatureService.signData(PAYLOAD);
+    }
+
+    @Benchmark
+    public boolean verifyPerCallInstance() throws Exception {
+        Signature verifier = Signature.getInstance("SHA256withRSA");
+        verifier.initVerify(keyPair.getPublic());
+        verifier.update(PAYLOAD.getBytes(StandardCharsets.UTF_8));
+        return verifier.verify(Base64.getDecoder().decode(signature));
+    }
+
+    @Benchmark
+    public boolean verifyReusedInstance() {
+        return jwsSignatureService.verifySignature(PAYLOAD, signature);
+    }
+
+    @Benchmark
+    public byte[] noncePerCallSecureRandom() {
+        byte[] nonce = new byte[16];
+        new SecureRandom().nextBytes(nonce);
+        return nonce;
+    }
+
+    @Benchmark
+    public byte[] nonceSharedSecureRandom() {
+        byte[] nonce = new byte[16];
+        sharedRandom.nextBytes(nonce);
+        return nonce;
+    }
+
+    @Benchmark
+    public String webhookHmacPerCallMac() throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(WEBHOOK_SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        byte[] hmacBytes = mac.doFinal((WEBHOOK_TIMESTAMP + "." + PAYLOAD).getBytes(StandardCharsets.UTF_8));
+        StringBuilder result = new StringBuilder();
+        for (byte b : hmacBytes) {
+            result.append(String.format("%02x", b));
+        }
+        return "t=" + WEBHOOK_TIMESTAMP + ",v1=" + result;
+    }
+
+    @Benchmark
+    public String webhookHmacReusedMac() {
+        return webhookService.signWebhookPayload(PAYLOAD, WEBHOOK_TIMESTAMP);
+    }
+}
@@ -0,0 +1,50 @@
+package com.fintoc.logger.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintoc.logger.entity.AccountValidationResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson mapping of a Fintoc account verification into AccountValidationResponse (what
+ * FintocApiService does with every 2xx body) and back out to JSON.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="JsonMapping -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonMappingBenchmark {
+
+    private ObjectMapper objectMapper;
+    private AccountValidationResponse response;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = BenchmarkFixtures.objectMapper();
+        response = objectMapper.readValue(BenchmarkFixtures.VALIDATION_RESPONSE, AccountValidationResponse.class);
+    }
+
+    @Benchmark
+    public AccountValidationResponse readResponse() throws IOException {
+        return objectMapper.readValue(BenchmarkFixtures.VALIDATION_RESPONSE, AccountValidationResponse.class);
+    }
+
+    @Benchmark
+    public String writeResponse() throws IOException {
+        return objectMapper.writeValueAsString(response);
+    }
+}
@@ -0,0 +1,53 @@
+package com.fintoc.logger.benchmark;
+
+import com.fintoc.logger.service.JwsSignatureService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signing and verifying a complete JWS with each supported algorithm, to pick the cheapest one
+ * a counterparty accepts. EdDSA needs Java 15 or later.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="JwsAlgorithmBenchmark -prof gc"
+ * or for some algorithms only: -Djmh.args="JwsAlgorithmBenchmark -p algorithm=RS256,ES256"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwsAlgorithmBenchmark {
+
+    @Param({"RS256", "PS256", "ES256", "EdDSA"})
+    private String algorithm;
+
+    private JwsSignatureService jwsSignatureService;
+    private String completeJws;
+
+    @Setup
+    public void setUp() throws Exception {
+        jwsSignatureService = new JwsSignatureService(BenchmarkFixtures.jwsConfig(algorithm));
+        completeJws = jwsSignatureService.createCompleteJws(BenchmarkFixtures.VALIDATION_REQUEST);
+    }
+
+    @Benchmark
+    public String sign() {
+        return jwsSignatureService.createCompleteJws(BenchmarkFixtures.VALIDATION_REQUEST);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return jwsSignatureService.verifyJwsSignature(completeJws, null);
+    }
+}
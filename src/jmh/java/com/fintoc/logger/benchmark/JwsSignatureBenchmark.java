@@ -0,0 +1,80 @@
+package com.fintoc.logger.benchmark;
+
+import com.fintoc.logger.service.JwsSignatureService;
+import com.fintoc.logger.service.NonceTrackingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency of the JWS hot paths: signing Fintoc requests and checking incoming tokens.
+ * validateJwsComprehensive runs against an in-memory nonce store that accepts every nonce,
+ * so the numbers exclude the database round trip.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="JwsSignature -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwsSignatureBenchmark {
+
+    private JwsSignatureService jwsSignatureService;
+    private String completeJws;
+    private String detachedJws;
+
+    @Setup
+    public void setUp() throws Exception {
+        jwsSignatureService = new JwsSignatureService(BenchmarkFixtures.jwsConfig());
+        ReflectionTestUtils.setField(jwsSignatureService, "nonceTrackingService", new AcceptingNonceStore());
+        completeJws = jwsSignatureService.createCompleteJws(BenchmarkFixtures.VALIDATION_REQUEST);
+        detachedJws = jwsSignatureService.createJwsHeader(BenchmarkFixtures.VALIDATION_REQUEST);
+    }
+
+    @Benchmark
+    public String createJwsHeader() {
+        return jwsSignatureService.createJwsHeader(BenchmarkFixtures.VALIDATION_REQUEST);
+    }
+
+    @Benchmark
+    public String createCompleteJws() {
+        return jwsSignatureService.createCompleteJws(BenchmarkFixtures.VALIDATION_REQUEST);
+    }
+
+    @Benchmark
+    public boolean verifyCompleteJws() {
+        return jwsSignatureService.verifyJwsSignature(completeJws, null);
+    }
+
+    @Benchmark
+    public boolean verifyDetachedJws() {
+        return jwsSignatureService.verifyJwsSignature(detachedJws, BenchmarkFixtures.VALIDATION_REQUEST);
+    }
+
+    @Benchmark
+    public boolean validateJwsComprehensive() {
+        return jwsSignatureService.validateJwsComprehensive(completeJws, null);
+    }
+
+    /**
+     * Nonce store stand-in: every nonce counts as unseen, so the same token validates each time
+     */
+    static class AcceptingNonceStore extends NonceTrackingService {
+
+        @Override
+        public boolean validateAndMarkNonce(String nonce) {
+            return nonce != null && !nonce.isEmpty();
+        }
+    }
+}
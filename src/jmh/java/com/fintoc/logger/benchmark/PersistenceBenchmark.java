@@ -0,0 +1,132 @@
+package com.fintoc.logger.benchmark;
+
+import com.fintoc.logger.FintocApiLoggerApplication;
+import com.fintoc.logger.entity.AccountValidationLog;
+import com.fintoc.logger.entity.WebhookLog;
+import com.fintoc.logger.repository.AccountValidationLogRepository;
+import com.fintoc.logger.repository.WebhookLogRepository;
+import com.fintoc.logger.service.AccountValidationLogService;
+import com.fintoc.logger.service.WebhookService;
+import org.h2.tools.Server;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rows per second stored through the batch persist APIs (WebhookService.saveWebhookLogs and
+ * AccountValidationLogService.saveValidationLogs) into H2, with the application's JPA settings.
+ * Each invocation stores one batch of BATCH rows in one transaction. database=mem runs H2 in
+ * process, where a statement costs no round trip; database=tcp goes through an H2 server on
+ * loopback, which is closer to a real database server.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="PersistenceBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersistenceBenchmark {
+
+    private static final int BATCH = 100;
+
+    @Param({"mem", "tcp"})
+    private String database;
+
+    private Server server;
+    private ConfigurableApplicationContext context;
+    private WebhookService webhookService;
+    private AccountValidationLogService validationLogService;
+    private WebhookLogRepository webhookLogRepository;
+    private AccountValidationLogRepository validationLogRepository;
+    private long nextEventId;
+
+    @Setup
+    public void setUp() throws SQLException {
+        String url = "jdbc:h2:mem:persistence-benchmark;DB_CLOSE_DELAY=-1";
+        if ("tcp".equals(database)) {
+            server = Server.createTcpServer("-tcpPort", "0", "-ifNotExists").start();
+            url = "jdbc:h2:tcp://localhost:" + server.getPort() + "/mem:persistence-benchmark;DB_CLOSE_DELAY=-1";
+        }
+        context = new SpringApplicationBuilder(FintocApiLoggerApplication.class)
+            .web(WebApplicationType.NONE)
+            // As arguments, so they win over application.yml (which logs every SQL statement)
+            .run("--spring.main.banner-mode=off",
+                "--spring.datasource.url=" + url,
+                "--spring.jpa.show-sql=false",
+                "--logging.level.com.fintoc.logger=WARN",
+                "--logging.level.org.hibernate.SQL=WARN");
+        webhookService = context.getBean(WebhookService.class);
+        validationLogService = context.getBean(AccountValidationLogService.class);
+        webhookLogRepository = context.getBean(WebhookLogRepository.class);
+        validationLogRepository = context.getBean(AccountValidationLogRepository.class);
+    }
+
+    /**
+     * Start each iteration on empty tables, so later iterations do not pay for bigger indexes
+     */
+    @Setup(Level.Iteration)
+    public void emptyTables() {
+        webhookLogRepository.deleteAllInBatch();
+        validationLogRepository.deleteAllInBatch();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<WebhookLog> saveWebhookLogs() {
+        List<WebhookLog> webhookLogs = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            WebhookLog webhookLog = new WebhookLog();
+            webhookLog.setEventId("evt_" + nextEventId++);
+            webhookLog.setEventType("account_verification.succeeded");
+            webhookLog.setMode("test");
+            webhookLog.setCreatedAt(LocalDateTime.now());
+            webhookLog.setRawBody(BenchmarkFixtures.WEBHOOK_EVENT);
+            webhookLog.setProcessed(true);
+            webhookLog.setAccountVerificationId("av_" + i);
+            webhookLog.setStatus("succeeded");
+            webhookLogs.add(webhookLog);
+        }
+        return webhookService.saveWebhookLogs(webhookLogs);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public List<AccountValidationLog> saveValidationLogs() {
+        List<AccountValidationLog> validationLogs = new ArrayList<>(BATCH);
+        for (int i = 0; i < BATCH; i++) {
+            validationLogs.add(AccountValidationLogService.buildValidationLog("acc-" + i, "SINGLE",
+                "{}", "{\"account_number\":\"acc-" + i + "\"}", 201, "{}", "{\"status\":\"succeeded\"}",
+                120L, "sk_test", true, null, null));
+        }
+        return validationLogService.saveValidationLogs(validationLogs);
+    }
+}
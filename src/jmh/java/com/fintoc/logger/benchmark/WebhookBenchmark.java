@@ -0,0 +1,69 @@
+package com.fintoc.logger.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintoc.logger.service.WebhookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and latency of incoming Fintoc webhooks: the fintoc-signature check and parsing the
+ * event into a WebhookLog (with cache invalidation), as WebhookController does per request.
+ * The repository stores nothing, so the numbers exclude the database insert.
+ * Run with: mvn -Pbenchmark test-compile exec:exec -Djmh.args="Webhook -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WebhookBenchmark {
+
+    private ObjectMapper objectMapper;
+    private WebhookService webhookService;
+    private String signatureHeader;
+    private String forgedHeader;
+    private byte[] eventBytes;
+
+    @Setup
+    public void setUp() {
+        objectMapper = BenchmarkFixtures.objectMapper();
+        webhookService = BenchmarkFixtures.webhookService(objectMapper);
+        signatureHeader = webhookService.signWebhookPayload(BenchmarkFixtures.WEBHOOK_EVENT,
+            Instant.now().getEpochSecond());
+        forgedHeader = signatureHeader.substring(0, signatureHeader.length() - 8) + "00000000";
+        eventBytes = BenchmarkFixtures.WEBHOOK_EVENT.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public boolean verifyWebhookSignature() {
+        return webhookService.verifyWebhookSignature(BenchmarkFixtures.WEBHOOK_EVENT, signatureHeader);
+    }
+
+    /**
+     * What a forged request costs WebhookController: the check over the raw bytes, no parsing
+     */
+    @Benchmark
+    public boolean rejectForgedWebhook() {
+        return webhookService.verifyWebhookSignature(eventBytes, forgedHeader);
+    }
+
+    @Benchmark
+    public boolean processWebhook() throws IOException {
+        return webhookService.processWebhook(objectMapper.readTree(BenchmarkFixtures.WEBHOOK_EVENT),
+            signatureHeader, BenchmarkFixtures.WEBHOOK_EVENT);
+    }
+}
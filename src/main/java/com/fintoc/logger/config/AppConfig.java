@@ -1,14 +1,98 @@
 package com.fintoc.logger.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.client.RestTemplate;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509TrustManager;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class AppConfig {
 
+    /**
+     * Shared OkHttp client for all outbound Fintoc calls.
+     * One instance means one connection pool and one TLS session cache, so bursts
+     * reuse warm connections instead of paying a new handshake per request.
+     */
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public OkHttpClient fintocHttpClient(FintocHttpClientConfig config, MeterRegistry meterRegistry)
+            throws GeneralSecurityException {
+
+        ConnectionPool connectionPool = new ConnectionPool(
+            config.getMaxIdleConnections(), config.getKeepAliveSeconds(), TimeUnit.SECONDS);
+
+        Dispatcher dispatcher = new Dispatcher();
+        dispatcher.setMaxRequests(config.getMaxRequests());
+        dispatcher.setMaxRequestsPerHost(config.getMaxRequestsPerHost());
+
+        // Dedicated SSLContext so the client session cache can be sized for TLS resumption
+        X509TrustManager trustManager = defaultTrustManager();
+        SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(null, new TrustManager[]{trustManager}, null);
+        SSLSessionContext sessionContext = sslContext.getClientSessionContext();
+        sessionContext.setSessionCacheSize(config.getTlsSessionCacheSize());
+        sessionContext.setSessionTimeout(config.getTlsSessionTimeoutSeconds());
+
+        OkHttpClient client = new OkHttpClient.Builder()
+            .connectionPool(connectionPool)
+            .dispatcher(dispatcher)
+            .connectTimeout(config.getConnectTimeoutMs(), TimeUnit.MILLISECONDS)
+            .readTimeout(config.getReadTimeoutMs(), TimeUnit.MILLISECONDS)
+            .writeTimeout(config.getWriteTimeoutMs(), TimeUnit.MILLISECONDS)
+            .callTimeout(config.getCallTimeoutMs(), TimeUnit.MILLISECONDS)
+            .protocols(config.isHttp2Enabled()
+                ? Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1)
+                : Collections.singletonList(Protocol.HTTP_1_1))
+            .sslSocketFactory(sslContext.getSocketFactory(), trustManager)
+            .build();
+
+        registerClientMetrics(client, meterRegistry);
+        return client;
+    }
+
+    /**
+     * Publish connection pool and dispatcher gauges for the Fintoc client
+     */
+    private void registerClientMetrics(OkHttpClient client, MeterRegistry meterRegistry) {
+        ConnectionPool pool = client.connectionPool();
+        Dispatcher dispatcher = client.dispatcher();
+
+        Gauge.builder("fintoc.http.pool.connections", pool, ConnectionPool::connectionCount)
+            .description("Open connections in the Fintoc HTTP connection pool")
+            .register(meterRegistry);
+        Gauge.builder("fintoc.http.pool.idle", pool, ConnectionPool::idleConnectionCount)
+            .description("Idle connections in the Fintoc HTTP connection pool")
+            .register(meterRegistry);
+        Gauge.builder("fintoc.http.dispatcher.running", dispatcher, Dispatcher::runningCallsCount)
+            .description("Fintoc calls currently executing")
+            .register(meterRegistry);
+        Gauge.builder("fintoc.http.dispatcher.queued", dispatcher, Dispatcher::queuedCallsCount)
+            .description("Fintoc calls waiting for a dispatcher slot")
+            .register(meterRegistry);
+    }
+
+    private X509TrustManager defaultTrustManager() throws GeneralSecurityException {
+        TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        factory.init((KeyStore) null);
+        for (TrustManager trustManager : factory.getTrustManagers()) {
+            if (trustManager instanceof X509TrustManager) {
+                return (X509TrustManager) trustManager;
+            }
+        }
+        throw new IllegalStateException("No default X509TrustManager available");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,136 @@
+package com.fintoc.logger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the local Fintoc stub (profile "stub")
+ * Reads latency, error and webhook settings from application-stub.yml
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fintoc.stub")
+public class FintocStubConfig {
+
+    // fixed (always median), uniform (min..max) or log-normal (median and p99, clamped to min..max)
+    private String latencyDistribution = "log-normal";
+    private long latencyMinMs = 20;
+    private long latencyMedianMs = 120;
+    private long latencyP99Ms = 800;
+    private long latencyMaxMs = 5000;
+    // Share of calls answered 500 and 429
+    private double errorRate = 0.0;
+    private double throttleRate = 0.0;
+    private int retryAfterSeconds = 1;
+    // Extra bytes added to each verification response
+    private int payloadPaddingBytes = 0;
+    private boolean webhooksEnabled = true;
+    private String webhookUrl = "http://localhost:8080/webhooks/fintoc";
+    private long webhookDelayMs = 500;
+    // Share of verifications reported as failed in their webhook
+    private double webhookFailureRate = 0.1;
+
+    // Getters and Setters
+    public String getLatencyDistribution() {
+        return latencyDistribution;
+    }
+
+    public void setLatencyDistribution(String latencyDistribution) {
+        this.latencyDistribution = latencyDistribution;
+    }
+
+    public long getLatencyMinMs() {
+        return latencyMinMs;
+    }
+
+    public void setLatencyMinMs(long latencyMinMs) {
+        this.latencyMinMs = latencyMinMs;
+    }
+
+    public long getLatencyMedianMs() {
+        return latencyMedianMs;
+    }
+
+    public void setLatencyMedianMs(long latencyMedianMs) {
+        this.latencyMedianMs = latencyMedianMs;
+    }
+
+    public long getLatencyP99Ms() {
+        return latencyP99Ms;
+    }
+
+    public void setLatencyP99Ms(long latencyP99Ms) {
+        this.latencyP99Ms = latencyP99Ms;
+    }
+
+    public long getLatencyMaxMs() {
+        return latencyMaxMs;
+    }
+
+    public void setLatencyMaxMs(long latencyMaxMs) {
+        this.latencyMaxMs = latencyMaxMs;
+    }
+
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    public void setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+    }
+
+    public double getThrottleRate() {
+        return throttleRate;
+    }
+
+    public void setThrottleRate(double throttleRate) {
+        this.throttleRate = throttleRate;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getPayloadPaddingBytes() {
+        return payloadPaddingBytes;
+    }
+
+    public void setPayloadPaddingBytes(int payloadPaddingBytes) {
+        this.payloadPaddingBytes = payloadPaddingBytes;
+    }
+
+    public boolean isWebhooksEnabled() {
+        return webhooksEnabled;
+    }
+
+    public void setWebhooksEnabled(boolean webhooksEnabled) {
+        this.webhooksEnabled = webhooksEnabled;
+    }
+
+    public String getWebhookUrl() {
+        return webhookUrl;
+    }
+
+    public void setWebhookUrl(String webhookUrl) {
+        this.webhookUrl = webhookUrl;
+    }
+
+    public long getWebhookDelayMs() {
+        return webhookDelayMs;
+    }
+
+    public void setWebhookDelayMs(long webhookDelayMs) {
+        this.webhookDelayMs = webhookDelayMs;
+    }
+
+    public double getWebhookFailureRate() {
+        return webhookFailureRate;
+    }
+
+    public void setWebhookFailureRate(double webhookFailureRate) {
+        this.webhookFailureRate = webhookFailureRate;
+    }
+}
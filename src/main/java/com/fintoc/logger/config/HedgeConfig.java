@@ -0,0 +1,62 @@
+package com.fintoc.logger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for hedged Fintoc requests
+ * Reads the latency percentile that triggers a second request from application.yml
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fintoc.hedge")
+public class HedgeConfig {
+
+    private boolean enabled = false;
+    // Fire the hedge once the primary has been running longer than this percentile of recent calls
+    private double percentile = 95;
+    private long minDelayMs = 50;
+    private int windowSize = 200;
+    // No hedging until this many recent latencies are known
+    private int minSamples = 20;
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public void setPercentile(double percentile) {
+        this.percentile = percentile;
+    }
+
+    public long getMinDelayMs() {
+        return minDelayMs;
+    }
+
+    public void setMinDelayMs(long minDelayMs) {
+        this.minDelayMs = minDelayMs;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public void setWindowSize(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    public int getMinSamples() {
+        return minSamples;
+    }
+
+    public void setMinSamples(int minSamples) {
+        this.minSamples = minSamples;
+    }
+}
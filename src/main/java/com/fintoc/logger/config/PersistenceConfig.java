@@ -0,0 +1,53 @@
+package com.fintoc.logger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the write-behind queue of single validations
+ * Reads queue size and flush settings from application.yml
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fintoc.persistence")
+public class PersistenceConfig {
+
+    private int queueCapacity = 10000;
+    // A batch is written once it has flush-size rows or its oldest row waited flush-interval-ms
+    private int flushSize = 100;
+    private long flushIntervalMs = 200;
+    // How long a producer waits for room in a full queue before writing its rows itself
+    private long offerTimeoutMs = 1000;
+
+    // Getters and Setters
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getFlushSize() {
+        return flushSize;
+    }
+
+    public void setFlushSize(int flushSize) {
+        this.flushSize = flushSize;
+    }
+
+    public long getFlushIntervalMs() {
+        return flushIntervalMs;
+    }
+
+    public void setFlushIntervalMs(long flushIntervalMs) {
+        this.flushIntervalMs = flushIntervalMs;
+    }
+
+    public long getOfferTimeoutMs() {
+        return offerTimeoutMs;
+    }
+
+    public void setOfferTimeoutMs(long offerTimeoutMs) {
+        this.offerTimeoutMs = offerTimeoutMs;
+    }
+}
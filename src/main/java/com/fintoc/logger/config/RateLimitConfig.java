@@ -0,0 +1,89 @@
+package com.fintoc.logger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the outbound Fintoc rate limiter
+ * Reads rate bounds, burst size and adaptation settings from application.yml
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fintoc.rate-limit")
+public class RateLimitConfig {
+
+    private boolean enabled = true;
+    // Calls per second
+    private double initialRate = 20;
+    private double minRate = 1;
+    private double maxRate = 50;
+    private int burst = 10;
+    private long maxWaitMs = 5000;
+    // Rate gained per second of successful calls, and the factor applied on a 429
+    private double increasePerSecond = 1;
+    private double decreaseFactor = 0.5;
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public double getInitialRate() {
+        return initialRate;
+    }
+
+    public void setInitialRate(double initialRate) {
+        this.initialRate = initialRate;
+    }
+
+    public double getMinRate() {
+        return minRate;
+    }
+
+    public void setMinRate(double minRate) {
+        this.minRate = minRate;
+    }
+
+    public double getMaxRate() {
+        return maxRate;
+    }
+
+    public void setMaxRate(double maxRate) {
+        this.maxRate = maxRate;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    public void setBurst(int burst) {
+        this.burst = burst;
+    }
+
+    public long getMaxWaitMs() {
+        return maxWaitMs;
+    }
+
+    public void setMaxWaitMs(long maxWaitMs) {
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    public double getIncreasePerSecond() {
+        return increasePerSecond;
+    }
+
+    public void setIncreasePerSecond(double increasePerSecond) {
+        this.increasePerSecond = increasePerSecond;
+    }
+
+    public double getDecreaseFactor() {
+        return decreaseFactor;
+    }
+
+    public void setDecreaseFactor(double decreaseFactor) {
+        this.decreaseFactor = decreaseFactor;
+    }
+}
@@ -0,0 +1,105 @@
+package com.fintoc.logger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the Fintoc circuit breaker and bulkhead
+ * Reads failure/slow-call thresholds and the concurrent call cap from application.yml
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fintoc.resilience")
+public class ResilienceConfig {
+
+    private boolean enabled = true;
+    private float failureRateThreshold = 50;
+    private float slowCallRateThreshold = 80;
+    private long slowCallDurationMs = 5000;
+    private int slidingWindowSize = 50;
+    private int minimumNumberOfCalls = 20;
+    private long waitDurationInOpenStateMs = 30000;
+    private int permittedCallsInHalfOpenState = 5;
+    private int maxConcurrentCalls = 64;
+    private long aggregateLogIntervalMs = 60000;
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public float getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public void setFailureRateThreshold(float failureRateThreshold) {
+        this.failureRateThreshold = failureRateThreshold;
+    }
+
+    public float getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public void setSlowCallRateThreshold(float slowCallRateThreshold) {
+        this.slowCallRateThreshold = slowCallRateThreshold;
+    }
+
+    public long getSlowCallDurationMs() {
+        return slowCallDurationMs;
+    }
+
+    public void setSlowCallDurationMs(long slowCallDurationMs) {
+        this.slowCallDurationMs = slowCallDurationMs;
+    }
+
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    public void setSlidingWindowSize(int slidingWindowSize) {
+        this.slidingWindowSize = slidingWindowSize;
+    }
+
+    public int getMinimumNumberOfCalls() {
+        return minimumNumberOfCalls;
+    }
+
+    public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
+        this.minimumNumberOfCalls = minimumNumberOfCalls;
+    }
+
+    public long getWaitDurationInOpenStateMs() {
+        return waitDurationInOpenStateMs;
+    }
+
+    public void setWaitDurationInOpenStateMs(long waitDurationInOpenStateMs) {
+        this.waitDurationInOpenStateMs = waitDurationInOpenStateMs;
+    }
+
+    public int getPermittedCallsInHalfOpenState() {
+        return permittedCallsInHalfOpenState;
+    }
+
+    public void setPermittedCallsInHalfOpenState(int permittedCallsInHalfOpenState) {
+        this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public void setMaxConcurrentCalls(int maxConcurrentCalls) {
+        this.maxConcurrentCalls = maxConcurrentCalls;
+    }
+
+    public long getAggregateLogIntervalMs() {
+        return aggregateLogIntervalMs;
+    }
+
+    public void setAggregateLogIntervalMs(long aggregateLogIntervalMs) {
+        this.aggregateLogIntervalMs = aggregateLogIntervalMs;
+    }
+}
@@ -0,0 +1,52 @@
+package com.fintoc.logger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for retrying failed Fintoc calls
+ * Reads attempt count and backoff settings from application.yml
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fintoc.retry")
+public class RetryConfig {
+
+    // Total attempts including the first one; 1 disables retries
+    private int maxAttempts = 3;
+    private long initialBackoffMs = 200;
+    private long maxBackoffMs = 2000;
+    private double multiplier = 2.0;
+
+    // Getters and Setters
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    public long getInitialBackoffMs() {
+        return initialBackoffMs;
+    }
+
+    public void setInitialBackoffMs(long initialBackoffMs) {
+        this.initialBackoffMs = initialBackoffMs;
+    }
+
+    public long getMaxBackoffMs() {
+        return maxBackoffMs;
+    }
+
+    public void setMaxBackoffMs(long maxBackoffMs) {
+        this.maxBackoffMs = maxBackoffMs;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public void setMultiplier(double multiplier) {
+        this.multiplier = multiplier;
+    }
+}
@@ -0,0 +1,52 @@
+package com.fintoc.logger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for the account validation result cache
+ * Reads size and TTL settings from application.yml
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fintoc.validation-cache")
+public class ValidationCacheConfig {
+
+    private boolean enabled = true;
+    private long maxEntries = 10000;
+    private long ttlSeconds = 300;
+    // Client errors (e.g. unknown account) are cached for this long; 0 disables negative caching
+    private long negativeTtlSeconds = 30;
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public long getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(long maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(long ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public long getNegativeTtlSeconds() {
+        return negativeTtlSeconds;
+    }
+
+    public void setNegativeTtlSeconds(long negativeTtlSeconds) {
+        this.negativeTtlSeconds = negativeTtlSeconds;
+    }
+}
@@ -0,0 +1,94 @@
+package com.fintoc.logger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Configuration class for asynchronous webhook ingestion
+ * When enabled, verified webhooks are appended to a local journal and acknowledged at once;
+ * a background worker stores them in batches. Reads journal and worker settings from application.yml
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fintoc.webhook.ingest")
+public class WebhookIngestConfig {
+
+    /**
+     * When a journal write reaches the disk
+     */
+    public enum Fsync {
+        // Before each webhook is acknowledged
+        ALWAYS,
+        // Every fsync-interval-ms; a power loss can lose the last interval, a crashed process loses nothing
+        INTERVAL,
+        // Whenever the operating system writes the pages back
+        NEVER
+    }
+
+    private boolean enabled = false;
+    private String journalDir = "data/webhook-journal";
+    private DataSize segmentSize = DataSize.ofMegabytes(64);
+    private Fsync fsync = Fsync.INTERVAL;
+    private long fsyncIntervalMs = 100;
+    // Webhooks stored per transaction
+    private int batchSize = 100;
+    // Wait after a failed batch before trying it again
+    private long retryBackoffMs = 1000;
+
+    // Getters and Setters
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public String getJournalDir() {
+        return journalDir;
+    }
+
+    public void setJournalDir(String journalDir) {
+        this.journalDir = journalDir;
+    }
+
+    public DataSize getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(DataSize segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public Fsync getFsync() {
+        return fsync;
+    }
+
+    public void setFsync(Fsync fsync) {
+        this.fsync = fsync;
+    }
+
+    public long getFsyncIntervalMs() {
+        return fsyncIntervalMs;
+    }
+
+    public void setFsyncIntervalMs(long fsyncIntervalMs) {
+        this.fsyncIntervalMs = fsyncIntervalMs;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public long getRetryBackoffMs() {
+        return retryBackoffMs;
+    }
+
+    public void setRetryBackoffMs(long retryBackoffMs) {
+        this.retryBackoffMs = retryBackoffMs;
+    }
+}
@@ -0,0 +1,82 @@
+package com.fintoc.logger.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration class for replaying stored webhooks (POST /webhook-logs/replay)
+ * Reads page sizes, rate and concurrency limits and the checkpoint location from application.yml
+ */
+@Configuration
+@ConfigurationProperties(prefix = "fintoc.webhook.replay")
+public class WebhookReplayConfig {
+
+    // Row ids read per keyset page; the checkpoint moves once a whole page is replayed
+    private int pageSize = 1000;
+    // Rows re-parsed and updated per transaction
+    private int updateBatchSize = 100;
+    // Used when a run does not ask for its own rate and concurrency
+    private int defaultRate = 500;
+    private int defaultConcurrency = 2;
+    // Upper bounds for what a run may ask for
+    private int maxRate = 5000;
+    private int maxConcurrency = 8;
+    private String checkpointFile = "data/webhook-replay.checkpoint";
+
+    // Getters and Setters
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public void setPageSize(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    public int getUpdateBatchSize() {
+        return updateBatchSize;
+    }
+
+    public void setUpdateBatchSize(int updateBatchSize) {
+        this.updateBatchSize = updateBatchSize;
+    }
+
+    public int getDefaultRate() {
+        return defaultRate;
+    }
+
+    public void setDefaultRate(int defaultRate) {
+        this.defaultRate = defaultRate;
+    }
+
+    public int getDefaultConcurrency() {
+        return defaultConcurrency;
+    }
+
+    public void setDefaultConcurrency(int defaultConcurrency) {
+        this.defaultConcurrency = defaultConcurrency;
+    }
+
+    public int getMaxRate() {
+        return maxRate;
+    }
+
+    public void setMaxRate(int maxRate) {
+        this.maxRate = maxRate;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(int maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public String getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    public void setCheckpointFile(String checkpointFile) {
+        this.checkpointFile = checkpointFile;
+    }
+}
@@ -1,17 +1,28 @@
 package com.fintoc.logger.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintoc.logger.dto.BatchValidationRequestDto;
 import com.fintoc.logger.entity.AccountValidationResponse;
+import com.fintoc.logger.service.BatchValidationService;
 import com.fintoc.logger.service.FintocApiService;
 import com.fintoc.logger.service.JwsSignatureService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/fintoc")
@@ -20,18 +31,82 @@ public class FintocController {
     private static final Logger logger = LoggerFactory.getLogger(FintocController.class);
     private final FintocApiService fintocApiService;
     private final JwsSignatureService jwsSignatureService;
+    private final BatchValidationService batchValidationService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${fintoc.batch.timeout-ms:1800000}")
+    private long batchTimeoutMs;
 
     @Autowired
-    public FintocController(FintocApiService fintocApiService, JwsSignatureService jwsSignatureService) {
+    public FintocController(FintocApiService fintocApiService,
+                            JwsSignatureService jwsSignatureService,
+                            BatchValidationService batchValidationService,
+                            ObjectMapper objectMapper) {
         this.fintocApiService = fintocApiService;
         this.jwsSignatureService = jwsSignatureService;
+        this.batchValidationService = batchValidationService;
+        this.objectMapper = objectMapper;
     }
 
+    /**
+     * Validate an account asynchronously - the servlet thread is released while Fintoc answers
+     */
     @PostMapping("/accounts/{accountId}/validate")
-    public ResponseEntity<AccountValidationResponse> validateAccount(
+    public CompletableFuture<ResponseEntity<AccountValidationResponse>> validateAccount(
             @PathVariable String accountId,
             HttpServletRequest request) {
         
-        return fintocApiService.validateAccount(accountId);
+        return fintocApiService.validateAccountAsync(accountId);
+    }
+
+    /**
+     * Validate many accounts in one call - results are streamed back as NDJSON as they finish
+     */
+    @PostMapping("/accounts/validate-batch")
+    public ResponseEntity<?> validateAccountsBatch(@RequestBody BatchValidationRequestDto batchRequest) {
+        List<String> accounts = batchRequest.getAccounts();
+        if (accounts == null || accounts.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "accounts is required"));
+        }
+        // Before looking at the entries, so an oversized request is never scanned or echoed back
+        if (accounts.size() > batchValidationService.getMaxAccounts()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Too many accounts in one batch",
+                "max_accounts", batchValidationService.getMaxAccounts()
+            ));
+        }
+        List<Integer> invalidPositions = new ArrayList<>();
+        for (int i = 0; i < accounts.size(); i++) {
+            if (!FintocApiService.isValidAccountNumber(accounts.get(i))) {
+                invalidPositions.add(i);
+            }
+        }
+        if (!invalidPositions.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Account numbers must be 1-64 letters, digits or dashes",
+                "invalid_positions", invalidPositions
+            ));
+        }
+        logger.info("Starting batch validation of {} accounts", accounts.size());
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchTimeoutMs);
+        batchValidationService.validateBatch(accounts, result -> {
+            try {
+                emitter.send(objectMapper.writeValueAsString(result) + "\n", MediaType.APPLICATION_NDJSON);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                logger.error("Batch validation failed: {}", ex.getMessage(), ex);
+                emitter.completeWithError(ex);
+            } else {
+                emitter.complete();
+            }
+        });
+
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(emitter);
     }
 }
\ No newline at end of file
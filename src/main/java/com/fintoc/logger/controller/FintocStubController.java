@@ -0,0 +1,32 @@
+package com.fintoc.logger.controller;
+
+import com.fintoc.logger.service.FintocStubService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Local Fintoc API stand-in (profile "stub"); point fintoc.api.base-url at /stub/fintoc/v2
+ */
+@RestController
+@RequestMapping("/stub/fintoc/v2")
+@Profile("stub")
+public class FintocStubController {
+
+    private final FintocStubService stubService;
+
+    @Autowired
+    public FintocStubController(FintocStubService stubService) {
+        this.stubService = stubService;
+    }
+
+    @PostMapping("/account_verifications")
+    public CompletableFuture<ResponseEntity<String>> createAccountVerification(
+            @RequestBody String body,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return stubService.createAccountVerification(body, idempotencyKey);
+    }
+}
@@ -1,15 +1,28 @@
 package com.fintoc.logger.controller;
 
+import com.fintoc.logger.dto.JwsBatchRequestDto;
+import com.fintoc.logger.dto.JwsBatchResultDto;
+import com.fintoc.logger.dto.JwsTokenDto;
+import com.fintoc.logger.service.JwsBatchService;
 import com.fintoc.logger.service.JwsSignatureService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Base64;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.BiFunction;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -22,10 +35,30 @@ public class JwsController {
     
     private static final Logger logger = LoggerFactory.getLogger(JwsController.class);
     private final JwsSignatureService jwsSignatureService;
+    private final JwsBatchService jwsBatchService;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${jws.batch.timeout-ms:600000}")
+    private long batchTimeoutMs;
     
     @Autowired
-    public JwsController(JwsSignatureService jwsSignatureService) {
+    public JwsController(JwsSignatureService jwsSignatureService, JwsBatchService jwsBatchService,
+                         ObjectMapper objectMapper) {
         this.jwsSignatureService = jwsSignatureService;
+        this.jwsBatchService = jwsBatchService;
+        this.objectMapper = objectMapper;
+    }
+    
+    /**
+     * Parse the configured JWS keys again (e.g. after rotating the key files) and swap them in
+     */
+    @PostMapping("/reload-keys")
+    public ResponseEntity<Map<String, String>> reloadKeys() {
+        if (jwsSignatureService.reloadKeys()) {
+            return ResponseEntity.ok(Map.of("status", "reloaded"));
+        }
+        return ResponseEntity.internalServerError()
+            .body(Map.of("error", "Key reload failed, the previous keys are still in use"));
     }
     
     /**
@@ -372,4 +405,70 @@ public class JwsController {
                 .body(Map.of("error", "Failed to validate JWS: " + e.getMessage()));
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * createJwsHeader for many bodies - {"bodies": [...]}, one NDJSON line per body in request order
+     */
+    @PostMapping("/create-jws-header-batch")
+    public ResponseEntity<?> createJwsHeaderBatch(@RequestBody JwsBatchRequestDto request) {
+        List<String> bodies = request.getBodies();
+        if (bodies == null || bodies.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "bodies is required"));
+        }
+        return streamBatch(bodies, jwsBatchService::createJwsHeaders);
+    }
+    
+    /**
+     * verifyJws for many tokens - {"tokens": [{"jws_token", "original_body"}]}, streamed as NDJSON
+     */
+    @PostMapping("/verify-jws-batch")
+    public ResponseEntity<?> verifyJwsBatch(@RequestBody JwsBatchRequestDto request) {
+        List<JwsTokenDto> tokens = request.getTokens();
+        if (tokens == null || tokens.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "tokens is required"));
+        }
+        return streamBatch(tokens, jwsBatchService::verifyJws);
+    }
+    
+    /**
+     * validateJwsComprehensive for many tokens; nonces are checked per chunk in one store round trip
+     */
+    @PostMapping("/validate-jws-comprehensive-batch")
+    public ResponseEntity<?> validateJwsComprehensiveBatch(@RequestBody JwsBatchRequestDto request) {
+        List<JwsTokenDto> tokens = request.getTokens();
+        if (tokens == null || tokens.isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("error", "tokens is required"));
+        }
+        return streamBatch(tokens, jwsBatchService::validateJwsComprehensive);
+    }
+    
+    private <T> ResponseEntity<?> streamBatch(List<T> items,
+            BiFunction<List<T>, Consumer<JwsBatchResultDto>, CompletableFuture<Void>> batch) {
+        if (items.size() > jwsBatchService.getMaxItems()) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "error", "Too many items in one batch",
+                "max_items", jwsBatchService.getMaxItems()
+            ));
+        }
+        
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(batchTimeoutMs);
+        batch.apply(items, result -> {
+            try {
+                emitter.send(objectMapper.writeValueAsString(result) + "\n", MediaType.APPLICATION_NDJSON);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }).whenComplete((ignored, ex) -> {
+            if (ex != null) {
+                logger.error("JWS batch failed: {}", ex.getMessage(), ex);
+                emitter.completeWithError(ex);
+            } else {
+                emitter.complete();
+            }
+        });
+        
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_NDJSON)
+            .body(emitter);
+    }
+}
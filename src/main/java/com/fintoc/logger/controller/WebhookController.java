@@ -2,6 +2,7 @@ package com.fintoc.logger.controller;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintoc.logger.service.WebhookIngestService;
 import com.fintoc.logger.service.WebhookService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,6 +11,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
@@ -22,32 +24,55 @@ public class WebhookController {
     private static final Logger logger = LoggerFactory.getLogger(WebhookController.class);
     
     private final WebhookService webhookService;
+    private final WebhookIngestService webhookIngestService;
     private final ObjectMapper objectMapper;
 
     @Autowired
-    public WebhookController(WebhookService webhookService, ObjectMapper objectMapper) {
+    public WebhookController(WebhookService webhookService, WebhookIngestService webhookIngestService,
+                             ObjectMapper objectMapper) {
         this.webhookService = webhookService;
+        this.webhookIngestService = webhookIngestService;
         this.objectMapper = objectMapper;
     }
 
     /**
      * Fintoc webhook endpoint for account verification events
-     * Receives webhooks with fintoc-signature header for verification
+     * Receives webhooks with fintoc-signature header for verification. The signature is checked
+     * over the raw body bytes before anything else, so forged, stale or garbage requests are
+     * turned away without parsing the JSON or logging the body. With fast-ack ingestion enabled a
+     * verified webhook is journaled and acknowledged at once, and stored in the background.
      */
     @PostMapping("/fintoc")
     public ResponseEntity<Map<String, String>> handleFintocWebhook(
-            @RequestBody String rawBody,
+            @RequestBody byte[] rawBody,
             @RequestHeader(value = "fintoc-signature", required = false) String fintocSignature,
             HttpServletRequest request) {
         
         long startTime = System.currentTimeMillis();
         
         try {
-            logger.info("Received Fintoc webhook with signature: {}", fintocSignature);
-            logger.info("Webhook raw body: {}", rawBody);
+            // Verify webhook signature (header, timestamp, HMAC of the raw bytes) before touching the body
+            boolean signatureValid = webhookService.verifyWebhookSignature(rawBody, fintocSignature);
+            if (!signatureValid) {
+                logger.warn("Invalid webhook signature, {} byte body rejected", rawBody.length);
+                return ResponseEntity.badRequest().body(Map.of(
+                    "error", "invalid_signature",
+                    "message", "Webhook signature verification failed"
+                ));
+            }
+
+            // Fast-ack: journaled webhooks are stored in the background; if journaling fails, store it now
+            if (webhookIngestService.isEnabled() && webhookIngestService.accept(fintocSignature, rawBody)) {
+                return ResponseEntity.ok(Map.of(
+                    "status", "accepted",
+                    "execution_time_ms", String.valueOf(System.currentTimeMillis() - startTime)
+                ));
+            }
             
-            // Parse the webhook body
+            // Parse the webhook body, once; the tree goes on to processing
             JsonNode webhookData = objectMapper.readTree(rawBody);
+            String body = new String(rawBody, StandardCharsets.UTF_8);
+            logger.debug("Webhook raw body: {}", body);
             
             // Extract event details
             String eventId = webhookData.path("id").asText();
@@ -56,19 +81,20 @@ public class WebhookController {
             String createdAt = webhookData.path("created_at").asText();
             
             logger.info("Processing webhook - ID: {}, Type: {}, Mode: {}, Created: {}", eventId, eventType, mode, createdAt);
-            
-            // Verify webhook signature
-            boolean signatureValid = webhookService.verifyWebhookSignature(rawBody, fintocSignature);
-            if (!signatureValid) {
-                logger.warn("Invalid webhook signature for event: {}", eventId);
-                return ResponseEntity.badRequest().body(Map.of(
-                    "error", "invalid_signature",
-                    "message", "Webhook signature verification failed"
+
+            // Redelivery of an event stored recently: acknowledge it so Fintoc stops retrying
+            if (webhookService.isDuplicate(eventId)) {
+                logger.info("Webhook {} already stored, acknowledged as duplicate", eventId);
+                return ResponseEntity.ok(Map.of(
+                    "status", "duplicate",
+                    "event_id", eventId,
+                    "event_type", eventType,
+                    "execution_time_ms", String.valueOf(System.currentTimeMillis() - startTime)
                 ));
             }
             
             // Process the webhook based on event type
-            boolean processed = webhookService.processWebhook(webhookData, fintocSignature, rawBody);
+            boolean processed = webhookService.processWebhook(webhookData, fintocSignature, body);
             
             long executionTime = System.currentTimeMillis() - startTime;
             
@@ -2,10 +2,12 @@ package com.fintoc.logger.controller;
 
 import com.fintoc.logger.entity.WebhookLog;
 import com.fintoc.logger.repository.WebhookLogRepository;
+import com.fintoc.logger.service.WebhookReplayService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -22,10 +24,13 @@ import java.util.Optional;
 public class WebhookLogsController {
 
     private final WebhookLogRepository webhookLogRepository;
+    private final WebhookReplayService webhookReplayService;
 
     @Autowired
-    public WebhookLogsController(WebhookLogRepository webhookLogRepository) {
+    public WebhookLogsController(WebhookLogRepository webhookLogRepository,
+                                 WebhookReplayService webhookReplayService) {
         this.webhookLogRepository = webhookLogRepository;
+        this.webhookReplayService = webhookReplayService;
     }
 
     /**
@@ -165,4 +170,54 @@ public class WebhookLogsController {
         Long totalCount = webhookLogRepository.countTotalWebhooks();
         return ResponseEntity.ok(Map.of("total_count", totalCount));
     }
-}
\ No newline at end of file
+
+    /**
+     * Start replaying stored webhooks in the background: re-parse raw_body and rewrite the derived
+     * columns of unprocessed rows (scope=unprocessed) or also failed ones (scope=failed).
+     * Picks up from the last checkpoint unless restart=true; rate (rows/s) and concurrency are
+     * capped by fintoc.webhook.replay.max-rate and max-concurrency.
+     */
+    @PostMapping("/replay")
+    public ResponseEntity<Map<String, Object>> startReplay(
+            @RequestParam(defaultValue = "unprocessed") String scope,
+            @RequestParam(required = false) Integer rate,
+            @RequestParam(required = false) Integer concurrency,
+            @RequestParam(defaultValue = "false") boolean restart) {
+        WebhookReplayService.Scope replayScope;
+        try {
+            replayScope = WebhookReplayService.Scope.valueOf(scope.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", "scope must be unprocessed or failed"));
+        }
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(webhookReplayService.start(replayScope, rate, concurrency, restart));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of(
+                "error", e.getMessage(),
+                "replay", webhookReplayService.status()
+            ));
+        }
+    }
+
+    /**
+     * Progress of the current or last replay
+     */
+    @GetMapping("/replay")
+    public ResponseEntity<Map<String, Object>> getReplayStatus() {
+        return ResponseEntity.ok(webhookReplayService.status());
+    }
+
+    /**
+     * Stop the running replay; it can be resumed from its checkpoint
+     */
+    @DeleteMapping("/replay")
+    public ResponseEntity<Map<String, Object>> stopReplay() {
+        if (!webhookReplayService.stop()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "No webhook replay is running"));
+        }
+        return ResponseEntity.accepted().body(webhookReplayService.status());
+    }
+}
@@ -0,0 +1,36 @@
+package com.fintoc.logger.dto;
+
+import java.util.List;
+
+/**
+ * DTO for bulk account validation requests
+ * Carries the account numbers to validate in one call
+ */
+public class BatchValidationRequestDto {
+
+    private List<String> accounts;
+
+    // Default constructor
+    public BatchValidationRequestDto() {}
+
+    // Constructor with parameters
+    public BatchValidationRequestDto(List<String> accounts) {
+        this.accounts = accounts;
+    }
+
+    // Getters and Setters
+    public List<String> getAccounts() {
+        return accounts;
+    }
+
+    public void setAccounts(List<String> accounts) {
+        this.accounts = accounts;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchValidationRequestDto{" +
+                "accounts=" + (accounts != null ? accounts.size() : 0) +
+                '}';
+    }
+}
@@ -0,0 +1,87 @@
+package com.fintoc.logger.dto;
+
+/**
+ * DTO for one line of a bulk validation response
+ * Streamed back as NDJSON as soon as the account's validation finishes
+ */
+public class BatchValidationResultDto {
+
+    private String accountId;
+    private Boolean success;
+    private Integer httpStatus;
+    private String validationId;
+    private String validationStatus;
+    private Long executionTimeMs;
+    private String error;
+
+    // Default constructor
+    public BatchValidationResultDto() {}
+
+    // Getters and Setters
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public void setAccountId(String accountId) {
+        this.accountId = accountId;
+    }
+
+    public Boolean getSuccess() {
+        return success;
+    }
+
+    public void setSuccess(Boolean success) {
+        this.success = success;
+    }
+
+    public Integer getHttpStatus() {
+        return httpStatus;
+    }
+
+    public void setHttpStatus(Integer httpStatus) {
+        this.httpStatus = httpStatus;
+    }
+
+    public String getValidationId() {
+        return validationId;
+    }
+
+    public void setValidationId(String validationId) {
+        this.validationId = validationId;
+    }
+
+    public String getValidationStatus() {
+        return validationStatus;
+    }
+
+    public void setValidationStatus(String validationStatus) {
+        this.validationStatus = validationStatus;
+    }
+
+    public Long getExecutionTimeMs() {
+        return executionTimeMs;
+    }
+
+    public void setExecutionTimeMs(Long executionTimeMs) {
+        this.executionTimeMs = executionTimeMs;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchValidationResultDto{" +
+                "accountId='" + accountId + '\'' +
+                ", success=" + success +
+                ", httpStatus=" + httpStatus +
+                ", validationId='" + validationId + '\'' +
+                ", validationStatus='" + validationStatus + '\'' +
+                '}';
+    }
+}
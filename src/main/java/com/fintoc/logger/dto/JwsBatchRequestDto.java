@@ -0,0 +1,41 @@
+package com.fintoc.logger.dto;
+
+import java.util.List;
+
+/**
+ * DTO for batch JWS requests
+ * bodies are signed by create-jws-header-batch; tokens are checked by the verify batches
+ */
+public class JwsBatchRequestDto {
+
+    private List<String> bodies;
+    private List<JwsTokenDto> tokens;
+
+    // Default constructor
+    public JwsBatchRequestDto() {}
+
+    // Getters and Setters
+    public List<String> getBodies() {
+        return bodies;
+    }
+
+    public void setBodies(List<String> bodies) {
+        this.bodies = bodies;
+    }
+
+    public List<JwsTokenDto> getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(List<JwsTokenDto> tokens) {
+        this.tokens = tokens;
+    }
+
+    @Override
+    public String toString() {
+        return "JwsBatchRequestDto{" +
+                "bodies=" + (bodies != null ? bodies.size() : 0) +
+                ", tokens=" + (tokens != null ? tokens.size() : 0) +
+                '}';
+    }
+}
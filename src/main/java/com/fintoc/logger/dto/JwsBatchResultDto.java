@@ -0,0 +1,63 @@
+package com.fintoc.logger.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * DTO for one line of a batch JWS response
+ * Streamed back as NDJSON; index is the item's position in the request
+ */
+public class JwsBatchResultDto {
+
+    private Integer index;
+    private String status;
+
+    @JsonProperty("jws_header")
+    private String jwsHeader;
+
+    private Boolean valid;
+    private String error;
+
+    // Default constructor
+    public JwsBatchResultDto() {}
+
+    // Getters and Setters
+    public Integer getIndex() {
+        return index;
+    }
+
+    public void setIndex(Integer index) {
+        this.index = index;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getJwsHeader() {
+        return jwsHeader;
+    }
+
+    public void setJwsHeader(String jwsHeader) {
+        this.jwsHeader = jwsHeader;
+    }
+
+    public Boolean getValid() {
+        return valid;
+    }
+
+    public void setValid(Boolean valid) {
+        this.valid = valid;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
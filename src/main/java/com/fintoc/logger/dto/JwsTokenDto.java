@@ -0,0 +1,42 @@
+package com.fintoc.logger.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * DTO for one token of a batch JWS verification request
+ * original_body is only needed for detached tokens (header.signature)
+ */
+public class JwsTokenDto {
+
+    @JsonProperty("jws_token")
+    private String jwsToken;
+
+    @JsonProperty("original_body")
+    private String originalBody;
+
+    // Default constructor
+    public JwsTokenDto() {}
+
+    // Constructor with parameters
+    public JwsTokenDto(String jwsToken, String originalBody) {
+        this.jwsToken = jwsToken;
+        this.originalBody = originalBody;
+    }
+
+    // Getters and Setters
+    public String getJwsToken() {
+        return jwsToken;
+    }
+
+    public void setJwsToken(String jwsToken) {
+        this.jwsToken = jwsToken;
+    }
+
+    public String getOriginalBody() {
+        return originalBody;
+    }
+
+    public void setOriginalBody(String originalBody) {
+        this.originalBody = originalBody;
+    }
+}
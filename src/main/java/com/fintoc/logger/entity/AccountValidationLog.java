@@ -8,8 +8,11 @@ import java.util.Objects;
 @Table(name = "logsbook")
 public class AccountValidationLog {
 
+    // Pooled sequence rather than IDENTITY, so inserts can go out as JDBC batches;
+    // one sequence call hands out 50 ids, matching hibernate.jdbc.batch_size
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "logsbook_seq")
+    @SequenceGenerator(name = "logsbook_seq", sequenceName = "logsbook_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "account_id", nullable = false, length = 100)
@@ -60,6 +63,26 @@ public class AccountValidationLog {
     @Column(name = "institution_id", length = 100)
     private String institutionId;
 
+    // Phase timings of the Fintoc call in microseconds; null when the phase did not run
+    @Column(name = "sign_time_us")
+    private Long signTimeUs;
+
+    @Column(name = "connect_time_us")
+    private Long connectTimeUs;
+
+    @Column(name = "ttfb_time_us")
+    private Long ttfbTimeUs;
+
+    @Column(name = "body_read_time_us")
+    private Long bodyReadTimeUs;
+
+    @Column(name = "parse_time_us")
+    private Long parseTimeUs;
+
+    // Time spent in the write-behind queue before the row's batch was written
+    @Column(name = "persist_wait_time_us")
+    private Long persistWaitTimeUs;
+
     // Constructors
     public AccountValidationLog() {
         this.createdAt = LocalDateTime.now();
@@ -208,6 +231,54 @@ public class AccountValidationLog {
         this.institutionId = institutionId;
     }
 
+    public Long getSignTimeUs() {
+        return signTimeUs;
+    }
+
+    public void setSignTimeUs(Long signTimeUs) {
+        this.signTimeUs = signTimeUs;
+    }
+
+    public Long getConnectTimeUs() {
+        return connectTimeUs;
+    }
+
+    public void setConnectTimeUs(Long connectTimeUs) {
+        this.connectTimeUs = connectTimeUs;
+    }
+
+    public Long getTtfbTimeUs() {
+        return ttfbTimeUs;
+    }
+
+    public void setTtfbTimeUs(Long ttfbTimeUs) {
+        this.ttfbTimeUs = ttfbTimeUs;
+    }
+
+    public Long getBodyReadTimeUs() {
+        return bodyReadTimeUs;
+    }
+
+    public void setBodyReadTimeUs(Long bodyReadTimeUs) {
+        this.bodyReadTimeUs = bodyReadTimeUs;
+    }
+
+    public Long getParseTimeUs() {
+        return parseTimeUs;
+    }
+
+    public void setParseTimeUs(Long parseTimeUs) {
+        this.parseTimeUs = parseTimeUs;
+    }
+
+    public Long getPersistWaitTimeUs() {
+        return persistWaitTimeUs;
+    }
+
+    public void setPersistWaitTimeUs(Long persistWaitTimeUs) {
+        this.persistWaitTimeUs = persistWaitTimeUs;
+    }
+
     // Helper methods for validation results
     public boolean isValidationSuccessful() {
         return "SUCCESS".equals(validationResult);
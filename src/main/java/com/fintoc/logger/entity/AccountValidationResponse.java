@@ -1,7 +1,9 @@
 package com.fintoc.logger.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import org.springframework.data.domain.Persistable;
 
 import javax.persistence.*;
 import java.time.LocalDateTime;
@@ -13,7 +15,7 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "account_validation")
 @JsonIgnoreProperties(ignoreUnknown = true)
-public class AccountValidationResponse {
+public class AccountValidationResponse implements Persistable<String> {
     
     @Id
     @Column(name = "id")
@@ -52,6 +54,12 @@ public class AccountValidationResponse {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
     
+    // Fintoc assigns the id, so track newness here to let save()/saveAll() persist
+    // (and batch) instead of issuing a SELECT per row through merge()
+    @Transient
+    @JsonIgnore
+    private boolean isNew = true;
+    
     // Default constructor
     public AccountValidationResponse() {}
     
@@ -61,6 +69,18 @@ public class AccountValidationResponse {
         updatedAt = LocalDateTime.now();
     }
     
+    @PostPersist
+    @PostLoad
+    protected void markNotNew() {
+        isNew = false;
+    }
+    
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return isNew;
+    }
+    
     @PreUpdate
     protected void onUpdate() {
         updatedAt = LocalDateTime.now();
@@ -7,11 +7,17 @@ import java.time.LocalDateTime;
  * Entity to store webhook event logs from Fintoc
  */
 @Entity
-@Table(name = "webhook_logs")
+@Table(name = "webhook_logs", indexes = {
+    // Replay pages through unprocessed rows by id
+    @Index(name = "IX_webhook_logs_processed_id", columnList = "processed, id")
+})
 public class WebhookLog {
 
+    // Pooled sequence rather than IDENTITY, so inserts can go out as JDBC batches;
+    // one sequence call hands out 50 ids, matching hibernate.jdbc.batch_size
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "webhook_logs_seq")
+    @SequenceGenerator(name = "webhook_logs_seq", sequenceName = "webhook_logs_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "event_id", nullable = false, unique = true, length = 100)
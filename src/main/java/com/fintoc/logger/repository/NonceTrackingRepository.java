@@ -1,20 +1,155 @@
 package com.fintoc.logger.repository;
 
-import com.fintoc.logger.entity.NonceTracking;
-import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Modifying;
-import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.annotation.PostConstruct;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
+/**
+ * Used JWS nonces, kept in a ring of per-hour tables nonce_tracking_0 .. nonce_tracking_7 so that
+ * cleanup is a TRUNCATE of whole hours rather than a DELETE over rows.
+ * <p>
+ * A nonce marked in hour h goes into the slot tables of hours h and h+1, in one transaction. A
+ * nonce is used if it is in the slot of the current hour or the one before, which covers every
+ * nonce marked in the last two hours. Two instances marking the same nonce in the same hour or
+ * in adjacent hours (on either side of the hour boundary) both write one common slot, so its
+ * primary key still settles the race. A slot is truncated once it is outside hours h-2 .. h+2.
+ */
 @Repository
-public interface NonceTrackingRepository extends JpaRepository<NonceTracking, String> {
-    
-    boolean existsByNonce(String nonce);
-    
-    @Modifying
-    @Query("DELETE FROM NonceTracking n WHERE n.expiresAt < :now")
-    int deleteExpiredNonces(@Param("now") LocalDateTime now);
-}
\ No newline at end of file
+public class NonceTrackingRepository {
+
+    private static final Logger logger = LoggerFactory.getLogger(NonceTrackingRepository.class);
+    static final int SLOTS = 8;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final boolean createTables;
+
+    @Autowired
+    public NonceTrackingRepository(JdbcTemplate jdbcTemplate,
+                                   @Value("${jws.nonce.create-tables:true}") boolean createTables) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.createTables = createTables;
+    }
+
+    /**
+     * Create the slot tables that are missing (H2, PostgreSQL); with SQL Server the setup script creates them
+     */
+    @PostConstruct
+    public void createSlotTables() {
+        if (!createTables) {
+            return;
+        }
+        for (int slot = 0; slot < SLOTS; slot++) {
+            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table(slot) + " ("
+                + "nonce VARCHAR(64) NOT NULL PRIMARY KEY, "
+                + "created_at TIMESTAMP NOT NULL, "
+                + "expires_at TIMESTAMP NOT NULL)");
+        }
+    }
+
+    /**
+     * The hour (since the epoch) a time falls in
+     */
+    public static long hourOf(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) / 3600;
+    }
+
+    /**
+     * True if the nonce was marked as used in the two hours up to the given one
+     */
+    public boolean existsByNonce(String nonce, long hour) {
+        Integer found = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM " + table(slotOf(hour)) + " WHERE nonce = ?", Integer.class, nonce);
+        if (found != null && found > 0) {
+            return true;
+        }
+        found = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM " + table(slotOf(hour - 1)) + " WHERE nonce = ?", Integer.class, nonce);
+        return found != null && found > 0;
+    }
+
+    /**
+     * The given nonces that were marked as used in the two hours up to the given one
+     */
+    public List<String> findExistingNonces(Collection<String> nonces, long hour) {
+        MapSqlParameterSource params = new MapSqlParameterSource("nonces", nonces);
+        return namedJdbcTemplate.queryForList(
+            "SELECT nonce FROM " + table(slotOf(hour)) + " WHERE nonce IN (:nonces) "
+                + "UNION SELECT nonce FROM " + table(slotOf(hour - 1)) + " WHERE nonce IN (:nonces)",
+            params, String.class);
+    }
+
+    /**
+     * Mark the nonce as used in the given hour unless it already is: returns 1 if it was marked
+     * and 0 if it was used before. Two concurrent marks of the same nonce are settled by the
+     * primary key of a slot they share, the loser getting a DataIntegrityViolationException.
+     */
+    @Transactional
+    public int insertIfAbsent(String nonce, LocalDateTime createdAt, LocalDateTime expiresAt, long hour) {
+        int inserted = jdbcTemplate.update(
+            "INSERT INTO " + table(slotOf(hour)) + " (nonce, created_at, expires_at) "
+                + "SELECT ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM " + table(slotOf(hour)) + " WHERE nonce = ?) "
+                + "AND NOT EXISTS (SELECT 1 FROM " + table(slotOf(hour - 1)) + " WHERE nonce = ?)",
+            nonce, Timestamp.valueOf(createdAt), Timestamp.valueOf(expiresAt), nonce, nonce);
+        if (inserted == 0) {
+            return 0;
+        }
+        jdbcTemplate.update("INSERT INTO " + table(slotOf(hour + 1)) + " (nonce, created_at, expires_at) VALUES (?, ?, ?)",
+            nonce, Timestamp.valueOf(createdAt), Timestamp.valueOf(expiresAt));
+        return 1;
+    }
+
+    /**
+     * Mark nonces known to be unused as used in the given hour, as JDBC batches.
+     * A nonce another instance marked in the meantime fails the whole call.
+     */
+    @Transactional
+    public void insertAll(Collection<String> nonces, LocalDateTime createdAt, LocalDateTime expiresAt, long hour) {
+        List<Object[]> rows = new ArrayList<>(nonces.size());
+        for (String nonce : nonces) {
+            rows.add(new Object[]{nonce, Timestamp.valueOf(createdAt), Timestamp.valueOf(expiresAt)});
+        }
+        for (long slotHour = hour; slotHour <= hour + 1; slotHour++) {
+            jdbcTemplate.batchUpdate("INSERT INTO " + table(slotOf(slotHour))
+                + " (nonce, created_at, expires_at) VALUES (?, ?, ?)", rows);
+        }
+    }
+
+    /**
+     * Truncate the slots outside hours hour-2 .. hour+2: everything in them has expired, and
+     * none of them is written again before hour+2, so a late run cannot empty a slot in use
+     * @return the number of slots truncated
+     */
+    public int truncateExpiredSlots(long hour) {
+        int truncated = 0;
+        for (long slotHour = hour - 3; slotHour > hour + 2 - SLOTS; slotHour--) {
+            jdbcTemplate.execute("TRUNCATE TABLE " + table(slotOf(slotHour)));
+            truncated++;
+        }
+        logger.debug("Truncated {} expired nonce slots", truncated);
+        return truncated;
+    }
+
+    private static int slotOf(long hour) {
+        return (int) Math.floorMod(hour, (long) SLOTS);
+    }
+
+    private static String table(int slot) {
+        return "nonce_tracking_" + slot;
+    }
+}
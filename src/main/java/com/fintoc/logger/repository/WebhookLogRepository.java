@@ -123,6 +123,18 @@ public interface WebhookLogRepository extends JpaRepository<WebhookLog, Long> {
     @Query("SELECT w FROM WebhookLog w WHERE w.processed = false OR w.status = 'failed' ORDER BY w.createdAt DESC")
     List<WebhookLog> findFailedWebhooks();
 
+    /**
+     * Ids of unprocessed webhook logs after afterId, in id order (keyset pagination)
+     */
+    @Query("SELECT w.id FROM WebhookLog w WHERE w.processed = false AND w.id > :afterId ORDER BY w.id ASC")
+    List<Long> findUnprocessedIdsAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Ids of unprocessed or failed webhook logs after afterId, in id order (keyset pagination)
+     */
+    @Query("SELECT w.id FROM WebhookLog w WHERE (w.processed = false OR w.status = 'failed') AND w.id > :afterId ORDER BY w.id ASC")
+    List<Long> findFailedIdsAfter(@Param("afterId") long afterId, Pageable pageable);
+
     /**
      * Check if event ID already exists (for duplicate prevention)
      */
@@ -196,6 +196,15 @@ public class AccountValidationLogService {
         }
     }
 
+    /**
+     * Save a group of validation log entries in one transaction
+     */
+    public List<AccountValidationLog> saveValidationLogs(List<AccountValidationLog> validationLogs) {
+        List<AccountValidationLog> savedLogs = validationLogRepository.saveAll(validationLogs);
+        logger.debug("Saved {} validation logs", savedLogs.size());
+        return savedLogs;
+    }
+
     /**
      * Create a validation log entry for account validation API call
      */
@@ -206,10 +215,28 @@ public class AccountValidationLogService {
                                                    String apiKeyUsed, Boolean success, 
                                                    String errorMessage, String linkId) {
         
+        return saveValidationLog(buildValidationLog(accountId, validationType, requestHeaders, requestBody,
+                responseStatus, responseHeaders, responseBody, executionTimeMs, apiKeyUsed, success,
+                errorMessage, linkId));
+    }
+
+    /**
+     * Build (without saving) a validation log entry for account validation API call
+     */
+    public static AccountValidationLog buildValidationLog(String accountId, String validationType,
+                                                  String requestHeaders, String requestBody,
+                                                  Integer responseStatus, String responseHeaders,
+                                                  String responseBody, Long executionTimeMs,
+                                                  String apiKeyUsed, Boolean success,
+                                                  String errorMessage, String linkId) {
+
+        // Calls that never got an HTTP response are stored with status 0
+        int status = responseStatus != null ? responseStatus : 0;
+
         AccountValidationLog log = new AccountValidationLog(accountId, validationType);
         log.setRequestHeaders(requestHeaders);
         log.setRequestBody(requestBody);
-        log.setResponseStatus(responseStatus);
+        log.setResponseStatus(status);
         log.setResponseHeaders(responseHeaders);
         log.setResponseBody(responseBody);
         log.setExecutionTimeMs(executionTimeMs);
@@ -219,14 +246,14 @@ public class AccountValidationLogService {
         log.setLinkId(linkId);
         
         // Extract validation result from response
-        if (success && responseStatus >= 200 && responseStatus < 300) {
+        if (Boolean.TRUE.equals(success) && status >= 200 && status < 300) {
             log.setValidationResult("SUCCESS");
-        } else if (responseStatus >= 400) {
+        } else if (status >= 400 || Boolean.FALSE.equals(success)) {
             log.setValidationResult("FAILED");
         } else {
             log.setValidationResult("PENDING");
         }
         
-        return saveValidationLog(log);
+        return log;
     }
 }
\ No newline at end of file
@@ -0,0 +1,190 @@
+package com.fintoc.logger.service;
+
+import com.fintoc.logger.dto.BatchValidationResultDto;
+import com.fintoc.logger.entity.AccountValidationResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Service for validating many accounts in one request.
+ * Fans out to Fintoc with a bounded number of calls in flight, reports each result
+ * as soon as it arrives and stores the rows in batches instead of one by one.
+ *
+ * max-concurrency is global: all running batches share the same pool of call permits,
+ * and at most max-parallel-batches batches are coordinated at once (others wait in line).
+ */
+@Service
+public class BatchValidationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchValidationService.class);
+
+    private final FintocApiService fintocApiService;
+    private final int persistBatchSize;
+    private final int maxAccounts;
+    private final Semaphore callPermits;
+    private final ExecutorService coordinatorPool;
+
+    @Autowired
+    public BatchValidationService(FintocApiService fintocApiService,
+                                  @Value("${fintoc.batch.max-concurrency:16}") int maxConcurrency,
+                                  @Value("${fintoc.batch.persist-batch-size:100}") int persistBatchSize,
+                                  @Value("${fintoc.batch.max-accounts:10000}") int maxAccounts,
+                                  @Value("${fintoc.batch.max-parallel-batches:4}") int maxParallelBatches) {
+        this.fintocApiService = fintocApiService;
+        this.persistBatchSize = persistBatchSize;
+        this.maxAccounts = maxAccounts;
+        this.callPermits = new Semaphore(maxConcurrency);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.coordinatorPool = Executors.newFixedThreadPool(maxParallelBatches, runnable -> {
+            Thread thread = new Thread(runnable, "batch-validation-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getMaxAccounts() {
+        return maxAccounts;
+    }
+
+    /**
+     * Validate all accounts in the background.
+     * onResult is called from a single coordinator thread, once per account, in completion order.
+     */
+    public CompletableFuture<Void> validateBatch(List<String> accountIds, Consumer<BatchValidationResultDto> onResult) {
+        return CompletableFuture.runAsync(() -> runBatch(accountIds, onResult), coordinatorPool);
+    }
+
+    private void runBatch(List<String> accountIds, Consumer<BatchValidationResultDto> onResult) {
+        long startTime = System.currentTimeMillis();
+        BlockingQueue<ValidationOutcome> completed = new LinkedBlockingQueue<>();
+        List<ValidationOutcome> pendingWrites = new ArrayList<>(persistBatchSize);
+        Iterator<String> remaining = accountIds.iterator();
+
+        int submitted = 0;
+        int finished = 0;
+        boolean receiverGone = false;
+
+        try {
+            while (finished < submitted || (!receiverGone && remaining.hasNext())) {
+                // Start as many calls as the shared permits allow
+                while (!receiverGone && remaining.hasNext() && callPermits.tryAcquire()) {
+                    submit(remaining.next(), completed);
+                    submitted++;
+                }
+
+                // Nothing of ours in flight: wait for another batch to free a permit
+                if (finished == submitted) {
+                    callPermits.acquire();
+                    submit(remaining.next(), completed);
+                    submitted++;
+                }
+
+                ValidationOutcome outcome = completed.take();
+                finished++;
+
+                if (outcome.getLog() != null) {
+                    pendingWrites.add(outcome);
+                }
+                if (pendingWrites.size() >= persistBatchSize) {
+                    persistBatch(pendingWrites);
+                    pendingWrites = new ArrayList<>(persistBatchSize);
+                }
+
+                if (!receiverGone) {
+                    try {
+                        onResult.accept(toResultDto(outcome));
+                    } catch (Exception e) {
+                        // Client disconnected: finish what is in flight, but start nothing new
+                        logger.warn("Batch validation receiver failed, stopping after in-flight calls: {}", e.getMessage());
+                        receiverGone = true;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Batch validation interrupted", e);
+        } finally {
+            if (!pendingWrites.isEmpty()) {
+                persistBatch(pendingWrites);
+            }
+        }
+
+        logger.info("Batch validation finished: {} of {} accounts in {}ms",
+                   finished, accountIds.size(), System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * Start one validation; its permit goes back to the shared pool when it completes
+     */
+    private void submit(String accountId, BlockingQueue<ValidationOutcome> completed) {
+        CompletableFuture<ValidationOutcome> call;
+        try {
+            call = fintocApiService.executeValidation(accountId);
+        } catch (RuntimeException e) {
+            call = new CompletableFuture<>();
+            call.completeExceptionally(e);
+        }
+        call.whenComplete((outcome, ex) -> {
+            callPermits.release();
+            if (outcome != null) {
+                completed.add(outcome);
+            } else {
+                completed.add(ValidationOutcome.failure(accountId, null, 0,
+                    new RuntimeException("Account validation failed", ex)));
+            }
+        });
+    }
+
+    /**
+     * Write a batch of outcomes, falling back to row-by-row writes if the batch is rejected
+     */
+    private void persistBatch(List<ValidationOutcome> outcomes) {
+        try {
+            fintocApiService.persistOutcomes(outcomes);
+        } catch (Exception e) {
+            logger.error("Batch insert of {} validations failed, retrying row by row: {}", outcomes.size(), e.getMessage());
+            for (ValidationOutcome outcome : outcomes) {
+                fintocApiService.persistOutcome(outcome);
+            }
+        }
+    }
+
+    private BatchValidationResultDto toResultDto(ValidationOutcome outcome) {
+        BatchValidationResultDto result = new BatchValidationResultDto();
+        result.setAccountId(outcome.getAccountId());
+        result.setSuccess(outcome.isSuccess());
+        result.setHttpStatus(outcome.getHttpStatus());
+        if (outcome.getLog() != null) {
+            result.setExecutionTimeMs(outcome.getLog().getExecutionTimeMs());
+        }
+
+        AccountValidationResponse response = outcome.getResponse();
+        if (response != null) {
+            result.setValidationId(response.getId());
+            result.setValidationStatus(response.getStatus());
+        }
+        result.setError(outcome.getErrorDescription());
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinatorPool.shutdownNow();
+    }
+}
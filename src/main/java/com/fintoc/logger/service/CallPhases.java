@@ -0,0 +1,89 @@
+package com.fintoc.logger.service;
+
+import com.fintoc.logger.entity.AccountValidationLog;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Where the time of one Fintoc call went, measured with System.nanoTime().
+ * sign, body read and parse are timed by FintocApiService; connect and time to first byte
+ * come from OkHttp events, via LISTENER_FACTORY and the CallPhases tag on the request.
+ * A phase that did not run stays at -1.
+ */
+class CallPhases {
+
+    /**
+     * Reports OkHttp events of requests tagged with a CallPhases; untagged requests are ignored
+     */
+    static final EventListener.Factory LISTENER_FACTORY = call -> {
+        CallPhases phases = call.request().tag(CallPhases.class);
+        return phases != null ? phases.new Listener() : EventListener.NONE;
+    };
+
+    private final long startNanos = System.nanoTime();
+
+    volatile long signNanos = -1;
+    volatile long bodyReadNanos = -1;
+    volatile long parseNanos = -1;
+
+    private volatile long callStartNanos;
+    private volatile long connectionAcquiredNanos;
+    private volatile long responseHeadersStartNanos;
+
+    long elapsedMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * From the dispatcher starting the call to having a connection (DNS, TCP and TLS, or a pooled one)
+     */
+    long connectNanos() {
+        return callStartNanos > 0 && connectionAcquiredNanos > 0 ? connectionAcquiredNanos - callStartNanos : -1;
+    }
+
+    /**
+     * From having a connection to the first byte of the response headers (request write plus Fintoc's time)
+     */
+    long ttfbNanos() {
+        return connectionAcquiredNanos > 0 && responseHeadersStartNanos > 0
+            ? responseHeadersStartNanos - connectionAcquiredNanos : -1;
+    }
+
+    void applyTo(AccountValidationLog log) {
+        log.setSignTimeUs(micros(signNanos));
+        log.setConnectTimeUs(micros(connectNanos()));
+        log.setTtfbTimeUs(micros(ttfbNanos()));
+        log.setBodyReadTimeUs(micros(bodyReadNanos));
+        log.setParseTimeUs(micros(parseNanos));
+    }
+
+    private static Long micros(long nanos) {
+        return nanos >= 0 ? TimeUnit.NANOSECONDS.toMicros(nanos) : null;
+    }
+
+    private class Listener extends EventListener {
+
+        @Override
+        public void callStart(Call call) {
+            callStartNanos = System.nanoTime();
+        }
+
+        @Override
+        public void connectionAcquired(Call call, Connection connection) {
+            // OkHttp may acquire again after a failed route; keep the first
+            if (connectionAcquiredNanos == 0) {
+                connectionAcquiredNanos = System.nanoTime();
+            }
+        }
+
+        @Override
+        public void responseHeadersStart(Call call) {
+            if (responseHeadersStartNanos == 0) {
+                responseHeadersStartNanos = System.nanoTime();
+            }
+        }
+    }
+}
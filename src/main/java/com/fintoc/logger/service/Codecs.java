@@ -0,0 +1,109 @@
+package com.fintoc.logger.service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Table-driven hex and unpadded base64url encoding into caller-owned buffers.
+ * Lets JWS tokens and webhook signatures be assembled byte by byte, with one String at the end,
+ * instead of a Formatter per hex digit and a String per token part.
+ */
+final class Codecs {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+    private static final byte[] HEX_BYTES = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] BASE64URL =
+        "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+
+    private Codecs() {
+    }
+
+    /**
+     * Lowercase hex of bytes (what Node's toString('hex') gives)
+     */
+    static String hex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[2 * i] = HEX[(bytes[i] >> 4) & 0x0f];
+            chars[2 * i + 1] = HEX[bytes[i] & 0x0f];
+        }
+        return new String(chars);
+    }
+
+    /**
+     * Write the lowercase hex of src into dst at offset; returns the offset after the last digit
+     */
+    static int hexInto(byte[] src, byte[] dst, int offset) {
+        for (byte b : src) {
+            dst[offset++] = HEX_BYTES[(b >> 4) & 0x0f];
+            dst[offset++] = HEX_BYTES[b & 0x0f];
+        }
+        return offset;
+    }
+
+    /**
+     * Length of the unpadded base64url encoding of length bytes
+     */
+    static int base64UrlLength(int length) {
+        return (length * 4 + 2) / 3;
+    }
+
+    /**
+     * Write the unpadded base64url encoding of src into dst at offset (what Node's
+     * toString('base64url') gives); returns the offset after the last character
+     */
+    static int base64UrlInto(byte[] src, byte[] dst, int offset) {
+        int i = 0;
+        for (; i + 2 < src.length; i += 3) {
+            int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8 | (src[i + 2] & 0xff);
+            dst[offset++] = BASE64URL[bits >>> 18];
+            dst[offset++] = BASE64URL[(bits >>> 12) & 0x3f];
+            dst[offset++] = BASE64URL[(bits >>> 6) & 0x3f];
+            dst[offset++] = BASE64URL[bits & 0x3f];
+        }
+        int remaining = src.length - i;
+        if (remaining == 1) {
+            int bits = (src[i] & 0xff) << 16;
+            dst[offset++] = BASE64URL[bits >>> 18];
+            dst[offset++] = BASE64URL[(bits >>> 12) & 0x3f];
+        } else if (remaining == 2) {
+            int bits = (src[i] & 0xff) << 16 | (src[i + 1] & 0xff) << 8;
+            dst[offset++] = BASE64URL[bits >>> 18];
+            dst[offset++] = BASE64URL[(bits >>> 12) & 0x3f];
+            dst[offset++] = BASE64URL[(bits >>> 6) & 0x3f];
+        }
+        return offset;
+    }
+
+    /**
+     * base64url(first) + "." + base64url(second) as bytes, e.g. a JWS signing input
+     */
+    static byte[] joinBase64Url(byte[] first, byte[] second) {
+        byte[] joined = new byte[base64UrlLength(first.length) + 1 + base64UrlLength(second.length)];
+        int offset = base64UrlInto(first, joined, 0);
+        joined[offset++] = '.';
+        base64UrlInto(second, joined, offset);
+        return joined;
+    }
+
+    /**
+     * Copy the characters begin..end of an ASCII string into dst at offset; returns the offset
+     * after the last byte, or -1 if a character is not ASCII (and so cannot be base64url)
+     */
+    static int asciiInto(String text, int begin, int end, byte[] dst, int offset) {
+        for (int i = begin; i < end; i++) {
+            char c = text.charAt(i);
+            if (c > 0x7f) {
+                return -1;
+            }
+            dst[offset++] = (byte) c;
+        }
+        return offset;
+    }
+
+    /**
+     * String of ASCII bytes, without a charset decoder
+     */
+    static String ascii(byte[] bytes, int length) {
+        return new String(bytes, 0, length, StandardCharsets.ISO_8859_1);
+    }
+}
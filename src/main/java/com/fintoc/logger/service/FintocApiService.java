@@ -1,22 +1,47 @@
 package com.fintoc.logger.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fintoc.logger.config.HedgeConfig;
+import com.fintoc.logger.config.RetryConfig;
+import com.fintoc.logger.entity.AccountValidationLog;
 import com.fintoc.logger.entity.AccountValidationResponse;
 import com.fintoc.logger.repository.AccountValidationResponseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import okhttp3.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
 @Service
 public class FintocApiService {
 
     private static final Logger logger = LoggerFactory.getLogger(FintocApiService.class);
-    private static final String FINTOC_BASE_URL = "https://api.fintoc.com/v2";
+    private static final String DEFAULT_BASE_URL = "https://api.fintoc.com/v2";
+    private static final Pattern ACCOUNT_NUMBER_PATTERN = Pattern.compile("^[0-9A-Za-z-]{1,64}$");
 
     @Value("${fintoc.api.key:}")
     private String apiKey;
@@ -24,148 +49,744 @@ public class FintocApiService {
     @Value("${fintoc.api.secret:}")
     private String apiSecret;
 
+    // Points at the local stub (profile "stub") for load and latency tests
+    @Value("${fintoc.api.base-url:" + DEFAULT_BASE_URL + "}")
+    private String baseUrl = DEFAULT_BASE_URL;
+
     private final OkHttpClient client;
     private final ObjectMapper objectMapper;
     private final AccountValidationLogService validationLogService;
     private final AccountValidationResponseRepository responseRepository;
     private final JwsSignatureService jwsSignatureService;
+    private final ValidationWriteBehind writeBehind;
+    private final ValidationResultCache resultCache;
+    private final FintocRateLimiter rateLimiter;
+    private final FintocCircuitBreaker circuitBreaker;
+    private final RetryConfig retryConfig;
+    private final HedgeConfig hedgeConfig;
+    private final RecentLatency recentLatency;
+    private final Counter hedgesFired;
+    private final Counter hedgesWon;
+    private final Timer signTimer;
+    private final Timer connectTimer;
+    private final Timer ttfbTimer;
+    private final Timer bodyReadTimer;
+    private final Timer parseTimer;
+    private final ScheduledExecutorService retryScheduler;
+
+    // One outbound call per account at a time; concurrent callers share its outcome
+    private final ConcurrentMap<String, CompletableFuture<ValidationOutcome>> inFlightValidations =
+        new ConcurrentHashMap<>();
+    private final Counter coalescedValidations;
 
     @Autowired
-    public FintocApiService(ObjectMapper objectMapper,
+    public FintocApiService(OkHttpClient client,
+                           ObjectMapper objectMapper,
                            AccountValidationLogService validationLogService,
                            AccountValidationResponseRepository responseRepository,
-                           JwsSignatureService jwsSignatureService) {
-        this.client = new OkHttpClient();
+                           JwsSignatureService jwsSignatureService,
+                           ValidationResultCache resultCache,
+                           FintocRateLimiter rateLimiter,
+                           FintocCircuitBreaker circuitBreaker,
+                           RetryConfig retryConfig,
+                           HedgeConfig hedgeConfig,
+                           ValidationWriteBehind writeBehind,
+                           MeterRegistry meterRegistry) {
+        // Same pool and dispatcher; only adds the per-phase timing events
+        this.client = client.newBuilder().eventListenerFactory(CallPhases.LISTENER_FACTORY).build();
         this.objectMapper = objectMapper;
         this.validationLogService = validationLogService;
         this.responseRepository = responseRepository;
         this.jwsSignatureService = jwsSignatureService;
+        this.writeBehind = writeBehind;
+        this.resultCache = resultCache;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreaker = circuitBreaker;
+        this.retryConfig = retryConfig;
+        this.hedgeConfig = hedgeConfig;
+        this.recentLatency = new RecentLatency(hedgeConfig.getWindowSize());
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fintoc-retry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.coalescedValidations = Counter.builder("fintoc.validation.coalesced")
+            .description("Validations that joined an identical call already in flight")
+            .register(meterRegistry);
+        this.hedgesFired = Counter.builder("fintoc.hedge.fired")
+            .description("Second requests sent because the first was slower than usual")
+            .register(meterRegistry);
+        this.hedgesWon = Counter.builder("fintoc.hedge.won")
+            .description("Hedged calls where the second request answered first")
+            .register(meterRegistry);
+        this.signTimer = phaseTimer(meterRegistry, "sign");
+        this.connectTimer = phaseTimer(meterRegistry, "connect");
+        this.ttfbTimer = phaseTimer(meterRegistry, "ttfb");
+        this.bodyReadTimer = phaseTimer(meterRegistry, "body_read");
+        this.parseTimer = phaseTimer(meterRegistry, "parse");
+    }
+
+    /**
+     * fintoc.validation.phase{phase=...}; the persist phase is published by ValidationWriteBehind
+     */
+    static Timer phaseTimer(MeterRegistry meterRegistry, String phase) {
+        return Timer.builder("fintoc.validation.phase")
+            .description("Time spent in one phase of a Fintoc account validation")
+            .tag("phase", phase)
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retryScheduler.shutdownNow();
     }
 
     /**
      * Validate an account - THIS IS THE MAIN METHOD WITH LOGGING
+     * Blocking variant kept for callers that need the result inline
      */
     public ResponseEntity<AccountValidationResponse> validateAccount(String accountId) {
-        long startTime = System.currentTimeMillis();
+        try {
+            return validateAccountAsync(accountId).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Validate an account without blocking the calling thread.
+     * The Fintoc call is enqueued on the shared OkHttp dispatcher; the response and log
+     * are handed to the write-behind queue and the future completes without waiting for the database.
+     * Concurrent calls for the same account share one Fintoc call, one log row and one result,
+     * and a recent cached answer for the account is returned without calling Fintoc at all.
+     */
+    public CompletableFuture<ResponseEntity<AccountValidationResponse>> validateAccountAsync(String accountId) {
+        ValidationOutcome cached = resultCache.get(accountId);
+        if (cached != null) {
+            logger.info("Account validation for {} served from cache (status {})", accountId, cached.getHttpStatus());
+            return CompletableFuture.completedFuture(cached.toResponseEntity());
+        }
+        return coalescedValidation(accountId).thenApply(ValidationOutcome::toResponseEntity);
+    }
+
+    /**
+     * Join the call already in flight for this account, or start and store a new one
+     */
+    private CompletableFuture<ValidationOutcome> coalescedValidation(String accountId) {
+        if (accountId == null) {
+            return validateAndPersist(accountId);
+        }
+
+        CompletableFuture<ValidationOutcome> leader = new CompletableFuture<>();
+        CompletableFuture<ValidationOutcome> existing = inFlightValidations.putIfAbsent(accountId, leader);
+        if (existing != null) {
+            coalescedValidations.increment();
+            logger.info("Account validation for {} joined the call already in flight", accountId);
+            return existing;
+        }
+
+        validateAndPersist(accountId).whenComplete((outcome, ex) -> {
+            // Remove before completing so callers arriving afterwards start a fresh call
+            inFlightValidations.remove(accountId, leader);
+            if (ex != null) {
+                leader.completeExceptionally(ex);
+            } else {
+                leader.complete(outcome);
+            }
+        });
+        return leader;
+    }
+
+    private CompletableFuture<ValidationOutcome> validateAndPersist(String accountId) {
+        return executeValidation(accountId).thenApply(outcome -> {
+            writeBehind.submit(outcome);
+            resultCache.put(outcome);
+            return outcome;
+        });
+    }
+
+    /**
+     * Call Fintoc for one account and prepare the rows to store, without touching the database.
+     * Network errors, 5xx and 429 answers are retried with jittered exponential backoff; every
+     * attempt is signed again and carries the same Idempotency-Key, and all attempts are listed
+     * in the validation_details of the single log row.
+     * The returned future always completes normally; failures are carried in the outcome.
+     */
+    public CompletableFuture<ValidationOutcome> executeValidation(String accountId) {
+        if (!isValidAccountNumber(accountId)) {
+            // Rejected while building the body; no need to spend a rate limit slot on it
+            return callFintoc(accountId, null, null);
+        }
+        CompletableFuture<ValidationOutcome> result = new CompletableFuture<>();
+        runAttempt(accountId, UUID.randomUUID().toString(), 1, System.nanoTime(),
+            objectMapper.createArrayNode(), null, result);
+        return result;
+    }
+
+    private void runAttempt(String accountId, String idempotencyKey, int attempt, long firstStartNanos,
+                            ArrayNode attempts, AccountValidationLog lastLog,
+                            CompletableFuture<ValidationOutcome> result) {
+        long attemptStart = System.nanoTime();
+        singleAttempt(accountId, idempotencyKey).whenComplete((outcome, ex) -> {
+            if (ex != null) {
+                result.complete(ValidationOutcome.failure(accountId, lastLog, 0,
+                    new RuntimeException("Account validation failed", ex)));
+                return;
+            }
+            recordAttempt(attempts, attempt, attemptStart, outcome);
+            AccountValidationLog latestLog = outcome.getLog() != null ? outcome.getLog() : lastLog;
+
+            if (attempt < retryConfig.getMaxAttempts() && isRetryable(outcome)) {
+                long backoffMs = backoffMs(attempt);
+                logger.warn("Account validation attempt {} for {} failed ({}), retrying in {}ms",
+                           attempt, accountId, describeAttempt(outcome), backoffMs);
+                try {
+                    retryScheduler.schedule(() -> runAttempt(accountId, idempotencyKey, attempt + 1,
+                        firstStartNanos, attempts, latestLog, result), backoffMs, TimeUnit.MILLISECONDS);
+                    return;
+                } catch (Exception e) {
+                    logger.warn("Could not schedule retry for {}: {}", accountId, e.getMessage());
+                }
+            }
+            result.complete(finishAttempts(outcome, latestLog, idempotencyKey, attempts, firstStartNanos));
+        });
+    }
+
+    /**
+     * One attempt: wait for a rate limit slot, then call inside the circuit breaker.
+     * Refused attempts never reach Fintoc and write nothing.
+     */
+    private CompletableFuture<ValidationOutcome> singleAttempt(String accountId, String idempotencyKey) {
+        try {
+            circuitBreaker.checkNotOpen();
+        } catch (FintocUnavailableException e) {
+            return CompletableFuture.completedFuture(unavailableOutcome(accountId, e));
+        }
+        return rateLimiter.acquire()
+            .handle((ignored, ex) -> ex)
+            .thenCompose(ex -> ex == null
+                ? guardedCall(accountId, idempotencyKey)
+                : CompletableFuture.completedFuture(rateLimitedOutcome(accountId, ex)));
+    }
+
+    /**
+     * Network errors, throttling and server errors may pass; client errors and local refusals will not.
+     * Only transport failures carry an IOException: answers Fintoc did send are never parsed as
+     * errors, and an unreadable 2xx body is wrapped in an IllegalStateException.
+     */
+    private static boolean isRetryable(ValidationOutcome outcome) {
+        RuntimeException failure = outcome.getFailure();
+        if (failure != null) {
+            return failure.getCause() instanceof IOException
+                && !(failure.getCause() instanceof JsonProcessingException);
+        }
+        int status = outcome.getHttpStatus();
+        return status == 429 || status >= 500;
+    }
+
+    /**
+     * Exponential backoff with full jitter, so retries from many callers do not line up
+     */
+    private long backoffMs(int attempt) {
+        double ceiling = retryConfig.getInitialBackoffMs() * Math.pow(retryConfig.getMultiplier(), attempt - 1);
+        long capped = (long) Math.min(ceiling, retryConfig.getMaxBackoffMs());
+        return capped <= 0 ? 0 : ThreadLocalRandom.current().nextLong(capped + 1);
+    }
+
+    private void recordAttempt(ArrayNode attempts, int attempt, long attemptStart, ValidationOutcome outcome) {
+        ObjectNode entry = attempts.addObject();
+        entry.put("attempt", attempt);
+        entry.put("status", outcome.getHttpStatus());
+        entry.put("time_ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - attemptStart));
+        String error = describeAttempt(outcome);
+        if (error != null) {
+            entry.put("error", error);
+        }
+        if (outcome.getHedgeWinner() != null) {
+            entry.put("hedged", true);
+            entry.put("hedge_winner", outcome.getHedgeWinner());
+        }
+    }
+
+    private static String describeAttempt(ValidationOutcome outcome) {
+        if (outcome.getFailure() != null) {
+            Throwable cause = outcome.getFailure().getCause() != null
+                ? outcome.getFailure().getCause() : outcome.getFailure();
+            return cause.getMessage();
+        }
+        return outcome.isSuccess() ? null : "HTTP " + outcome.getHttpStatus();
+    }
+
+    /**
+     * Attach the attempt history to the log row that will be stored for this validation
+     */
+    private ValidationOutcome finishAttempts(ValidationOutcome outcome, AccountValidationLog log, String idempotencyKey,
+                                             ArrayNode attempts, long firstStartNanos) {
+        if (log == null) {
+            return outcome;
+        }
+        ObjectNode details = objectMapper.createObjectNode();
+        details.put("idempotency_key", idempotencyKey);
+        details.set("attempts", attempts);
+        log.setValidationDetails(details.toString());
+        log.setExecutionTimeMs(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - firstStartNanos));
+        return outcome.getLog() == log ? outcome : outcome.withLog(log);
+    }
+
+    /**
+     * Make the call inside the circuit breaker and bulkhead, hedging it when enabled
+     */
+    private CompletableFuture<ValidationOutcome> guardedCall(String accountId, String idempotencyKey) {
+        try {
+            circuitBreaker.acquire();
+        } catch (FintocUnavailableException e) {
+            return CompletableFuture.completedFuture(unavailableOutcome(accountId, e));
+        }
+        CallHandle primaryCall = new CallHandle();
+        CompletableFuture<ValidationOutcome> primary = trackedCall(accountId, idempotencyKey, primaryCall);
+
+        long hedgeDelayMs = hedgeDelayMs();
+        if (hedgeDelayMs < 0) {
+            return primary;
+        }
+        return hedge(accountId, idempotencyKey, primary, primaryCall, hedgeDelayMs);
+    }
+
+    /**
+     * Call Fintoc with a permit already taken, then report to the circuit breaker and latency window
+     */
+    private CompletableFuture<ValidationOutcome> trackedCall(String accountId, String idempotencyKey,
+                                                             CallHandle handle) {
+        long callStart = System.nanoTime();
+        return callFintoc(accountId, idempotencyKey, handle).whenComplete((outcome, ex) -> {
+            long durationNanos = System.nanoTime() - callStart;
+            if (handle.isCancelled()) {
+                circuitBreaker.onCancelled();
+                return;
+            }
+            circuitBreaker.onComplete(durationNanos, outcome);
+            if (outcome != null && outcome.getHttpStatus() > 0) {
+                recentLatency.record(TimeUnit.NANOSECONDS.toMillis(durationNanos));
+            }
+        });
+    }
+
+    /**
+     * How long to let the primary run before hedging, or -1 when hedging is off or there is too little history
+     */
+    private long hedgeDelayMs() {
+        if (!hedgeConfig.isEnabled() || recentLatency.size() < hedgeConfig.getMinSamples()) {
+            return -1;
+        }
+        return Math.max(hedgeConfig.getMinDelayMs(), recentLatency.percentile(hedgeConfig.getPercentile()));
+    }
+
+    /**
+     * If the primary has not answered after delayMs, send the same signed-again request with the
+     * same Idempotency-Key; the first answer wins and the other call is cancelled.
+     * A failed call only wins once the other one has failed too.
+     */
+    private CompletableFuture<ValidationOutcome> hedge(String accountId, String idempotencyKey,
+                                                       CompletableFuture<ValidationOutcome> primary,
+                                                       CallHandle primaryCall, long delayMs) {
+        CompletableFuture<ValidationOutcome> result = new CompletableFuture<>();
+        CallHandle hedgeCall = new CallHandle();
+        AtomicInteger pending = new AtomicInteger(1);
+        AtomicBoolean hedgeSent = new AtomicBoolean();
+
+        primary.whenComplete((outcome, ex) ->
+            settle(result, outcome, pending, hedgeSent.get() ? "primary" : null, hedgeCall));
+
+        try {
+            retryScheduler.schedule(() -> {
+                if (primary.isDone()) {
+                    return;
+                }
+                // The hedge is optional: skip it rather than wait for a slot or exceed the bulkhead
+                if (!rateLimiter.tryAcquireNow()) {
+                    return;
+                }
+                try {
+                    circuitBreaker.acquire();
+                } catch (FintocUnavailableException e) {
+                    return;
+                }
+                pending.incrementAndGet();
+                hedgeSent.set(true);
+                hedgesFired.increment();
+                logger.info("Hedging account validation for {} after {}ms", accountId, delayMs);
+                trackedCall(accountId, idempotencyKey, hedgeCall).whenComplete((outcome, ex) -> {
+                    if (settle(result, outcome, pending, "hedge", primaryCall)) {
+                        hedgesWon.increment();
+                    }
+                });
+            }, delayMs, TimeUnit.MILLISECONDS);
+        } catch (Exception e) {
+            logger.debug("Could not schedule hedge for {}: {}", accountId, e.getMessage());
+        }
+        return result;
+    }
+
+    /**
+     * Complete the hedged result with this call's outcome if it should win; returns true if it did
+     */
+    private boolean settle(CompletableFuture<ValidationOutcome> result, ValidationOutcome outcome,
+                           AtomicInteger pending, String label, CallHandle otherCall) {
+        int stillRunning = pending.decrementAndGet();
+        if (outcome == null || (outcome.getFailure() != null && stillRunning > 0)) {
+            return false;
+        }
+        ValidationOutcome labelled = label != null ? outcome.withHedgeWinner(label) : outcome;
+        if (result.complete(labelled)) {
+            otherCall.cancel();
+            return true;
+        }
+        return false;
+    }
+
+    private CompletableFuture<ValidationOutcome> callFintoc(String accountId, String idempotencyKey,
+                                                            CallHandle handle) {
+        CallPhases phases = new CallPhases();
         String endpoint = "/account_verifications";
-        String fullUrl = FINTOC_BASE_URL + endpoint;
-        
+        String fullUrl = baseUrl + endpoint;
+        CompletableFuture<ValidationOutcome> future = new CompletableFuture<>();
+        String requestBody = null;
         String outgoingHeadersJson = null;
-        
+
         try {
+            requestBody = buildRequestBody(accountId);
+
             // Create request body exactly like the OkHttp example
             MediaType mediaType = MediaType.parse("application/json");
-            RequestBody body = RequestBody.create("{\"account_number\":\"" + accountId + "\"}", mediaType);
-            
+            RequestBody body = RequestBody.create(requestBody, mediaType);
+
             // Generate JWS signature using the same method as /api/jws/create-jws-header
-            String signature = jwsSignatureService.createJwsHeader("{\"account_number\":\"" + accountId + "\"}");
+            long signStart = System.nanoTime();
+            String signature = jwsSignatureService.createJwsHeader(requestBody);
+            phases.signNanos = System.nanoTime() - signStart;
 
-            Request request = new Request.Builder()
+            Request.Builder requestBuilder = new Request.Builder()
                 .url(fullUrl)
                 .post(body)
                 .addHeader("accept", "application/json")
                 .addHeader("Authorization", apiKey)
                 .addHeader("Fintoc-JWS-Signature", signature)
                 .addHeader("content-type", "application/json")
-                .build();
-            
-            // Serialize the headers that we're sending to Fintoc for logging
-            try {
-                outgoingHeadersJson = objectMapper.writeValueAsString(request.headers().toMultimap());
-                logger.info("Outgoing Fintoc headers: {}", outgoingHeadersJson);
-            } catch (Exception e) {
-                logger.warn("Failed to serialize outgoing headers: {}", e.getMessage());
-                outgoingHeadersJson = "Failed to serialize outgoing headers";
-            }
-            
-            // Make the API call
-            Response response = client.newCall(request).execute();
-            String responseBody = response.body().string();
-            
-            // Parse to typed response
-            AccountValidationResponse validationResponse = objectMapper.readValue(responseBody, AccountValidationResponse.class);
-
-            if (responseBody == null) {
-                throw new RuntimeException("Empty response body from Fintoc");
+                .tag(CallPhases.class, phases);
+            if (idempotencyKey != null) {
+                // Same key on every attempt so Fintoc never creates the verification twice
+                requestBuilder.addHeader("Idempotency-Key", idempotencyKey);
             }
+            Request request = requestBuilder.build();
 
-            // Save the response entity to database
-            try {
-                responseRepository.save(validationResponse);
-                logger.info("Saved AccountValidationResponse to database: {}", validationResponse.getId());
-            } catch (Exception e) {
-                logger.error("Failed to save AccountValidationResponse to database: {}", e.getMessage());
-                // Don't fail the main operation if database save fails
+            outgoingHeadersJson = serializeHeaders(request);
+            String sentHeadersJson = outgoingHeadersJson;
+            String sentBody = requestBody;
+
+            // Make the API call without holding the caller's thread
+            Call outgoingCall = client.newCall(request);
+            if (handle != null) {
+                handle.set(outgoingCall);
             }
-            
-            // Log successful validation with OUTGOING headers (headers sent to Fintoc)
-            long executionTime = System.currentTimeMillis() - startTime;
-            
-            validationLogService.createValidationLog(
-                accountId,
-                null,
-                outgoingHeadersJson, // The headers WE SENT to Fintoc
-                 "{\"account_number\":\"" + accountId + "\"}",
-                response.code(),
-                null, // response headers - we don't need them
-                responseBody,
-                executionTime,
-                maskApiKey(apiKey),
-                true,
-                null,
-                validationResponse.getId()
-            );
-            
-            logger.info("Account validation successful: {} - Type: {} - Status: {} - ValidationId: {} - Time: {}ms", 
-                       accountId, null, response.code(), validationResponse.getId(), executionTime);
-            
-            // Return typed response
-            return new ResponseEntity<>(validationResponse, HttpStatus.valueOf(response.code()));
-            
-        } catch (Exception e) {
-            // Log errors
-            long executionTime = System.currentTimeMillis() - startTime;
-            
-            int statusCode = 0;
-            String errorBody = null;
-            
-            // Try to extract status code and error body if it's an HTTP error
-            if (e.getMessage() != null && e.getMessage().contains("HTTP")) {
-                try {
-                    // Basic parsing for HTTP errors
-                    String message = e.getMessage();
-                    if (message.contains("HTTP ")) {
-                        String[] parts = message.split("HTTP ");
-                        if (parts.length > 1) {
-                            statusCode = Integer.parseInt(parts[1].split(" ")[0]);
+            outgoingCall.enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    if (handle != null && handle.isCancelled()) {
+                        // Lost a hedge race: cancelled on purpose, not an error and not a timing sample
+                        logger.debug("Cancelled account validation call for {}: {}", accountId, e.getMessage());
+                        future.complete(null);
+                        return;
+                    }
+                    future.complete(failureOutcome(accountId, sentBody, sentHeadersJson, phases, e));
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try (Response closeable = response) {
+                        if (handle != null && handle.isCancelled()) {
+                            logger.debug("Dropping answer to cancelled account validation call for {}", accountId);
+                            future.complete(null);
+                            return;
+                        }
+                        if (closeable.code() == 429) {
+                            future.complete(
+                                throttledOutcome(accountId, sentBody, sentHeadersJson, phases, closeable));
+                            return;
+                        }
+                        rateLimiter.onSuccess();
+                        if (!closeable.isSuccessful()) {
+                            // Kept as Fintoc sent it: error bodies (or a proxy's HTML page) are not parsed
+                            future.complete(
+                                errorResponseOutcome(accountId, sentBody, sentHeadersJson, phases, closeable));
+                            return;
                         }
+                        future.complete(
+                            successOutcome(accountId, sentBody, sentHeadersJson, phases, closeable));
+                    } catch (Exception e) {
+                        future.complete(failureOutcome(accountId, sentBody, sentHeadersJson, phases, e));
+                    }
+                }
+            });
+
+        } catch (Exception e) {
+            future.complete(failureOutcome(accountId, requestBody, outgoingHeadersJson, phases, e));
+        }
+
+        return future;
+    }
+
+    /**
+     * Store the response and log row of a single validation right away.
+     * Database problems are logged but never fail the caller's validation.
+     */
+    public void persistOutcome(ValidationOutcome outcome) {
+        writeBehind.writeOne(outcome);
+    }
+
+    /**
+     * Store the responses and log rows of several validations in one transaction
+     */
+    public void persistOutcomes(List<ValidationOutcome> outcomes) {
+        writeBehind.writeBatch(outcomes);
+    }
+
+    /**
+     * Check that an account number is safe to send to Fintoc: digits, letters and dashes only
+     */
+    public static boolean isValidAccountNumber(String accountId) {
+        return accountId != null && ACCOUNT_NUMBER_PATTERN.matcher(accountId).matches();
+    }
+
+    /**
+     * Build the JSON body with Jackson so the account number is always escaped.
+     * The exact same string is signed and sent.
+     */
+    private String buildRequestBody(String accountId) throws JsonProcessingException {
+        if (!isValidAccountNumber(accountId)) {
+            throw new IllegalArgumentException("Invalid account number: " + accountId);
+        }
+        ObjectNode body = objectMapper.createObjectNode();
+        body.put("account_number", accountId);
+        return objectMapper.writeValueAsString(body);
+    }
+
+    /**
+     * Serialize the headers that we're sending to Fintoc for logging
+     */
+    private String serializeHeaders(Request request) {
+        try {
+            String outgoingHeadersJson = objectMapper.writeValueAsString(request.headers().toMultimap());
+            logger.info("Outgoing Fintoc headers: {}", outgoingHeadersJson);
+            return outgoingHeadersJson;
+        } catch (Exception e) {
+            logger.warn("Failed to serialize outgoing headers: {}", e.getMessage());
+            return "Failed to serialize outgoing headers";
+        }
+    }
+
+    /**
+     * Parse a Fintoc response and prepare its log row
+     */
+    private ValidationOutcome successOutcome(String accountId, String requestBody, String outgoingHeadersJson,
+                                             CallPhases phases, Response response) throws IOException {
+        long readStart = System.nanoTime();
+        String responseBody = response.body().string();
+        phases.bodyReadNanos = System.nanoTime() - readStart;
+
+        // Parse to typed response
+        long parseStart = System.nanoTime();
+        AccountValidationResponse validationResponse;
+        try {
+            validationResponse = objectMapper.readValue(responseBody, AccountValidationResponse.class);
+        } catch (JsonProcessingException e) {
+            // Fintoc did answer; sending the same request again would not make the body readable
+            return failureOutcome(accountId, requestBody, outgoingHeadersJson, phases, response.code(), responseBody,
+                new IllegalStateException("Unreadable Fintoc response: " + e.getOriginalMessage(), e));
+        }
+        phases.parseNanos = System.nanoTime() - parseStart;
+
+        // Log successful validation with OUTGOING headers (headers sent to Fintoc)
+        long executionTime = phases.elapsedMillis();
+
+        AccountValidationLog log = AccountValidationLogService.buildValidationLog(
+            accountId,
+            null,
+            outgoingHeadersJson, // The headers WE SENT to Fintoc
+            requestBody,
+            response.code(),
+            null, // response headers - we don't need them
+            responseBody,
+            executionTime,
+            maskApiKey(apiKey),
+            response.isSuccessful(),
+            null,
+            validationResponse.getId()
+        );
+        recordPhases(phases, log);
+
+        logger.info("Account validation successful: {} - Type: {} - Status: {} - ValidationId: {} - Time: {}ms",
+                   accountId, null, response.code(), validationResponse.getId(), executionTime);
+
+        return ValidationOutcome.success(accountId, validationResponse, log, response.code());
+    }
+
+    /**
+     * Fintoc answered with a non-2xx status other than 429: log it with its real status and raw body
+     */
+    private ValidationOutcome errorResponseOutcome(String accountId, String requestBody, String outgoingHeadersJson,
+                                                   CallPhases phases, Response response) throws IOException {
+        long readStart = System.nanoTime();
+        String responseBody = response.body() != null ? response.body().string() : null;
+        phases.bodyReadNanos = System.nanoTime() - readStart;
+
+        long executionTime = phases.elapsedMillis();
+        String errorMessage = "Fintoc answered HTTP " + response.code();
+
+        AccountValidationLog log = AccountValidationLogService.buildValidationLog(
+            accountId,
+            null,
+            outgoingHeadersJson,
+            requestBody,
+            response.code(),
+            null,
+            responseBody,
+            executionTime,
+            maskApiKey(apiKey),
+            false,
+            errorMessage,
+            null
+        );
+        recordPhases(phases, log);
+
+        logger.warn("Account validation rejected: {} - {} - Time: {}ms", accountId, errorMessage, executionTime);
+        return ValidationOutcome.success(accountId, null, log, response.code());
+    }
+
+    /**
+     * Fintoc answered 429: slow the limiter down and log the throttle with its real status
+     */
+    private ValidationOutcome throttledOutcome(String accountId, String requestBody, String outgoingHeadersJson,
+                                               CallPhases phases, Response response) throws IOException {
+        long readStart = System.nanoTime();
+        String responseBody = response.body() != null ? response.body().string() : null;
+        phases.bodyReadNanos = System.nanoTime() - readStart;
+        String retryAfterHeader = response.header("Retry-After");
+        rateLimiter.onThrottled(FintocRateLimiter.parseRetryAfter(retryAfterHeader));
+
+        long executionTime = phases.elapsedMillis();
+        String errorMessage = "Throttled by Fintoc (HTTP 429)"
+            + (retryAfterHeader != null ? ", retry after " + retryAfterHeader : "");
+
+        AccountValidationLog log = AccountValidationLogService.buildValidationLog(
+            accountId,
+            null,
+            outgoingHeadersJson,
+            requestBody,
+            429,
+            null,
+            responseBody,
+            executionTime,
+            maskApiKey(apiKey),
+            false,
+            errorMessage,
+            null
+        );
+        recordPhases(phases, log);
+
+        logger.warn("Account validation throttled: {} - {} - Time: {}ms", accountId, errorMessage, executionTime);
+        return ValidationOutcome.success(accountId, null, log, 429);
+    }
+
+    /**
+     * The call was never made because no rate limit slot came up in time; nothing is logged to the database
+     */
+    private ValidationOutcome rateLimitedOutcome(String accountId, Throwable ex) {
+        logger.warn("Account validation for {} not sent: {}", accountId, ex.getMessage());
+        return ValidationOutcome.failure(accountId, null, 429,
+            new RuntimeException("Account validation failed", ex));
+    }
+
+    /**
+     * The circuit breaker refused the call; it is counted in the breaker's periodic summary row
+     */
+    private ValidationOutcome unavailableOutcome(String accountId, FintocUnavailableException e) {
+        logger.debug("Account validation for {} not sent: {}", accountId, e.getMessage());
+        return ValidationOutcome.failure(accountId, null, 503,
+            new RuntimeException("Account validation failed", e));
+    }
+
+    /**
+     * Copy the phase timings onto the log row and publish them as timers
+     */
+    private void recordPhases(CallPhases phases, AccountValidationLog log) {
+        phases.applyTo(log);
+        recordPhase(signTimer, phases.signNanos);
+        recordPhase(connectTimer, phases.connectNanos());
+        recordPhase(ttfbTimer, phases.ttfbNanos());
+        recordPhase(bodyReadTimer, phases.bodyReadNanos);
+        recordPhase(parseTimer, phases.parseNanos);
+    }
+
+    private static void recordPhase(Timer timer, long nanos) {
+        if (nanos >= 0) {
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Prepare the log row of a failed validation and the exception handed back to the caller
+     */
+    private ValidationOutcome failureOutcome(String accountId, String requestBody, String outgoingHeadersJson,
+                                             CallPhases phases, Exception e) {
+        int statusCode = 0;
+
+        // Try to extract status code and error body if it's an HTTP error
+        if (e.getMessage() != null && e.getMessage().contains("HTTP")) {
+            try {
+                // Basic parsing for HTTP errors
+                String message = e.getMessage();
+                if (message.contains("HTTP ")) {
+                    String[] parts = message.split("HTTP ");
+                    if (parts.length > 1) {
+                        statusCode = Integer.parseInt(parts[1].split(" ")[0]);
                     }
-                } catch (Exception parseEx) {
-                    logger.debug("Failed to parse HTTP status from error: {}", parseEx.getMessage());
                 }
+            } catch (Exception parseEx) {
+                logger.debug("Failed to parse HTTP status from error: {}", parseEx.getMessage());
             }
-            
-            validationLogService.createValidationLog(
-                accountId,
-                null,
-                outgoingHeadersJson, // The headers WE SENT to Fintoc
-                "{\"account_number\":\"" + accountId + "\"}",
-                statusCode > 0 ? statusCode : null,
-                null,
-                errorBody,
-                executionTime,
-                maskApiKey(apiKey),
-                false,
-                e.getMessage(),
-                null
-            );
-            
-            logger.error("Account validation error: {} - Error: {} - Outgoing headers: {}", 
-                        accountId, e.getMessage(),
-                        outgoingHeadersJson != null ? outgoingHeadersJson.substring(0, Math.min(100, outgoingHeadersJson.length())) : "null");
-            
-            throw new RuntimeException("Account validation failed", e);
         }
+        return failureOutcome(accountId, requestBody, outgoingHeadersJson, phases, statusCode, null, e);
+    }
+
+    private ValidationOutcome failureOutcome(String accountId, String requestBody, String outgoingHeadersJson,
+                                             CallPhases phases, int statusCode, String errorBody, Exception e) {
+        long executionTime = phases.elapsedMillis();
+
+        AccountValidationLog log = AccountValidationLogService.buildValidationLog(
+            accountId,
+            null,
+            outgoingHeadersJson, // The headers WE SENT to Fintoc
+            requestBody,
+            statusCode,
+            null,
+            errorBody,
+            executionTime,
+            maskApiKey(apiKey),
+            false,
+            e.getMessage(),
+            null
+        );
+        recordPhases(phases, log);
+
+        logger.error("Account validation error: {} - Error: {} - Outgoing headers: {}",
+                    accountId, e.getMessage(),
+                    outgoingHeadersJson != null ? outgoingHeadersJson.substring(0, Math.min(100, outgoingHeadersJson.length())) : "null");
+
+        return ValidationOutcome.failure(accountId, log, statusCode,
+            new RuntimeException("Account validation failed", e));
     }
 
     private String maskApiKey(String apiKey) {
@@ -174,4 +795,31 @@ public class FintocApiService {
         }
         return apiKey.substring(0, 4) + "****" + apiKey.substring(apiKey.length() - 4);
     }
-}
\ No newline at end of file
+
+    /**
+     * Lets a hedge race cancel a call even if it is cancelled before OkHttp has created it
+     */
+    private static class CallHandle {
+
+        private Call call;
+        private boolean cancelled;
+
+        synchronized void set(Call call) {
+            this.call = call;
+            if (cancelled) {
+                call.cancel();
+            }
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (call != null) {
+                call.cancel();
+            }
+        }
+
+        synchronized boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
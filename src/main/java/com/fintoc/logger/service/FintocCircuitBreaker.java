@@ -0,0 +1,209 @@
+package com.fintoc.logger.service;
+
+import com.fintoc.logger.config.ResilienceConfig;
+import com.fintoc.logger.entity.AccountValidationLog;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Circuit breaker and bulkhead around outbound Fintoc calls.
+ * Calls that fail at the network level, answer 5xx or run longer than slow-call-duration-ms
+ * count against the circuit; when it opens, callers are refused right away instead of
+ * waiting out the HTTP timeouts. Refused calls are not logged one by one: they are counted
+ * and written as a single logsbook row every aggregate-log-interval-ms.
+ */
+@Component
+public class FintocCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(FintocCircuitBreaker.class);
+    private static final String NAME = "fintoc";
+
+    private final boolean enabled;
+    private final CircuitBreaker circuitBreaker;
+    private final Bulkhead bulkhead;
+    private final AccountValidationLogService validationLogService;
+
+    // Guarded by this
+    private long rejectedWhileOpen;
+    private long rejectedBulkheadFull;
+    private LocalDateTime firstRejectedAt;
+    private LocalDateTime lastRejectedAt;
+
+    @Autowired
+    public FintocCircuitBreaker(ResilienceConfig config,
+                                AccountValidationLogService validationLogService,
+                                MeterRegistry meterRegistry) {
+        this.enabled = config.isEnabled();
+        this.validationLogService = validationLogService;
+
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+            .failureRateThreshold(config.getFailureRateThreshold())
+            .slowCallRateThreshold(config.getSlowCallRateThreshold())
+            .slowCallDurationThreshold(Duration.ofMillis(config.getSlowCallDurationMs()))
+            .slidingWindowSize(config.getSlidingWindowSize())
+            .minimumNumberOfCalls(config.getMinimumNumberOfCalls())
+            .waitDurationInOpenState(Duration.ofMillis(config.getWaitDurationInOpenStateMs()))
+            .permittedNumberOfCallsInHalfOpenState(config.getPermittedCallsInHalfOpenState())
+            .build());
+        // Never block a thread waiting for a bulkhead slot: a full bulkhead refuses at once
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+            .maxConcurrentCalls(config.getMaxConcurrentCalls())
+            .maxWaitDuration(Duration.ZERO)
+            .build());
+
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(NAME);
+        this.bulkhead = bulkheadRegistry.bulkhead(NAME);
+        this.circuitBreaker.getEventPublisher().onStateTransition(event ->
+            logger.warn("Fintoc circuit breaker: {}", event.getStateTransition()));
+
+        // resilience4j.circuitbreaker.* and resilience4j.bulkhead.* meters tagged name=fintoc
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+    }
+
+    /**
+     * Refuse right away while the circuit is open, without taking a permit.
+     * Used before waiting for a rate limit slot, so refused calls do not spend one.
+     */
+    public void checkNotOpen() {
+        if (!enabled) {
+            return;
+        }
+        CircuitBreaker.State state = circuitBreaker.getState();
+        if (state == CircuitBreaker.State.OPEN || state == CircuitBreaker.State.FORCED_OPEN) {
+            recordRejection(true);
+            throw new FintocUnavailableException("Fintoc circuit breaker is open");
+        }
+    }
+
+    /**
+     * Take a circuit permit and a bulkhead slot for one call; every successful acquire
+     * must be followed by exactly one onComplete
+     */
+    public void acquire() {
+        if (!enabled) {
+            return;
+        }
+        if (!circuitBreaker.tryAcquirePermission()) {
+            recordRejection(true);
+            throw new FintocUnavailableException("Fintoc circuit breaker is open");
+        }
+        if (!bulkhead.tryAcquirePermission()) {
+            circuitBreaker.releasePermission();
+            recordRejection(false);
+            throw new FintocUnavailableException("Too many concurrent Fintoc calls");
+        }
+    }
+
+    /**
+     * Record how the call went and give the permit and bulkhead slot back
+     */
+    public void onComplete(long durationNanos, ValidationOutcome outcome) {
+        if (!enabled) {
+            return;
+        }
+        bulkhead.onComplete();
+
+        RuntimeException failure = outcome.getFailure();
+        int status = outcome.getHttpStatus();
+        if (failure != null) {
+            if (failure.getCause() instanceof IOException) {
+                circuitBreaker.onError(durationNanos, TimeUnit.NANOSECONDS, failure.getCause());
+            } else {
+                // Failed before reaching Fintoc (e.g. signing); says nothing about Fintoc's health
+                circuitBreaker.releasePermission();
+            }
+        } else if (status >= 500) {
+            circuitBreaker.onError(durationNanos, TimeUnit.NANOSECONDS,
+                new IOException("Fintoc answered HTTP " + status));
+        } else if (status == 429) {
+            // Throttling is handled by the rate limiter, not by the circuit
+            circuitBreaker.releasePermission();
+        } else {
+            circuitBreaker.onSuccess(durationNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * The call was cancelled by us (e.g. it lost a hedge race): free its slots without judging Fintoc
+     */
+    public void onCancelled() {
+        if (!enabled) {
+            return;
+        }
+        bulkhead.onComplete();
+        circuitBreaker.releasePermission();
+    }
+
+    public CircuitBreaker.State getState() {
+        return circuitBreaker.getState();
+    }
+
+    CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    private synchronized void recordRejection(boolean circuitOpen) {
+        if (circuitOpen) {
+            rejectedWhileOpen++;
+        } else {
+            rejectedBulkheadFull++;
+        }
+        lastRejectedAt = LocalDateTime.now();
+        if (firstRejectedAt == null) {
+            firstRejectedAt = lastRejectedAt;
+        }
+    }
+
+    /**
+     * Write one logsbook row summarising the calls refused since the last flush
+     */
+    @Scheduled(fixedDelayString = "${fintoc.resilience.aggregate-log-interval-ms:60000}")
+    public void flushRejections() {
+        long whileOpen;
+        long bulkheadFull;
+        LocalDateTime from;
+        LocalDateTime to;
+        synchronized (this) {
+            whileOpen = rejectedWhileOpen;
+            bulkheadFull = rejectedBulkheadFull;
+            from = firstRejectedAt;
+            to = lastRejectedAt;
+            rejectedWhileOpen = 0;
+            rejectedBulkheadFull = 0;
+            firstRejectedAt = null;
+            lastRejectedAt = null;
+        }
+        if (whileOpen + bulkheadFull == 0) {
+            return;
+        }
+
+        String message = String.format("%d Fintoc calls refused between %s and %s (circuit open: %d, bulkhead full: %d)",
+            whileOpen + bulkheadFull, from, to, whileOpen, bulkheadFull);
+        AccountValidationLog log = AccountValidationLogService.buildValidationLog(
+            "*", "circuit_breaker", null, null, 503, null, null, 0L, null, false, message, null);
+        try {
+            validationLogService.saveValidationLog(log);
+        } catch (Exception e) {
+            logger.error("Failed to save circuit breaker summary: {}", e.getMessage());
+        }
+        logger.warn(message);
+    }
+}
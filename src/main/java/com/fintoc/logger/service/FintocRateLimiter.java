@@ -0,0 +1,226 @@
+package com.fintoc.logger.service;
+
+import com.fintoc.logger.config.RateLimitConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket in front of outbound Fintoc calls.
+ * Callers reserve a slot and wait (without holding a thread) until it comes up; if the wait
+ * would exceed max-wait-ms the call is rejected before any signing or DB work is done.
+ * The rate grows slowly while calls succeed and is cut on every 429, which also pauses
+ * all calls until the Retry-After time Fintoc asked for.
+ */
+@Component
+public class FintocRateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(FintocRateLimiter.class);
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final boolean enabled;
+    private final double minRate;
+    private final double maxRate;
+    private final int burst;
+    private final long maxWaitNanos;
+    private final double increasePerSecond;
+    private final double decreaseFactor;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final Counter rejectedCalls;
+    private final Counter throttledResponses;
+
+    // Guarded by this
+    private double rate;
+    private long theoreticalArrivalNanos;
+    private long pausedUntilNanos;
+    private long lastDecreaseNanos;
+
+    @Autowired
+    public FintocRateLimiter(RateLimitConfig config, MeterRegistry meterRegistry) {
+        this(config, meterRegistry, System::nanoTime);
+    }
+
+    FintocRateLimiter(RateLimitConfig config, MeterRegistry meterRegistry, LongSupplier clock) {
+        this.enabled = config.isEnabled();
+        this.minRate = config.getMinRate();
+        this.maxRate = config.getMaxRate();
+        this.burst = Math.max(1, config.getBurst());
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(config.getMaxWaitMs());
+        this.increasePerSecond = config.getIncreasePerSecond();
+        this.decreaseFactor = config.getDecreaseFactor();
+        this.clock = clock;
+        this.rate = Math.min(maxRate, Math.max(minRate, config.getInitialRate()));
+        long now = clock.getAsLong();
+        this.theoreticalArrivalNanos = now;
+        this.pausedUntilNanos = now;
+        this.lastDecreaseNanos = now - NANOS_PER_SECOND;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "fintoc-rate-limiter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("fintoc.ratelimit.rate", this, FintocRateLimiter::getCurrentRate)
+            .description("Current allowed Fintoc calls per second")
+            .register(meterRegistry);
+        Gauge.builder("fintoc.ratelimit.queued", waiting, AtomicInteger::get)
+            .description("Fintoc calls waiting for a rate limit slot")
+            .register(meterRegistry);
+        this.rejectedCalls = Counter.builder("fintoc.ratelimit.rejected")
+            .description("Fintoc calls rejected because the rate limit wait was too long")
+            .register(meterRegistry);
+        this.throttledResponses = Counter.builder("fintoc.ratelimit.throttled")
+            .description("429 responses received from Fintoc")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Wait for a slot. The future completes on the caller's thread when a slot is free right away,
+     * otherwise on the limiter thread once it comes up; it fails with RateLimitExceededException
+     * when the wait would be longer than max-wait-ms.
+     */
+    public CompletableFuture<Void> acquire() {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long waitNanos = reserve();
+        if (waitNanos < 0) {
+            rejectedCalls.increment();
+            CompletableFuture<Void> rejected = new CompletableFuture<>();
+            rejected.completeExceptionally(new RateLimitExceededException(
+                "Fintoc rate limit wait exceeds " + TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + "ms"));
+            return rejected;
+        }
+        if (waitNanos == 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        CompletableFuture<Void> slot = new CompletableFuture<>();
+        waiting.incrementAndGet();
+        scheduler.schedule(() -> {
+            waiting.decrementAndGet();
+            slot.complete(null);
+        }, waitNanos, TimeUnit.NANOSECONDS);
+        return slot;
+    }
+
+    /**
+     * Take a slot only if one is free right now; used for optional extra calls such as hedges
+     */
+    public boolean tryAcquireNow() {
+        if (!enabled) {
+            return true;
+        }
+        return reserve(0) == 0;
+    }
+
+    /**
+     * Reserve the next slot; returns how long to wait for it, or -1 if that is longer than allowed
+     */
+    synchronized long reserve() {
+        return reserve(maxWaitNanos);
+    }
+
+    private synchronized long reserve(long allowedWaitNanos) {
+        long now = clock.getAsLong();
+        long interval = intervalNanos();
+        long tolerance = (burst - 1) * interval;
+
+        long arrival = Math.max(theoreticalArrivalNanos, now);
+        long allowedAt = Math.max(arrival - tolerance, pausedUntilNanos);
+        long waitNanos = Math.max(0, allowedAt - now);
+        if (waitNanos > allowedWaitNanos) {
+            return -1;
+        }
+        theoreticalArrivalNanos = Math.max(arrival, allowedAt) + interval;
+        return waitNanos;
+    }
+
+    /**
+     * A call got a non-429 answer: raise the rate a little
+     */
+    public synchronized void onSuccess() {
+        if (rate < maxRate) {
+            // Spread increase-per-second over the calls made in one second at the current rate
+            rate = Math.min(maxRate, rate + increasePerSecond / rate);
+        }
+    }
+
+    /**
+     * Fintoc answered 429: cut the rate and hold every call until Retry-After has passed
+     */
+    public synchronized void onThrottled(Duration retryAfter) {
+        throttledResponses.increment();
+        long now = clock.getAsLong();
+
+        // One burst of 429s is one signal; do not cut the rate again within a second
+        if (now - lastDecreaseNanos >= NANOS_PER_SECOND) {
+            rate = Math.max(minRate, rate * decreaseFactor);
+            lastDecreaseNanos = now;
+        }
+        if (retryAfter != null && !retryAfter.isNegative()) {
+            pausedUntilNanos = Math.max(pausedUntilNanos, now + retryAfter.toNanos());
+        }
+        logger.warn("Fintoc throttled us: rate now {} calls/s, retry after {}",
+                   String.format("%.2f", rate), retryAfter);
+    }
+
+    public synchronized double getCurrentRate() {
+        return rate;
+    }
+
+    public int getQueuedCalls() {
+        return waiting.get();
+    }
+
+    private long intervalNanos() {
+        return (long) (NANOS_PER_SECOND / rate);
+    }
+
+    /**
+     * Parse a Retry-After header: either delay seconds or an HTTP date. Null if absent or unreadable.
+     */
+    public static Duration parseRetryAfter(String header) {
+        if (header == null || header.trim().isEmpty()) {
+            return null;
+        }
+        String value = header.trim();
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException e) {
+            // Not seconds, try the HTTP date form
+        }
+        try {
+            ZonedDateTime retryAt = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            Duration delay = Duration.between(ZonedDateTime.now(retryAt.getZone()), retryAt);
+            return delay.isNegative() ? Duration.ZERO : delay;
+        } catch (Exception e) {
+            logger.debug("Unreadable Retry-After header: {}", value);
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+}
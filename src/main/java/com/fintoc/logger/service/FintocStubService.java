@@ -0,0 +1,244 @@
+package com.fintoc.logger.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fintoc.logger.config.FintocStubConfig;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local stand-in for Fintoc's /account_verifications, for load and latency tests on one machine.
+ * Answers after a sampled delay without holding a servlet thread, fails or throttles a configured
+ * share of calls, and later posts a signed account_verification webhook to /webhooks/fintoc.
+ * Only active with the "stub" profile.
+ */
+@Service
+@Profile("stub")
+public class FintocStubService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FintocStubService.class);
+    // z-score of the 99th percentile of a standard normal distribution
+    private static final double Z_99 = 2.326;
+    private static final okhttp3.MediaType JSON = okhttp3.MediaType.parse("application/json");
+
+    private final FintocStubConfig config;
+    private final OkHttpClient client;
+    private final ObjectMapper objectMapper;
+    private final WebhookService webhookService;
+    private final ScheduledExecutorService scheduler;
+    // Retries and hedges reuse the Idempotency-Key; answer them with the same verification
+    private final Cache<String, String> verificationsByKey = Caffeine.newBuilder()
+        .maximumSize(100_000)
+        .expireAfterWrite(10, TimeUnit.MINUTES)
+        .build();
+
+    @Autowired
+    public FintocStubService(FintocStubConfig config, OkHttpClient client, ObjectMapper objectMapper,
+                             WebhookService webhookService) {
+        this.config = config;
+        this.client = client;
+        this.objectMapper = objectMapper;
+        this.webhookService = webhookService;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.scheduler = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "fintoc-stub-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.warn("Fintoc stub is active: account verifications are answered locally");
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Answer a POST /account_verifications after the sampled latency
+     */
+    public CompletableFuture<ResponseEntity<String>> createAccountVerification(String requestBody,
+                                                                               String idempotencyKey) {
+        CompletableFuture<ResponseEntity<String>> response = new CompletableFuture<>();
+        long latencyMs = sampleLatencyMs(ThreadLocalRandom.current());
+        scheduler.schedule(() -> {
+            try {
+                response.complete(answer(requestBody, idempotencyKey));
+            } catch (Exception e) {
+                response.completeExceptionally(e);
+            }
+        }, latencyMs, TimeUnit.MILLISECONDS);
+        return response;
+    }
+
+    ResponseEntity<String> answer(String requestBody, String idempotencyKey) throws IOException {
+        double roll = ThreadLocalRandom.current().nextDouble();
+        if (roll < config.getThrottleRate()) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header("Retry-After", String.valueOf(config.getRetryAfterSeconds()))
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorBody("rate_limit_error", "Too many requests"));
+        }
+        if (roll < config.getThrottleRate() + config.getErrorRate()) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(errorBody("api_error", "Stubbed Fintoc failure"));
+        }
+
+        String accountNumber = objectMapper.readTree(requestBody).path("account_number").asText();
+        boolean firstRequest = true;
+        String verificationId;
+        if (idempotencyKey != null) {
+            String newId = newVerificationId();
+            verificationId = verificationsByKey.get(idempotencyKey, key -> newId);
+            firstRequest = verificationId.equals(newId);
+        } else {
+            verificationId = newVerificationId();
+        }
+
+        ObjectNode verification = objectMapper.createObjectNode();
+        verification.put("id", verificationId);
+        verification.put("object", "account_verification");
+        verification.put("status", "pending");
+        verification.putNull("reason");
+        verification.put("mode", "test");
+        verification.set("counterparty", counterparty(accountNumber));
+        if (config.getPayloadPaddingBytes() > 0) {
+            StringBuilder padding = new StringBuilder(config.getPayloadPaddingBytes());
+            for (int i = 0; i < config.getPayloadPaddingBytes(); i++) {
+                padding.append('x');
+            }
+            verification.putObject("metadata").put("padding", padding.toString());
+        }
+
+        if (firstRequest && config.isWebhooksEnabled()) {
+            scheduler.schedule(() -> postWebhook(verificationId, accountNumber),
+                config.getWebhookDelayMs(), TimeUnit.MILLISECONDS);
+        }
+        return ResponseEntity.status(HttpStatus.CREATED)
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(objectMapper.writeValueAsString(verification));
+    }
+
+    /**
+     * Draw one response delay from the configured distribution
+     */
+    long sampleLatencyMs(Random random) {
+        long min = config.getLatencyMinMs();
+        long max = Math.max(min, config.getLatencyMaxMs());
+        long latency;
+        switch (config.getLatencyDistribution()) {
+            case "fixed":
+                latency = config.getLatencyMedianMs();
+                break;
+            case "uniform":
+                latency = min + (long) (random.nextDouble() * (max - min));
+                break;
+            case "log-normal":
+                double median = Math.max(1, config.getLatencyMedianMs());
+                double p99 = Math.max(median, config.getLatencyP99Ms());
+                double sigma = Math.log(p99 / median) / Z_99;
+                latency = Math.round(median * Math.exp(sigma * random.nextGaussian()));
+                break;
+            default:
+                throw new IllegalStateException("Unknown stub latency distribution: " + config.getLatencyDistribution());
+        }
+        return Math.min(max, Math.max(min, latency));
+    }
+
+    /**
+     * Post the signed account_verification.succeeded / .failed event for a verification
+     */
+    void postWebhook(String verificationId, String accountNumber) {
+        try {
+            boolean failed = ThreadLocalRandom.current().nextDouble() < config.getWebhookFailureRate();
+            ObjectNode data = objectMapper.createObjectNode();
+            data.put("id", verificationId);
+            data.put("object", "account_verification");
+            data.put("status", failed ? "failed" : "succeeded");
+            data.put("reason", failed ? "account_not_found" : null);
+            data.put("transaction_date", Instant.now().toString());
+            data.set("counterparty", counterparty(accountNumber));
+
+            ObjectNode event = objectMapper.createObjectNode();
+            event.put("id", "evt_" + UUID.randomUUID().toString().replace("-", ""));
+            event.put("type", failed ? "account_verification.failed" : "account_verification.succeeded");
+            event.put("mode", "test");
+            event.put("created_at", Instant.now().toString());
+            event.set("data", data);
+
+            String body = objectMapper.writeValueAsString(event);
+            Request request = new Request.Builder()
+                .url(config.getWebhookUrl())
+                .post(RequestBody.create(body, JSON))
+                .header("fintoc-signature", webhookService.signWebhookPayload(body, Instant.now().getEpochSecond()))
+                .build();
+            client.newCall(request).enqueue(new Callback() {
+                @Override
+                public void onFailure(Call call, IOException e) {
+                    logger.warn("Stub webhook for {} failed: {}", verificationId, e.getMessage());
+                }
+
+                @Override
+                public void onResponse(Call call, Response response) {
+                    try (Response closeable = response) {
+                        if (!closeable.isSuccessful()) {
+                            logger.warn("Stub webhook for {} answered HTTP {}", verificationId, closeable.code());
+                        }
+                    }
+                }
+            });
+        } catch (Exception e) {
+            logger.error("Failed to send stub webhook for {}: {}", verificationId, e.getMessage());
+        }
+    }
+
+    private ObjectNode counterparty(String accountNumber) {
+        ObjectNode counterparty = objectMapper.createObjectNode();
+        counterparty.put("account_number", accountNumber);
+        counterparty.put("holder_id", "111111111");
+        counterparty.put("holder_name", "Stub Holder");
+        counterparty.put("account_type", "checking_account");
+        ObjectNode institution = counterparty.putObject("institution");
+        institution.put("id", "cl_banco_de_chile");
+        institution.put("name", "Banco de Chile");
+        institution.put("country", "cl");
+        return counterparty;
+    }
+
+    private String errorBody(String type, String message) throws IOException {
+        ObjectNode error = objectMapper.createObjectNode();
+        error.putObject("error").put("type", type).put("message", message);
+        return objectMapper.writeValueAsString(error);
+    }
+
+    private static String newVerificationId() {
+        return "av_stub_" + UUID.randomUUID().toString().replace("-", "");
+    }
+}
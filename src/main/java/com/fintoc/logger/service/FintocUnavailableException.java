@@ -0,0 +1,15 @@
+package com.fintoc.logger.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+/**
+ * Thrown when a Fintoc call is refused locally because the circuit is open or the bulkhead is full
+ */
+@ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+public class FintocUnavailableException extends RuntimeException {
+
+    public FintocUnavailableException(String message) {
+        super(message);
+    }
+}
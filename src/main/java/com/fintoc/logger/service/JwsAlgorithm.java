@@ -0,0 +1,73 @@
+package com.fintoc.logger.service;
+
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.security.Signature;
+import java.security.spec.MGF1ParameterSpec;
+import java.security.spec.PSSParameterSpec;
+
+/**
+ * JWS "alg" values we can sign and verify with, and the JCA algorithms behind them.
+ * ES256 uses the P1363 (raw r||s) signature format JWS requires; EdDSA (Ed25519) and PS256
+ * need a runtime that provides them (Java 15 and 11 or later).
+ */
+enum JwsAlgorithm {
+
+    RS256("SHA256withRSA", "RSA"),
+    PS256("RSASSA-PSS", "RSA"),
+    ES256("SHA256withECDSAinP1363Format", "EC"),
+    EdDSA("Ed25519", "EdDSA");
+
+    private final String signatureAlgorithm;
+    private final String keyAlgorithm;
+
+    JwsAlgorithm(String signatureAlgorithm, String keyAlgorithm) {
+        this.signatureAlgorithm = signatureAlgorithm;
+        this.keyAlgorithm = keyAlgorithm;
+    }
+
+    /**
+     * The algorithm for a configured or header "alg" name; fails for unknown names and for
+     * algorithms this runtime cannot do
+     */
+    static JwsAlgorithm fromName(String name) {
+        if (name == null || name.isEmpty()) {
+            return RS256;
+        }
+        JwsAlgorithm algorithm;
+        try {
+            algorithm = valueOf(name);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unsupported JWS algorithm: " + name);
+        }
+        if (!algorithm.isAvailable()) {
+            throw new IllegalArgumentException("JWS algorithm " + name + " is not available in this Java runtime");
+        }
+        return algorithm;
+    }
+
+    String keyAlgorithm() {
+        return keyAlgorithm;
+    }
+
+    /**
+     * A new, uninitialized Signature for this algorithm
+     */
+    Signature newSignature() throws GeneralSecurityException {
+        Signature signature = Signature.getInstance(signatureAlgorithm);
+        if (this == PS256) {
+            // RFC 7518: SHA-256, MGF1 with SHA-256, salt as long as the hash
+            signature.setParameter(new PSSParameterSpec("SHA-256", "MGF1", MGF1ParameterSpec.SHA256, 32, 1));
+        }
+        return signature;
+    }
+
+    boolean isAvailable() {
+        try {
+            Signature.getInstance(signatureAlgorithm);
+            return true;
+        } catch (NoSuchAlgorithmException e) {
+            return false;
+        }
+    }
+}
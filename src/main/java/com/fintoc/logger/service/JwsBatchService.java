@@ -0,0 +1,238 @@
+package com.fintoc.logger.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fintoc.logger.dto.JwsBatchResultDto;
+import com.fintoc.logger.dto.JwsTokenDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+
+/**
+ * Batch forms of the JwsSignatureService operations, for tools that sign or check thousands of
+ * payloads at once. Items are signed or verified in parallel on a fixed pool of CPU threads
+ * shared by all batches, in chunks of chunk-size: results are reported in request order one
+ * chunk at a time, and a chunk's nonces are checked against the store in one round trip.
+ */
+@Service
+public class JwsBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwsBatchService.class);
+
+    private final JwsSignatureService jwsSignatureService;
+    private final NonceTrackingService nonceTrackingService;
+    private final int chunkSize;
+    private final int maxItems;
+    private final ExecutorService cpuPool;
+    private final ExecutorService coordinatorPool;
+
+    @Autowired
+    public JwsBatchService(JwsSignatureService jwsSignatureService,
+                           NonceTrackingService nonceTrackingService,
+                           @Value("${jws.batch.parallelism:0}") int parallelism,
+                           @Value("${jws.batch.chunk-size:500}") int chunkSize,
+                           @Value("${jws.batch.max-items:50000}") int maxItems,
+                           @Value("${jws.batch.max-parallel-batches:2}") int maxParallelBatches) {
+        this.jwsSignatureService = jwsSignatureService;
+        this.nonceTrackingService = nonceTrackingService;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxItems = maxItems;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.cpuPool = Executors.newFixedThreadPool(threads, daemonThreads("jws-batch-"));
+        this.coordinatorPool = Executors.newFixedThreadPool(Math.max(1, maxParallelBatches),
+            daemonThreads("jws-batch-coordinator-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinatorPool.shutdownNow();
+        cpuPool.shutdownNow();
+    }
+
+    public int getMaxItems() {
+        return maxItems;
+    }
+
+    /**
+     * createJwsHeader for every body. onResult is called from one thread, in request order.
+     */
+    public CompletableFuture<Void> createJwsHeaders(List<String> bodies, Consumer<JwsBatchResultDto> onResult) {
+        return CompletableFuture.runAsync(() -> runBatch(bodies.size(), index -> {
+            String body = bodies.get(index);
+            if (body == null || body.isEmpty()) {
+                return failed(index, "Body is required");
+            }
+            JwsBatchResultDto result = new JwsBatchResultDto();
+            result.setIndex(index);
+            result.setStatus("success");
+            result.setJwsHeader(jwsSignatureService.createJwsHeader(body));
+            return result;
+        }, null, onResult), coordinatorPool);
+    }
+
+    /**
+     * verifyJwsSignature (signature and timestamp) for every token, in request order
+     */
+    public CompletableFuture<Void> verifyJws(List<JwsTokenDto> tokens, Consumer<JwsBatchResultDto> onResult) {
+        return CompletableFuture.runAsync(() -> runBatch(tokens.size(), index -> {
+            JwsTokenDto token = tokens.get(index);
+            if (token == null || token.getJwsToken() == null || token.getJwsToken().trim().isEmpty()) {
+                return failed(index, "JWS token is required");
+            }
+            boolean valid = jwsSignatureService.verifyJwsSignature(token.getJwsToken(), token.getOriginalBody());
+            return checked(index, valid, valid ? null : "Signature or timestamp invalid");
+        }, null, onResult), coordinatorPool);
+    }
+
+    /**
+     * validateJwsComprehensive for every token, in request order. Signatures and timestamps are
+     * checked first, so only nonces of otherwise valid tokens are marked as used; then the chunk's
+     * nonces go to the store together. A nonce repeated within a batch is accepted once.
+     */
+    public CompletableFuture<Void> validateJwsComprehensive(List<JwsTokenDto> tokens,
+                                                            Consumer<JwsBatchResultDto> onResult) {
+        String[] nonces = new String[tokens.size()];
+        return CompletableFuture.runAsync(() -> runBatch(tokens.size(), index -> {
+            JwsTokenDto token = tokens.get(index);
+            if (token == null || token.getJwsToken() == null || token.getJwsToken().trim().isEmpty()) {
+                return failed(index, "JWS token is required");
+            }
+            JsonNode header = jwsSignatureService.verifyJwsHeader(token.getJwsToken(), token.getOriginalBody());
+            if (header == null) {
+                return checked(index, false, "Signature or timestamp invalid");
+            }
+            if (header.has("nonce")) {
+                nonces[index] = header.get("nonce").asText();
+            }
+            return checked(index, true, null);
+        }, results -> checkNonces(results, nonces), onResult), coordinatorPool);
+    }
+
+    /**
+     * Run perItem for every index on the CPU pool, chunk by chunk. The next chunk is already
+     * being computed while the current one is finished (e.g. its nonces checked) and reported.
+     */
+    private void runBatch(int size, IntFunction<JwsBatchResultDto> perItem,
+                          Consumer<List<JwsBatchResultDto>> finishChunk, Consumer<JwsBatchResultDto> onResult) {
+        long startTime = System.currentTimeMillis();
+        List<CompletableFuture<JwsBatchResultDto>> current = submitChunk(0, size, perItem);
+        for (int from = 0; from < size; from += chunkSize) {
+            List<CompletableFuture<JwsBatchResultDto>> next = submitChunk(from + chunkSize, size, perItem);
+            try {
+                List<JwsBatchResultDto> results = new ArrayList<>(current.size());
+                for (CompletableFuture<JwsBatchResultDto> future : current) {
+                    results.add(future.join());
+                }
+                if (finishChunk != null) {
+                    finishChunk.accept(results);
+                }
+                for (JwsBatchResultDto result : results) {
+                    onResult.accept(result);
+                }
+            } catch (RuntimeException e) {
+                // Typically the client went away; do not leave the next chunk queued on the shared pool
+                next.forEach(future -> future.cancel(false));
+                throw e;
+            }
+            current = next;
+        }
+        logger.info("JWS batch of {} items finished in {}ms", size, System.currentTimeMillis() - startTime);
+    }
+
+    private List<CompletableFuture<JwsBatchResultDto>> submitChunk(int from, int size,
+                                                                  IntFunction<JwsBatchResultDto> perItem) {
+        int to = Math.min(size, from + chunkSize);
+        List<CompletableFuture<JwsBatchResultDto>> futures = new ArrayList<>(Math.max(0, to - from));
+        for (int index = from; index < to; index++) {
+            int item = index;
+            futures.add(CompletableFuture.supplyAsync(() -> perItem.apply(item), cpuPool)
+                .exceptionally(e -> failed(item, e.getCause() != null ? e.getCause().getMessage() : e.getMessage())));
+        }
+        return futures;
+    }
+
+    /**
+     * Mark the nonces of a chunk's valid tokens as used, in one call to the store, and turn the
+     * tokens whose nonce was already used into invalid results
+     */
+    private void checkNonces(List<JwsBatchResultDto> results, String[] nonces) {
+        List<String> toCheck = new ArrayList<>(results.size());
+        for (JwsBatchResultDto result : results) {
+            String nonce = nonces[result.getIndex()];
+            if (nonce != null) {
+                toCheck.add(nonce);
+            }
+        }
+        if (toCheck.isEmpty()) {
+            return;
+        }
+
+        Set<String> accepted = markNonces(toCheck);
+        for (JwsBatchResultDto result : results) {
+            String nonce = nonces[result.getIndex()];
+            // remove() so a nonce repeated within the batch only passes the first time
+            if (nonce != null && !accepted.remove(nonce)) {
+                result.setValid(false);
+                result.setStatus("invalid");
+                result.setError("Nonce already used");
+            }
+        }
+    }
+
+    private Set<String> markNonces(List<String> nonces) {
+        try {
+            return new HashSet<>(nonceTrackingService.validateAndMarkNonces(nonces));
+        } catch (RuntimeException e) {
+            // Usually a concurrent request stored one of these nonces first; settle them one by one
+            logger.warn("Batch nonce check failed, checking {} nonces one by one: {}", nonces.size(), e.getMessage());
+            Set<String> accepted = new HashSet<>();
+            for (String nonce : new LinkedHashSet<>(nonces)) {
+                if (nonceTrackingService.validateAndMarkNonce(nonce)) {
+                    accepted.add(nonce);
+                }
+            }
+            return accepted;
+        }
+    }
+
+    private static JwsBatchResultDto checked(int index, boolean valid, String error) {
+        JwsBatchResultDto result = new JwsBatchResultDto();
+        result.setIndex(index);
+        result.setStatus(valid ? "valid" : "invalid");
+        result.setValid(valid);
+        result.setError(error);
+        return result;
+    }
+
+    private static JwsBatchResultDto failed(int index, String error) {
+        JwsBatchResultDto result = new JwsBatchResultDto();
+        result.setIndex(index);
+        result.setStatus("error");
+        result.setError(error);
+        return result;
+    }
+
+    private static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
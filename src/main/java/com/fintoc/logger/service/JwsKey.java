@@ -0,0 +1,181 @@
+package com.fintoc.logger.service;
+
+import com.fintoc.logger.config.JwsSignatureConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.interfaces.ECKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.regex.Pattern;
+
+/**
+ * One parsed JWS key: its kid, algorithm and key pair.
+ * Immutable: a reload builds a new instance and swaps it in whole, so a signature is never
+ * made with half of an old pair. Either key may be missing; using a missing key fails.
+ * Each thread keeps a Signature already initialized with these keys, so signing does not pay
+ * for a provider lookup and key setup every time; the instances go away with this object.
+ */
+final class JwsKey {
+
+    // Goes into the protected header as is, so keep it to characters JSON needs no escaping for
+    private static final Pattern KID = Pattern.compile("[A-Za-z0-9._:-]+");
+
+    private final String kid;
+    private final JwsAlgorithm algorithm;
+    private final PrivateKey privateKey;
+    private final PublicKey publicKey;
+    private final byte[] headerPrefix;
+    private final ThreadLocal<Signature> signers = new ThreadLocal<>();
+    private final ThreadLocal<Signature> verifiers = new ThreadLocal<>();
+
+    private JwsKey(String kid, JwsAlgorithm algorithm, PrivateKey privateKey, PublicKey publicKey) {
+        this.kid = kid;
+        this.algorithm = algorithm;
+        this.privateKey = privateKey;
+        this.publicKey = publicKey;
+        String prefix = "{\"alg\":\"" + algorithm.name() + "\"" + (kid != null ? ",\"kid\":\"" + kid + "\"" : "")
+            + ",\"nonce\":\"";
+        this.headerPrefix = prefix.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Parse PEM (or bare base64) keys for an algorithm. Throws IllegalArgumentException if a key
+     * is unreadable or does not fit the algorithm, or the two keys are not a pair.
+     */
+    static JwsKey parse(String kid, JwsAlgorithm algorithm, String privateKeyPem, String publicKeyPem) {
+        if (kid != null && !KID.matcher(kid).matches()) {
+            throw new IllegalArgumentException("Invalid JWS kid: " + kid);
+        }
+        PrivateKey privateKey = null;
+        PublicKey publicKey = null;
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(algorithm.keyAlgorithm());
+            String privateContent = JwsSignatureConfig.stripPem(privateKeyPem, "PRIVATE KEY");
+            if (privateContent != null && !privateContent.isEmpty()) {
+                privateKey = keyFactory.generatePrivate(
+                    new PKCS8EncodedKeySpec(Base64.getDecoder().decode(privateContent)));
+            }
+            String publicContent = JwsSignatureConfig.stripPem(publicKeyPem, "PUBLIC KEY");
+            if (publicContent != null && !publicContent.isEmpty()) {
+                publicKey = keyFactory.generatePublic(
+                    new X509EncodedKeySpec(Base64.getDecoder().decode(publicContent)));
+            }
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid JWS key for " + algorithm + ": " + e.getMessage(), e);
+        }
+
+        if (algorithm == JwsAlgorithm.ES256 && !(isP256(privateKey) && isP256(publicKey))) {
+            throw new IllegalArgumentException("ES256 keys must be on the P-256 curve");
+        }
+        if (privateKey != null && publicKey != null && !isPair(algorithm, privateKey, publicKey)) {
+            throw new IllegalArgumentException("JWS private and public keys are not a pair");
+        }
+        return new JwsKey(kid, algorithm, privateKey, publicKey);
+    }
+
+    /**
+     * kid of this key in the protected header, or null when tokens carry none
+     */
+    String kid() {
+        return kid;
+    }
+
+    JwsAlgorithm algorithm() {
+        return algorithm;
+    }
+
+    /**
+     * Start of the protected header for tokens signed with this key, up to the nonce value:
+     * {"alg":"<alg>",["kid":"<kid>",]"nonce":"
+     */
+    byte[] headerPrefix() {
+        return headerPrefix;
+    }
+
+    PrivateKey privateKey() {
+        if (privateKey == null) {
+            throw new IllegalStateException("Private key not configured");
+        }
+        return privateKey;
+    }
+
+    PublicKey publicKey() {
+        if (publicKey == null) {
+            throw new IllegalStateException("Public key not configured");
+        }
+        return publicKey;
+    }
+
+    /**
+     * Signature of data with the private key, in the JWS form of the algorithm
+     */
+    byte[] sign(byte[] data) throws GeneralSecurityException {
+        Signature signer = signers.get();
+        if (signer == null) {
+            signer = algorithm.newSignature();
+            signer.initSign(privateKey());
+            signers.set(signer);
+        }
+        try {
+            // sign() leaves the instance initialized for the next signature
+            signer.update(data);
+            return signer.sign();
+        } catch (GeneralSecurityException | RuntimeException e) {
+            // State after a failure is unspecified; start over with a fresh instance
+            signers.remove();
+            throw e;
+        }
+    }
+
+    /**
+     * Check a signature of data against the public key
+     */
+    boolean verify(byte[] data, byte[] signature) throws GeneralSecurityException {
+        Signature verifier = verifiers.get();
+        if (verifier == null) {
+            verifier = algorithm.newSignature();
+            verifier.initVerify(publicKey());
+            verifiers.set(verifier);
+        }
+        try {
+            verifier.update(data);
+            return verifier.verify(signature);
+        } catch (GeneralSecurityException | RuntimeException e) {
+            verifiers.remove();
+            throw e;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return (kid != null ? kid : "default") + "/" + algorithm;
+    }
+
+    private static boolean isP256(Key key) {
+        return key == null || ((ECKey) key).getParams().getCurve().getField().getFieldSize() == 256;
+    }
+
+    private static boolean isPair(JwsAlgorithm algorithm, PrivateKey privateKey, PublicKey publicKey) {
+        try {
+            byte[] probe = "jws-key-check".getBytes(StandardCharsets.UTF_8);
+            Signature signer = algorithm.newSignature();
+            signer.initSign(privateKey);
+            signer.update(probe);
+            byte[] signature = signer.sign();
+
+            Signature verifier = algorithm.newSignature();
+            verifier.initVerify(publicKey);
+            verifier.update(probe);
+            return verifier.verify(signature);
+        } catch (GeneralSecurityException e) {
+            return false;
+        }
+    }
+}
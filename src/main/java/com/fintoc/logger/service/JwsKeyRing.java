@@ -0,0 +1,66 @@
+package com.fintoc.logger.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The JWS keys in use: one key signs, any of them verifies. A token's key is found by the kid
+ * in its protected header with one map lookup; tokens without a kid use the default key.
+ * Immutable, swapped in whole on reload like the keys it holds.
+ */
+final class JwsKeyRing {
+
+    private final JwsKey defaultKey;
+    private final JwsKey signingKey;
+    private final Map<String, JwsKey> keysByKid = new HashMap<>();
+    private final List<JwsKey> keys = new ArrayList<>();
+
+    /**
+     * @param defaultKey the key of tokens without a kid (and the signing key unless signingKid is set)
+     * @param otherKeys further keys, each with a kid of its own
+     * @param signingKid kid of the key to sign with, or null for the default key
+     */
+    JwsKeyRing(JwsKey defaultKey, List<JwsKey> otherKeys, String signingKid) {
+        this.defaultKey = defaultKey;
+        add(defaultKey);
+        for (JwsKey key : otherKeys) {
+            if (key.kid() == null) {
+                throw new IllegalArgumentException("Additional JWS keys need a kid");
+            }
+            add(key);
+        }
+        if (signingKid == null || signingKid.isEmpty()) {
+            this.signingKey = defaultKey;
+        } else {
+            this.signingKey = keysByKid.get(signingKid);
+            if (signingKey == null) {
+                throw new IllegalArgumentException("No JWS key with kid " + signingKid + " to sign with");
+            }
+        }
+    }
+
+    JwsKey signingKey() {
+        return signingKey;
+    }
+
+    /**
+     * The key to verify a token with the given header kid, or null when the kid is unknown
+     */
+    JwsKey verificationKey(String kid) {
+        return kid == null ? defaultKey : keysByKid.get(kid);
+    }
+
+    @Override
+    public String toString() {
+        return "signing: " + signingKey + ", verifying: " + keys;
+    }
+
+    private void add(JwsKey key) {
+        keys.add(key);
+        if (key.kid() != null && keysByKid.put(key.kid(), key) != null) {
+            throw new IllegalArgumentException("Duplicate JWS kid: " + key.kid());
+        }
+    }
+}
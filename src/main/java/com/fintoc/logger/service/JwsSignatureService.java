@@ -4,57 +4,148 @@ import com.fintoc.logger.config.JwsSignatureConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import java.security.KeyFactory;
-import java.security.PrivateKey;
-import java.security.PublicKey;
-import java.security.Signature;
-import java.security.spec.PKCS8EncodedKeySpec;
-import java.security.spec.X509EncodedKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * Service for JWS signature operations
- * Uses RSA keys configured in application.yml
+ * Uses the keys configured in application.yml (or PEM files), parsed once at startup;
+ * invalid keys stop the application from starting. Keys can be reloaded without a restart.
+ * Signs with RS256 by default; PS256, ES256 and EdDSA keys are configured the same way, and
+ * tokens are verified with the key named by the kid in their protected header.
  */
 @Service
 public class JwsSignatureService {
     
     private static final Logger logger = LoggerFactory.getLogger(JwsSignatureService.class);
-    private static final String SIGNATURE_ALGORITHM = "SHA256withRSA";
     private static final long TIMESTAMP_TOLERANCE_SECONDS = 300; // 5 minutes
     private static final long MAX_TIMESTAMP_AGE_SECONDS = 3600; // 1 hour
+    private static final SecureRandom NONCE_RANDOM = nonceRandom();
+    private static final int NONCE_HEX_LENGTH = 32;
+    private static final byte[] HEADER_TS = "\",\"ts\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEADER_SUFFIX = ",\"crit\":[\"ts\",\"nonce\"]}".getBytes(StandardCharsets.US_ASCII);
     
     private final ObjectMapper objectMapper = new ObjectMapper();
     
     @Autowired
     private NonceTrackingService nonceTrackingService;
-    private static final String KEY_ALGORITHM = "RSA";
     
     private final JwsSignatureConfig jwsConfig;
+    private final AtomicReference<JwsKeyRing> keys;
+    // Last seen modification time and size of the key files; guarded by this
+    private String keyFilesStamp;
     
     @Autowired
     public JwsSignatureService(JwsSignatureConfig jwsConfig) {
         this.jwsConfig = jwsConfig;
+        this.keyFilesStamp = keyFilesStamp();
+        JwsKeyRing loaded = loadKeys();
+        this.keys = new AtomicReference<>(loaded);
+        logger.info("JWS keys loaded ({})", loaded);
     }
     
     /**
-     * Sign data using the private key from configuration
+     * Parse the configured keys again and swap them in. Signing carries on with the old keys
+     * until the new pair is fully parsed and checked; if it is invalid the old keys are kept.
+     */
+    public synchronized boolean reloadKeys() {
+        try {
+            String stamp = keyFilesStamp();
+            JwsKeyRing loaded = loadKeys();
+            keys.set(loaded);
+            keyFilesStamp = stamp;
+            logger.info("JWS keys reloaded ({})", loaded);
+            return true;
+        } catch (RuntimeException e) {
+            logger.error("JWS key reload failed, keeping the current keys: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Reload the keys when a configured key file has changed
+     */
+    @Scheduled(fixedDelayString = "${jws.signature.key-file-check-ms:10000}")
+    public synchronized void checkKeyFiles() {
+        String stamp = keyFilesStamp();
+        if (stamp != null && !stamp.equals(keyFilesStamp)) {
+            logger.info("JWS key file changed, reloading keys");
+            if (!reloadKeys()) {
+                // Do not retry the same broken file every check; wait for the next change
+                keyFilesStamp = stamp;
+            }
+        }
+    }
+    
+    private JwsKeyRing loadKeys() {
+        JwsKey defaultKey = JwsKey.parse(jwsConfig.getKid(), JwsAlgorithm.fromName(jwsConfig.getAlgorithm()),
+            keyPem(jwsConfig.getPrivateKeyFile(), jwsConfig.getPrivateKey()),
+            keyPem(jwsConfig.getPublicKeyFile(), jwsConfig.getPublicKey()));
+        List<JwsKey> otherKeys = new ArrayList<>();
+        for (JwsSignatureConfig.Key key : jwsConfig.getKeys()) {
+            otherKeys.add(JwsKey.parse(key.getKid(), JwsAlgorithm.fromName(key.getAlgorithm()),
+                keyPem(key.getPrivateKeyFile(), key.getPrivateKey()),
+                keyPem(key.getPublicKeyFile(), key.getPublicKey())));
+        }
+        return new JwsKeyRing(defaultKey, otherKeys, jwsConfig.getSigningKid());
+    }
+    
+    private static String keyPem(String file, String inline) {
+        return file != null ? readKeyFile(file) : inline;
+    }
+    
+    private static String readKeyFile(String path) {
+        try {
+            return new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read JWS key file " + path, e);
+        }
+    }
+    
+    /**
+     * Modification time and size of the configured key files, or null when none are configured
+     */
+    private String keyFilesStamp() {
+        StringBuilder stamp = new StringBuilder();
+        appendFileStamp(stamp, jwsConfig.getPrivateKeyFile());
+        appendFileStamp(stamp, jwsConfig.getPublicKeyFile());
+        for (JwsSignatureConfig.Key key : jwsConfig.getKeys()) {
+            appendFileStamp(stamp, key.getPrivateKeyFile());
+            appendFileStamp(stamp, key.getPublicKeyFile());
+        }
+        return stamp.length() > 0 ? stamp.toString() : null;
+    }
+    
+    private static void appendFileStamp(StringBuilder stamp, String path) {
+        if (path != null) {
+            File file = new File(path);
+            stamp.append(path).append('=').append(file.lastModified()).append(':').append(file.length()).append('|');
+        }
+    }
+    
+    /**
+     * Sign data using the signing key from configuration
      */
     public String signData(String data) {
         try {
-            PrivateKey privateKey = getPrivateKey();
-            
-            Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
-            signature.initSign(privateKey);
-            signature.update(data.getBytes("UTF-8"));
-            
-            byte[] signatureBytes = signature.sign();
+            byte[] signatureBytes = keys.get().signingKey().sign(data.getBytes(StandardCharsets.UTF_8));
             return Base64.getEncoder().encodeToString(signatureBytes);
             
         } catch (Exception e) {
@@ -64,18 +155,12 @@ public class JwsSignatureService {
     }
     
     /**
-     * Verify signature using the public key from configuration
+     * Verify signature using the signing key's public key from configuration
      */
     public boolean verifySignature(String data, String signatureToVerify) {
         try {
-            PublicKey publicKey = getPublicKey();
-            
-            Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
-            signature.initVerify(publicKey);
-            signature.update(data.getBytes("UTF-8"));
-            
             byte[] signatureBytes = Base64.getDecoder().decode(signatureToVerify);
-            return signature.verify(signatureBytes);
+            return keys.get().signingKey().verify(data.getBytes(StandardCharsets.UTF_8), signatureBytes);
             
         } catch (Exception e) {
             logger.error("Error verifying signature: {}", e.getMessage(), e);
@@ -88,45 +173,24 @@ public class JwsSignatureService {
      */
     public String createJwsHeader(String rawBody) {
         try {
-            // Generate nonce and timestamp exactly like JS version
-            String nonce = generateNonce(); // 32 hex chars from 16 random bytes
-            long timestamp = System.currentTimeMillis() / 1000;
+            // Signing input exactly like JS: `${protectedBase64}.${payloadBase64}`
+            JwsKey key = keys.get().signingKey();
+            byte[] signingInput = Codecs.joinBase64Url(protectedHeader(key), rawBody.getBytes(StandardCharsets.UTF_8));
             
-            // JWS Header matching JS exactly - includes nonce, ts, and crit
-            String header = String.format(
-                "{\"alg\":\"RS256\",\"nonce\":\"%s\",\"ts\":%d,\"crit\":[\"ts\",\"nonce\"]}", 
-                nonce, timestamp
-            );
+            // With RS256, RSA-SHA256 with PKCS1 padding (matches JS crypto.createSign('sha256'))
+            byte[] signatureBytes = key.sign(signingInput);
             
-            // Base64url encode header and payload (matches JS Buffer.toString('base64url'))
-            String protectedBase64 = Base64.getUrlEncoder().withoutPadding()
-                .encodeToString(header.getBytes("UTF-8"));
-            String payloadBase64 = Base64.getUrlEncoder().withoutPadding()
-                .encodeToString(rawBody.getBytes("UTF-8"));
-            
-            // Create signing input exactly like JS: `${protectedBase64}.${payloadBase64}`
-            String signingInput = protectedBase64 + "." + payloadBase64;
+            // Detached JWS format: header.signature (exactly like JS)
+            int headerEnd = indexOf(signingInput, (byte) '.');
+            String token = appendSignature(signingInput, headerEnd, signatureBytes);
             
             // Debug output like JS version
-            logger.info("Signing input: {}", signingInput);
-            logger.info("Payload: {}", rawBody);
-            
-            // Sign using RSA-SHA256 with PKCS1 padding (matches JS crypto.createSign('sha256'))
-            PrivateKey privateKey = getPrivateKey();
-            Signature signature = Signature.getInstance("SHA256withRSA");
-            signature.initSign(privateKey);
-            signature.update(signingInput.getBytes("UTF-8"));
-            
-            byte[] signatureBytes = signature.sign();
-            String signatureBase64 = Base64.getUrlEncoder().withoutPadding()
-                .encodeToString(signatureBytes);
-            
-            // Create complete token for debugging (like JS)
-            String completeToken = protectedBase64 + "." + payloadBase64 + "." + signatureBase64;
-            logger.info("Token: {}", completeToken);
-            
-            // Return detached JWS format: header.signature (exactly like JS)
-            return protectedBase64 + "." + signatureBase64;
+            if (logger.isDebugEnabled()) {
+                logger.debug("Signing input: {}", Codecs.ascii(signingInput, signingInput.length));
+                logger.debug("Payload: {}", rawBody);
+                logger.debug("Token: {}", appendSignature(signingInput, signingInput.length, signatureBytes));
+            }
+            return token;
             
         } catch (Exception e) {
             logger.error("Error creating JWS header: {}", e.getMessage(), e);
@@ -140,42 +204,17 @@ public class JwsSignatureService {
      */
     public String createCompleteJws(String rawBody) {
         try {
-            // Generate nonce and timestamp exactly like JS version
-            String nonce = generateNonce(); // 32 hex chars from 16 random bytes
-            long timestamp = System.currentTimeMillis() / 1000;
-            
-            // JWS Header matching JS exactly - includes nonce, ts, and crit
-            String header = String.format(
-                "{\"alg\":\"RS256\",\"nonce\":\"%s\",\"ts\":%d,\"crit\":[\"ts\",\"nonce\"]}", 
-                nonce, timestamp
-            );
+            JwsKey key = keys.get().signingKey();
+            byte[] signingInput = Codecs.joinBase64Url(protectedHeader(key), rawBody.getBytes(StandardCharsets.UTF_8));
+            byte[] signatureBytes = key.sign(signingInput);
             
-            // Base64url encode header and payload exactly like JS
-            String protectedBase64 = Base64.getUrlEncoder().withoutPadding()
-                .encodeToString(header.getBytes("UTF-8"));
-            String payloadBase64 = Base64.getUrlEncoder().withoutPadding()
-                .encodeToString(rawBody.getBytes("UTF-8"));
-            
-            // Create signing input exactly like JS: `${protectedBase64}.${payloadBase64}`
-            String signingInput = protectedBase64 + "." + payloadBase64;
-            
-            // Sign using RSA-SHA256 with PKCS1 padding (matches JS crypto.createSign('sha256'))
-            PrivateKey privateKey = getPrivateKey();
-            Signature signature = Signature.getInstance("SHA256withRSA");
-            signature.initSign(privateKey);
-            signature.update(signingInput.getBytes("UTF-8"));
-            
-            byte[] signatureBytes = signature.sign();
-            String signatureBase64 = Base64.getUrlEncoder().withoutPadding()
-                .encodeToString(signatureBytes);
-            
-            // Return complete JWS format: header.payload.signature
-            String completeToken = protectedBase64 + "." + payloadBase64 + "." + signatureBase64;
-            
-            // Debug output like JS version
-            logger.info("Token: {}", completeToken);
-            logger.info("Payload: {}", rawBody);
+            // Complete JWS format: header.payload.signature
+            String completeToken = appendSignature(signingInput, signingInput.length, signatureBytes);
             
+            if (logger.isDebugEnabled()) {
+                logger.debug("Token: {}", completeToken);
+                logger.debug("Payload: {}", rawBody);
+            }
             return completeToken;
             
         } catch (Exception e) {
@@ -211,60 +250,86 @@ public class JwsSignatureService {
      * Verify JWS signature using public key
      */
     public boolean verifyJwsSignature(String jwsToken, String originalBody) {
+        return verifyJwsHeader(jwsToken, originalBody) != null;
+    }
+    
+    /**
+     * Signature and timestamp checks of verifyJwsSignature, returning the verified protected
+     * header (or null when the token is invalid) so a caller can check its nonce itself
+     */
+    public JsonNode verifyJwsHeader(String jwsToken, String originalBody) {
         try {
-            String[] parts = jwsToken.split("\\.");
-            if (parts.length < 2) {
+            int headerEnd = jwsToken.indexOf('.');
+            int signatureStart = jwsToken.lastIndexOf('.') + 1;
+            if (headerEnd < 0) {
                 logger.error("Invalid JWS format: insufficient parts");
-                return false;
+                return null;
+            }
+            int payloadEnd = jwsToken.indexOf('.', headerEnd + 1);
+            if (payloadEnd >= 0 && payloadEnd != signatureStart - 1) {
+                logger.error("Invalid JWS format: too many parts");
+                return null;
             }
             
-            String headerBase64 = parts[0];
-            String signatureBase64 = parts[parts.length - 1];
-            
-            // For detached signature, reconstruct signing input
-            String signingInput;
-            if (parts.length == 2) {
+            // Signing input is header.payload, copied straight from the token or rebuilt for a detached one
+            byte[] signingInput;
+            int signingInputLength;
+            if (headerEnd == signatureStart - 1) {
                 // Detached format: header.signature
                 if (originalBody == null) {
                     logger.error("Original body required for detached JWS verification");
-                    return false;
+                    return null;
+                }
+                byte[] payload = originalBody.getBytes(StandardCharsets.UTF_8);
+                signingInput = new byte[headerEnd + 1 + Codecs.base64UrlLength(payload.length)];
+                signingInputLength = Codecs.asciiInto(jwsToken, 0, headerEnd + 1, signingInput, 0);
+                if (signingInputLength >= 0) {
+                    signingInputLength = Codecs.base64UrlInto(payload, signingInput, signingInputLength);
                 }
-                String payloadBase64 = Base64.getUrlEncoder().withoutPadding()
-                    .encodeToString(originalBody.getBytes("UTF-8"));
-                signingInput = headerBase64 + "." + payloadBase64;
             } else {
                 // Complete format: header.payload.signature
-                String payloadBase64 = parts[1];
-                signingInput = headerBase64 + "." + payloadBase64;
+                signingInput = new byte[signatureStart - 1];
+                signingInputLength = Codecs.asciiInto(jwsToken, 0, signatureStart - 1, signingInput, 0);
+            }
+            if (signingInputLength < 0) {
+                logger.error("Invalid JWS format: not base64url");
+                return null;
             }
             
-            // Verify signature
-            PublicKey publicKey = getPublicKey();
-            Signature signature = Signature.getInstance(SIGNATURE_ALGORITHM);
-            signature.initVerify(publicKey);
-            signature.update(signingInput.getBytes("UTF-8"));
+            // Pick the key by kid; the header must name that key's algorithm, or a token could
+            // get a signature checked in a way its signer never meant
+            JsonNode headerNode = readHeader(jwsToken, headerEnd);
+            String kid = headerNode.has("kid") ? headerNode.get("kid").asText() : null;
+            JwsKey key = keys.get().verificationKey(kid);
+            if (key == null) {
+                logger.warn("Unknown JWS kid: {}", kid);
+                return null;
+            }
+            if (!key.algorithm().name().equals(headerNode.path("alg").asText())) {
+                logger.warn("JWS alg {} does not match key {}", headerNode.path("alg").asText(), key);
+                return null;
+            }
             
-            byte[] signatureBytes = Base64.getUrlDecoder().decode(signatureBase64);
-            boolean isValid = signature.verify(signatureBytes);
+            // Verify signature
+            byte[] signatureBytes = Base64.getUrlDecoder().decode(jwsToken.substring(signatureStart));
+            if (!key.verify(signingInput, signatureBytes)) {
+                return null;
+            }
             
-            if (isValid) {
-                // Also validate timestamp if present
-                String headerJson = new String(Base64.getUrlDecoder().decode(headerBase64), "UTF-8");
-                JsonNode headerNode = objectMapper.readTree(headerJson);
-                if (headerNode.has("ts")) {
-                    long timestamp = headerNode.get("ts").asLong();
-                    if (!validateTimestamp(timestamp)) {
-                        logger.warn("JWS signature valid but timestamp validation failed");
-                        return false;
-                    }
+            // Also validate timestamp if present
+            if (headerNode.has("ts")) {
+                long timestamp = headerNode.get("ts").asLong();
+                if (!validateTimestamp(timestamp)) {
+                    logger.warn("JWS signature valid but timestamp validation failed");
+                    return null;
                 }
             }
             
-            return isValid;
+            return headerNode;
             
         } catch (Exception e) {
             logger.error("Error verifying JWS signature: {}", e.getMessage(), e);
-            return false;
+            return null;
         }
     }
     
@@ -273,16 +338,14 @@ public class JwsSignatureService {
      */
     public boolean validateJwsComprehensive(String jwsToken, String originalBody) {
         try {
-            String[] parts = jwsToken.split("\\.");
-            if (parts.length < 2) {
+            int headerEnd = jwsToken.indexOf('.');
+            if (headerEnd < 0) {
                 logger.error("Invalid JWS format: insufficient parts");
                 return false;
             }
             
             // Extract and validate header
-            String headerBase64 = parts[0];
-            String headerJson = new String(Base64.getUrlDecoder().decode(headerBase64), "UTF-8");
-            JsonNode headerNode = objectMapper.readTree(headerJson);
+            JsonNode headerNode = readHeader(jwsToken, headerEnd);
             
             // 1. Validate timestamp if present
             if (headerNode.has("ts")) {
@@ -318,47 +381,73 @@ public class JwsSignatureService {
         }
     }
     
+    /**
+     * JWS protected header matching JS exactly, with a fresh nonce and the current timestamp:
+     * {"alg":"RS256","nonce":"<32 hex chars>","ts":<seconds>,"crit":["ts","nonce"]}
+     * with the key's alg, and its kid after alg when it has one
+     */
+    private static byte[] protectedHeader(JwsKey key) {
+        byte[] prefix = key.headerPrefix();
+        byte[] timestamp = Long.toString(System.currentTimeMillis() / 1000).getBytes(StandardCharsets.US_ASCII);
+        byte[] header = new byte[prefix.length + NONCE_HEX_LENGTH + HEADER_TS.length
+            + timestamp.length + HEADER_SUFFIX.length];
+        int offset = copy(prefix, header, 0);
+        offset = generateNonce(header, offset);
+        offset = copy(HEADER_TS, header, offset);
+        offset = copy(timestamp, header, offset);
+        copy(HEADER_SUFFIX, header, offset);
+        return header;
+    }
+    
     /**
      * Generate random nonce exactly like JS: crypto.randomBytes(16).toString('hex')
-     * Returns 32 hex characters from 16 random bytes
+     * Writes 32 lowercase hex characters from 16 random bytes into dst at offset
      */
-    private String generateNonce() {
-        byte[] nonceBytes = new byte[16]; // Exactly 16 bytes like JS
-        new java.security.SecureRandom().nextBytes(nonceBytes);
-        StringBuilder nonce = new StringBuilder();
-        for (byte b : nonceBytes) {
-            nonce.append(String.format("%02x", b)); // Lowercase hex like JS
-        }
-        return nonce.toString(); // Returns 32 hex characters
+    private static int generateNonce(byte[] dst, int offset) {
+        byte[] nonceBytes = new byte[NONCE_HEX_LENGTH / 2]; // Exactly 16 bytes like JS
+        NONCE_RANDOM.nextBytes(nonceBytes);
+        return Codecs.hexInto(nonceBytes, dst, offset);
     }
     
     /**
-     * Get private key from configuration
+     * signingInput[0..length) + "." + base64url(signature) as a String
      */
-    private PrivateKey getPrivateKey() throws Exception {
-        String privateKeyContent = jwsConfig.getPrivateKeyContent();
-        if (privateKeyContent == null || privateKeyContent.isEmpty()) {
-            throw new IllegalStateException("Private key not configured");
+    private static String appendSignature(byte[] signingInput, int length, byte[] signature) {
+        byte[] token = new byte[length + 1 + Codecs.base64UrlLength(signature.length)];
+        System.arraycopy(signingInput, 0, token, 0, length);
+        token[length] = '.';
+        int end = Codecs.base64UrlInto(signature, token, length + 1);
+        return Codecs.ascii(token, end);
+    }
+    
+    private JsonNode readHeader(String jwsToken, int headerEnd) throws IOException {
+        byte[] headerJson = Base64.getUrlDecoder().decode(jwsToken.substring(0, headerEnd));
+        return objectMapper.readTree(headerJson);
+    }
+    
+    private static int copy(byte[] src, byte[] dst, int offset) {
+        System.arraycopy(src, 0, dst, offset, src.length);
+        return offset + src.length;
+    }
+    
+    private static int indexOf(byte[] bytes, byte value) {
+        for (int i = 0; i < bytes.length; i++) {
+            if (bytes[i] == value) {
+                return i;
+            }
         }
-        
-        byte[] keyBytes = Base64.getDecoder().decode(privateKeyContent);
-        PKCS8EncodedKeySpec spec = new PKCS8EncodedKeySpec(keyBytes);
-        KeyFactory keyFactory = KeyFactory.getInstance(KEY_ALGORITHM);
-        return keyFactory.generatePrivate(spec);
+        return -1;
     }
     
     /**
-     * Get public key from configuration
+     * One generator for all nonces: seeding a new SecureRandom per call is slow and may block
+     * on entropy. NativePRNGNonBlocking reads /dev/urandom only; elsewhere use the platform default.
      */
-    private PublicKey getPublicKey() throws Exception {
-        String publicKeyContent = jwsConfig.getPublicKeyContent();
-        if (publicKeyContent == null || publicKeyContent.isEmpty()) {
-            throw new IllegalStateException("Public key not configured");
+    private static SecureRandom nonceRandom() {
+        try {
+            return SecureRandom.getInstance("NativePRNGNonBlocking");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
         }
-        
-        byte[] keyBytes = Base64.getDecoder().decode(publicKeyContent);
-        X509EncodedKeySpec spec = new X509EncodedKeySpec(keyBytes);
-        KeyFactory keyFactory = KeyFactory.getInstance(KEY_ALGORITHM);
-        return keyFactory.generatePublic(spec);
     }
 }
\ No newline at end of file
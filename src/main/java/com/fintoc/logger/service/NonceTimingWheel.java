@@ -0,0 +1,113 @@
+package com.fintoc.logger.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * In-memory set of recently used nonces that forgets each one after a fixed time.
+ * Nonces are bucketed by the tick they expire in, one bucket per tick of the time to live,
+ * so expiring them means dropping whole buckets as the clock moves on rather than scanning
+ * every entry. Beyond maxEntries new nonces are not remembered (the caller's store still
+ * sees them), which bounds the memory a flood of requests can take.
+ */
+final class NonceTimingWheel {
+
+    private final long tickMillis;
+    private final long ttlTicks;
+    private final int maxEntries;
+    // Nonce -> tick it expires in
+    private final ConcurrentHashMap<String, Long> expiries = new ConcurrentHashMap<>();
+    private final Queue<String>[] buckets;
+    // Last tick whose bucket was expired; guarded by this
+    private long expiredTick;
+
+    @SuppressWarnings("unchecked")
+    NonceTimingWheel(long ttlMillis, long tickMillis, int maxEntries, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.ttlTicks = (ttlMillis + tickMillis - 1) / tickMillis;
+        this.maxEntries = maxEntries;
+        // One more bucket than the lifetime, so the bucket being expired is never the one being filled
+        this.buckets = new Queue[(int) ttlTicks + 2];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ConcurrentLinkedQueue<>();
+        }
+        this.expiredTick = nowMillis / tickMillis - 1;
+    }
+
+    /**
+     * Remember a nonce as used
+     * @return false if the nonce was already used within the time to live; true otherwise,
+     *         including when it could not be remembered because the wheel is full
+     */
+    boolean add(String nonce, long nowMillis) {
+        long tick = nowMillis / tickMillis;
+        expireTick(tick);
+        if (expiries.size() >= maxEntries) {
+            return !expiries.containsKey(nonce);
+        }
+        long expiresAt = tick + ttlTicks;
+        if (expiries.putIfAbsent(nonce, expiresAt) != null) {
+            return false;
+        }
+        buckets[(int) (expiresAt % buckets.length)].add(nonce);
+        return true;
+    }
+
+    /**
+     * Forget a nonce again, e.g. when it could not be stored after all
+     */
+    void remove(String nonce) {
+        // Its bucket entry is dropped when the bucket expires
+        expiries.remove(nonce);
+    }
+
+    boolean contains(String nonce) {
+        return expiries.containsKey(nonce);
+    }
+
+    int size() {
+        return expiries.size();
+    }
+
+    /**
+     * Drop the nonces whose expiry tick is before the current one
+     */
+    void expire(long nowMillis) {
+        expireTick(nowMillis / tickMillis);
+    }
+
+    private void expireTick(long tick) {
+        if (tick - 1 <= expiredTick) {
+            return;
+        }
+        synchronized (this) {
+            // After a long idle time every bucket has expired; visit each one once
+            long from = Math.max(expiredTick + 1, tick - buckets.length);
+            for (long expiring = from; expiring < tick; expiring++) {
+                expireBucket(expiring);
+            }
+            expiredTick = Math.max(expiredTick, tick - 1);
+        }
+    }
+
+    private void expireBucket(long expiring) {
+        Queue<String> bucket = buckets[(int) (expiring % buckets.length)];
+        List<String> later = new ArrayList<>();
+        for (String nonce = bucket.poll(); nonce != null; nonce = bucket.poll()) {
+            Long expiresAt = expiries.get(nonce);
+            if (expiresAt == null) {
+                continue;
+            }
+            if (expiresAt <= expiring) {
+                expiries.remove(nonce, expiresAt);
+            } else if (expiresAt % buckets.length == expiring % buckets.length) {
+                // Added by a thread a lap ahead of this one; it belongs to a later turn of the wheel
+                later.add(nonce);
+            }
+        }
+        bucket.addAll(later);
+    }
+}
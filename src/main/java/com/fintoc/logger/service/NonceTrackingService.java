@@ -1,71 +1,153 @@
 package com.fintoc.logger.service;
 
-import com.fintoc.logger.entity.NonceTracking;
 import com.fintoc.logger.repository.NonceTrackingRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Replay protection for JWS nonces, in two tiers: nonces used in the last NONCE_EXPIRY_HOURS
+ * are remembered in memory, so a replay to this instance is rejected without touching the
+ * database; the nonce tables are the shared, durable record every new nonce is inserted into.
+ */
 @Service
 public class NonceTrackingService {
     
     private static final Logger logger = LoggerFactory.getLogger(NonceTrackingService.class);
     private static final int NONCE_EXPIRY_HOURS = 2; // Nonces expire after 2 hours
+    private static final long NONCE_WHEEL_TICK_MS = TimeUnit.MINUTES.toMillis(1);
     
     @Autowired
     private NonceTrackingRepository nonceRepository;
     
+    private final NonceTimingWheel recentNonces;
+    
+    public NonceTrackingService() {
+        this(200000);
+    }
+    
+    @Autowired
+    public NonceTrackingService(@Value("${jws.nonce.memory-max-entries:200000}") int memoryMaxEntries) {
+        this.recentNonces = new NonceTimingWheel(TimeUnit.HOURS.toMillis(NONCE_EXPIRY_HOURS),
+            NONCE_WHEEL_TICK_MS, memoryMaxEntries, System.currentTimeMillis());
+    }
+    
     /**
-     * Check if nonce has been used before and mark it as used
+     * Check if nonce has been used before and mark it as used.
+     * A nonce this instance has seen is rejected from memory; any other takes one
+     * insert-if-absent statement, which also catches nonces used on other instances.
      * @param nonce The nonce to check
      * @return true if nonce is valid (not used before), false if already used
      */
-    @Transactional
     public boolean validateAndMarkNonce(String nonce) {
         if (nonce == null || nonce.trim().isEmpty()) {
             logger.warn("Empty or null nonce provided");
             return false;
         }
         
-        // Check if nonce already exists
-        if (nonceRepository.existsByNonce(nonce)) {
+        if (!recentNonces.add(nonce, System.currentTimeMillis())) {
             logger.warn("Nonce already used: {}", nonce);
             return false;
         }
         
         try {
-            // Mark nonce as used
+            // Mark nonce as used, unless it already is
             LocalDateTime now = LocalDateTime.now();
             LocalDateTime expiresAt = now.plusHours(NONCE_EXPIRY_HOURS);
             
-            NonceTracking tracking = new NonceTracking(nonce, now, expiresAt);
-            nonceRepository.save(tracking);
+            if (nonceRepository.insertIfAbsent(nonce, now, expiresAt, NonceTrackingRepository.hourOf(now)) == 0) {
+                logger.warn("Nonce already used: {}", nonce);
+                return false;
+            }
             
             logger.debug("Nonce marked as used: {}", nonce);
             return true;
             
+        } catch (DataIntegrityViolationException e) {
+            // Another instance inserted it between our check and insert
+            logger.warn("Nonce already used: {}", nonce);
+            return false;
         } catch (Exception e) {
+            // Not stored, so do not hold it against a retry either
+            recentNonces.remove(nonce);
             logger.error("Error saving nonce: {}", e.getMessage(), e);
             return false;
         }
     }
     
+    /**
+     * Batch form of validateAndMarkNonce: nonces this instance has seen are dropped first,
+     * then one query finds the other nonces already used and the rest are inserted together
+     * (flushed here, so a failed insert is reported to the caller). A nonce given twice counts once.
+     * @param nonces The nonces to check
+     * @return the nonces that were not used before and are now marked as used
+     */
+    @Transactional
+    public Set<String> validateAndMarkNonces(Collection<String> nonces) {
+        long nowMillis = System.currentTimeMillis();
+        Set<String> unique = new LinkedHashSet<>();
+        int seen = 0;
+        for (String nonce : nonces) {
+            if (nonce != null && !nonce.trim().isEmpty() && !unique.contains(nonce)) {
+                if (recentNonces.add(nonce, nowMillis)) {
+                    unique.add(nonce);
+                } else {
+                    seen++;
+                }
+            }
+        }
+        if (seen > 0) {
+            logger.warn("{} nonces already used", seen);
+        }
+        if (unique.isEmpty()) {
+            return unique;
+        }
+        
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            long hour = NonceTrackingRepository.hourOf(now);
+            List<String> used = nonceRepository.findExistingNonces(unique, hour);
+            if (!used.isEmpty()) {
+                logger.warn("{} of {} nonces already used", used.size(), unique.size());
+                unique.removeAll(new HashSet<>(used));
+            }
+            if (unique.isEmpty()) {
+                return unique;
+            }
+            
+            nonceRepository.insertAll(unique, now, now.plusHours(NONCE_EXPIRY_HOURS), hour);
+            logger.debug("{} nonces marked as used", unique.size());
+            return unique;
+        } catch (RuntimeException e) {
+            // Nothing was stored; leave the nonces to the caller's retry
+            unique.forEach(recentNonces::remove);
+            throw e;
+        }
+    }
+    
     /**
      * Cleanup expired nonces - runs every hour
+     * Truncates the hourly slot tables that have fully expired; no rows are scanned or deleted one by one
      */
     @Scheduled(fixedRate = 3600000) // 1 hour = 3600000 ms
-    @Transactional
     public void cleanupExpiredNonces() {
+        recentNonces.expire(System.currentTimeMillis());
         try {
-            int deletedCount = nonceRepository.deleteExpiredNonces(LocalDateTime.now());
-            if (deletedCount > 0) {
-                logger.info("Cleaned up {} expired nonces", deletedCount);
-            }
+            int truncated = nonceRepository.truncateExpiredSlots(NonceTrackingRepository.hourOf(LocalDateTime.now()));
+            logger.info("Cleaned up expired nonces, {} hourly slots truncated", truncated);
         } catch (Exception e) {
             logger.error("Error cleaning up expired nonces: {}", e.getMessage(), e);
         }
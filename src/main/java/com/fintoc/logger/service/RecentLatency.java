@@ -0,0 +1,42 @@
+package com.fintoc.logger.service;
+
+import java.util.Arrays;
+
+/**
+ * Sliding window of the latest Fintoc call durations, used to pick the hedging delay
+ */
+class RecentLatency {
+
+    private final long[] samples;
+    private int next;
+    private int count;
+
+    RecentLatency(int windowSize) {
+        this.samples = new long[Math.max(1, windowSize)];
+    }
+
+    synchronized void record(long millis) {
+        samples[next] = millis;
+        next = (next + 1) % samples.length;
+        if (count < samples.length) {
+            count++;
+        }
+    }
+
+    synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Nearest-rank percentile of the window, or -1 when it is empty
+     */
+    synchronized long percentile(double percentile) {
+        if (count == 0) {
+            return -1;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int rank = (int) Math.ceil(percentile / 100.0 * count);
+        return sorted[Math.min(count, Math.max(1, rank)) - 1];
+    }
+}
@@ -0,0 +1,63 @@
+package com.fintoc.logger.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded set of webhook event ids stored recently, sized for Fintoc's redelivery window.
+ * Only ids that are in webhook_logs are added, so a hit is always a real duplicate and can be
+ * acknowledged without touching the database; a miss proves nothing (the id may be older, or
+ * stored by another instance), and the unique event_id has the last word.
+ */
+@Component
+public class RecentWebhookEvents {
+
+    private final Cache<String, Boolean> eventIds;
+    private final Counter duplicates;
+
+    @Autowired
+    public RecentWebhookEvents(MeterRegistry meterRegistry,
+                               @Value("${fintoc.webhook.dedupe.max-entries:100000}") long maxEntries,
+                               @Value("${fintoc.webhook.dedupe.window-hours:72}") long windowHours) {
+        this.eventIds = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(windowHours, TimeUnit.HOURS)
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, eventIds, "fintoc.webhook.events");
+        this.duplicates = Counter.builder("fintoc.webhook.duplicates")
+            .description("Redelivered webhooks acknowledged without storing them again")
+            .register(meterRegistry);
+    }
+
+    /**
+     * True if this event id was stored recently
+     */
+    public boolean contains(String eventId) {
+        return eventId != null && !eventId.isEmpty() && eventIds.getIfPresent(eventId) != null;
+    }
+
+    /**
+     * Remember an event id that is now in webhook_logs
+     */
+    public void remember(String eventId) {
+        if (eventId != null && !eventId.isEmpty()) {
+            eventIds.put(eventId, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Count a duplicate delivery that was acknowledged
+     */
+    public void recordDuplicate() {
+        duplicates.increment();
+    }
+}
@@ -0,0 +1,112 @@
+package com.fintoc.logger.service;
+
+import com.fintoc.logger.entity.AccountValidationLog;
+import com.fintoc.logger.entity.AccountValidationResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Result of one Fintoc account validation call, before anything is written to the database.
+ * Holds the parsed response (if any), the prepared log row and the failure (if any), so the
+ * caller decides whether to persist it right away or together with other outcomes.
+ */
+public class ValidationOutcome {
+
+    private final String accountId;
+    private final AccountValidationResponse response;
+    private final AccountValidationLog log;
+    private final int httpStatus;
+    private final RuntimeException failure;
+    // "primary" or "hedge" when a hedged request was fired for this call, null otherwise
+    private final String hedgeWinner;
+
+    private ValidationOutcome(String accountId, AccountValidationResponse response, AccountValidationLog log,
+                              int httpStatus, RuntimeException failure, String hedgeWinner) {
+        this.accountId = accountId;
+        this.response = response;
+        this.log = log;
+        this.httpStatus = httpStatus;
+        this.failure = failure;
+        this.hedgeWinner = hedgeWinner;
+    }
+
+    public static ValidationOutcome success(String accountId, AccountValidationResponse response,
+                                            AccountValidationLog log, int httpStatus) {
+        return new ValidationOutcome(accountId, response, log, httpStatus, null, null);
+    }
+
+    public static ValidationOutcome failure(String accountId, AccountValidationLog log,
+                                            int httpStatus, RuntimeException failure) {
+        return new ValidationOutcome(accountId, null, log, httpStatus, failure, null);
+    }
+
+    /**
+     * Same outcome carrying another log row, e.g. an earlier attempt's when this one never reached Fintoc
+     */
+    ValidationOutcome withLog(AccountValidationLog otherLog) {
+        return new ValidationOutcome(accountId, response, otherLog, httpStatus, failure, hedgeWinner);
+    }
+
+    /**
+     * Same outcome, marked as the winner of a hedged call
+     */
+    ValidationOutcome withHedgeWinner(String winner) {
+        return new ValidationOutcome(accountId, response, log, httpStatus, failure, winner);
+    }
+
+    public String getAccountId() {
+        return accountId;
+    }
+
+    public AccountValidationResponse getResponse() {
+        return response;
+    }
+
+    public AccountValidationLog getLog() {
+        return log;
+    }
+
+    public int getHttpStatus() {
+        return httpStatus;
+    }
+
+    public RuntimeException getFailure() {
+        return failure;
+    }
+
+    public String getHedgeWinner() {
+        return hedgeWinner;
+    }
+
+    /**
+     * True only when Fintoc answered with a 2xx status and the response was parsed
+     */
+    public boolean isSuccess() {
+        return failure == null && httpStatus >= 200 && httpStatus < 300;
+    }
+
+    /**
+     * Describe why the validation did not succeed: the upstream error body for non-2xx
+     * answers, the exception message for calls that failed outright, null on success
+     */
+    public String getErrorDescription() {
+        if (failure != null) {
+            Throwable cause = failure.getCause() != null ? failure.getCause() : failure;
+            return cause.getMessage();
+        }
+        if (!isSuccess()) {
+            return log != null ? log.getResponseBody() : null;
+        }
+        return null;
+    }
+
+    /**
+     * Convert to the controller response, rethrowing the failure for unsuccessful calls
+     */
+    public ResponseEntity<AccountValidationResponse> toResponseEntity() {
+        if (failure != null) {
+            throw failure;
+        }
+        return new ResponseEntity<>(response, HttpStatus.valueOf(httpStatus));
+    }
+}
@@ -0,0 +1,143 @@
+package com.fintoc.logger.service;
+
+import com.fintoc.logger.config.ValidationCacheConfig;
+import com.fintoc.logger.entity.AccountValidationResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of the latest validation outcome per account number.
+ * Successful answers live for ttl-seconds, client errors for negative-ttl-seconds;
+ * throttling, server errors and calls that never got an answer are not cached.
+ * Entries are dropped early when a webhook reports a status change for their validation.
+ */
+@Component
+public class ValidationResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ValidationResultCache.class);
+
+    private final boolean enabled;
+    private final long ttlNanos;
+    private final long negativeTtlNanos;
+    private final Cache<String, ValidationOutcome> outcomes;
+
+    // Fintoc validation id -> account number, so webhooks can find the entry to drop
+    private final ConcurrentMap<String, String> accountsByValidationId = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ValidationResultCache(ValidationCacheConfig config, MeterRegistry meterRegistry) {
+        this.enabled = config.isEnabled();
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(config.getTtlSeconds());
+        this.negativeTtlNanos = TimeUnit.SECONDS.toNanos(config.getNegativeTtlSeconds());
+        this.outcomes = Caffeine.newBuilder()
+            .maximumSize(config.getMaxEntries())
+            .expireAfter(new OutcomeExpiry())
+            .removalListener((String accountId, ValidationOutcome outcome, RemovalCause cause) -> {
+                String validationId = validationId(outcome);
+                if (validationId != null) {
+                    accountsByValidationId.remove(validationId, accountId);
+                }
+            })
+            .recordStats()
+            .build();
+
+        // Exposes hits, misses, evictions and size as cache.* meters tagged cache=fintoc.validation
+        CaffeineCacheMetrics.monitor(meterRegistry, outcomes, "fintoc.validation");
+    }
+
+    /**
+     * Cached outcome for this account, or null if there is none or it expired
+     */
+    public ValidationOutcome get(String accountId) {
+        if (!enabled || accountId == null) {
+            return null;
+        }
+        return outcomes.getIfPresent(accountId);
+    }
+
+    /**
+     * Remember an outcome if its kind is cacheable
+     */
+    public void put(ValidationOutcome outcome) {
+        if (!enabled || outcome.getAccountId() == null || ttlFor(outcome) <= 0) {
+            return;
+        }
+        String validationId = validationId(outcome);
+        if (validationId != null) {
+            accountsByValidationId.put(validationId, outcome.getAccountId());
+        }
+        outcomes.put(outcome.getAccountId(), outcome);
+    }
+
+    /**
+     * Drop the entry holding this Fintoc validation, e.g. after a webhook changed its status
+     */
+    public void invalidateByValidationId(String validationId) {
+        if (validationId == null) {
+            return;
+        }
+        String accountId = accountsByValidationId.remove(validationId);
+        if (accountId != null) {
+            outcomes.invalidate(accountId);
+            logger.info("Invalidated cached validation {} for account {}", validationId, accountId);
+        }
+    }
+
+    public void invalidateAccount(String accountId) {
+        if (accountId != null) {
+            outcomes.invalidate(accountId);
+        }
+    }
+
+    private long ttlFor(ValidationOutcome outcome) {
+        if (outcome.getFailure() != null) {
+            return 0;
+        }
+        int status = outcome.getHttpStatus();
+        if (status >= 200 && status < 300) {
+            return ttlNanos;
+        }
+        // 408 and 429 are transient; any other 4xx is a stable answer about the account
+        if (status >= 400 && status < 500 && status != 408 && status != 429) {
+            return negativeTtlNanos;
+        }
+        return 0;
+    }
+
+    private static String validationId(ValidationOutcome outcome) {
+        AccountValidationResponse response = outcome.getResponse();
+        return response != null ? response.getId() : null;
+    }
+
+    private class OutcomeExpiry implements Expiry<String, ValidationOutcome> {
+
+        @Override
+        public long expireAfterCreate(String accountId, ValidationOutcome outcome, long currentTime) {
+            return ttlFor(outcome);
+        }
+
+        @Override
+        public long expireAfterUpdate(String accountId, ValidationOutcome outcome, long currentTime,
+                                      long currentDuration) {
+            return ttlFor(outcome);
+        }
+
+        @Override
+        public long expireAfterRead(String accountId, ValidationOutcome outcome, long currentTime,
+                                    long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
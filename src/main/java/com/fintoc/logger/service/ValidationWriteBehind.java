@@ -0,0 +1,285 @@
+package com.fintoc.logger.service;
+
+import com.fintoc.logger.config.PersistenceConfig;
+import com.fintoc.logger.entity.AccountValidationLog;
+import com.fintoc.logger.entity.AccountValidationResponse;
+import com.fintoc.logger.repository.AccountValidationResponseRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind stage for single validations.
+ * Outcomes are queued and a single writer thread stores them in batches of account_validation
+ * and logsbook rows, so callers get their answer without waiting for the database.
+ * When the queue is full producers wait up to offer-timeout-ms and then write their rows
+ * themselves, which slows new calls down instead of dropping rows. Everything still
+ * queued is written on shutdown.
+ */
+@Service
+public class ValidationWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(ValidationWriteBehind.class);
+    private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final AccountValidationResponseRepository responseRepository;
+    private final AccountValidationLogService validationLogService;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Queued> queue;
+    private final int flushSize;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutMs;
+    private final Thread writer;
+    private final Counter writtenRows;
+    private final Counter overflowWrites;
+    private final Timer persistTimer;
+
+    // Queued or being written; guarded by this
+    private long unwritten;
+    private volatile boolean stopping;
+
+    @Autowired
+    public ValidationWriteBehind(PersistenceConfig config,
+                                 AccountValidationResponseRepository responseRepository,
+                                 AccountValidationLogService validationLogService,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry) {
+        this.responseRepository = responseRepository;
+        this.validationLogService = validationLogService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, config.getQueueCapacity()));
+        this.flushSize = Math.max(1, config.getFlushSize());
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMs());
+        this.offerTimeoutMs = config.getOfferTimeoutMs();
+
+        Gauge.builder("fintoc.persistence.queued", queue, BlockingQueue::size)
+            .description("Validation outcomes waiting to be written")
+            .register(meterRegistry);
+        this.writtenRows = Counter.builder("fintoc.persistence.written")
+            .description("Validation outcomes written by the write-behind stage")
+            .register(meterRegistry);
+        this.overflowWrites = Counter.builder("fintoc.persistence.overflow")
+            .description("Validation outcomes written by the producer because the queue was full")
+            .register(meterRegistry);
+        this.persistTimer = FintocApiService.phaseTimer(meterRegistry, "persist");
+
+        this.writer = new Thread(this::drainLoop, "fintoc-write-behind");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queue an outcome for writing. Blocks only while the queue is full, for at most
+     * offer-timeout-ms; after that the rows are written on the calling thread.
+     */
+    public void submit(ValidationOutcome outcome) {
+        if (outcome.getLog() == null && outcome.getResponse() == null) {
+            return;
+        }
+        adjustUnwritten(1);
+        Queued entry = new Queued(outcome);
+        boolean queued = false;
+        if (!stopping) {
+            try {
+                queued = queue.offer(entry, offerTimeoutMs, TimeUnit.MILLISECONDS);
+                // Shutdown began meanwhile and the writer may be gone: take it back unless already drained
+                if (queued && stopping && queue.remove(entry)) {
+                    queued = false;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!queued) {
+            overflowWrites.increment();
+            writeQueued(Collections.singletonList(entry));
+            adjustUnwritten(-1);
+        }
+    }
+
+    /**
+     * Block until everything submitted so far has been written, or the timeout passes
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            while (unwritten > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        stopping = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Writer did not finish in time (or was never reached): write what is left here
+        List<Queued> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            logger.warn("Writing {} queued validation outcomes during shutdown", remaining.size());
+            writeQueued(remaining);
+            adjustUnwritten(-remaining.size());
+        }
+    }
+
+    private void drainLoop() {
+        List<Queued> batch = new ArrayList<>(flushSize);
+        while (!stopping || !queue.isEmpty()) {
+            try {
+                Queued first = queue.poll(POLL_NANOS, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < flushSize && !stopping) {
+                    queue.drainTo(batch, flushSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= flushSize || remaining <= 0) {
+                        break;
+                    }
+                    // Short waits so a shutdown is noticed without waiting out the interval
+                    Queued next = queue.poll(Math.min(remaining, POLL_NANOS), TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Only interrupted on shutdown; write what we have and keep draining
+                stopping = true;
+            }
+            if (!batch.isEmpty()) {
+                writeQueued(batch);
+                adjustUnwritten(-batch.size());
+                batch = new ArrayList<>(flushSize);
+            }
+        }
+    }
+
+    /**
+     * Store the responses and log rows of several validations in one transaction
+     */
+    public void writeBatch(List<ValidationOutcome> outcomes) {
+        transactionTemplate.executeWithoutResult(status -> insertAll(outcomes));
+        writtenRows.increment(outcomes.size());
+    }
+
+    /**
+     * Write queued outcomes as one batch; if it fails (e.g. one duplicate row) write each on
+     * its own, so one bad row does not lose the others. Time spent queued goes on each log row.
+     */
+    private void writeQueued(List<Queued> entries) {
+        long batchStart = System.nanoTime();
+        List<ValidationOutcome> outcomes = new ArrayList<>(entries.size());
+        for (Queued entry : entries) {
+            AccountValidationLog log = entry.outcome.getLog();
+            if (log != null) {
+                log.setPersistWaitTimeUs(TimeUnit.NANOSECONDS.toMicros(batchStart - entry.queuedAtNanos));
+            }
+            outcomes.add(entry.outcome);
+        }
+        try {
+            writeBatch(outcomes);
+        } catch (Exception e) {
+            logger.error("Batch write of {} validation outcomes failed, writing them one by one: {}",
+                        outcomes.size(), e.getMessage());
+            for (ValidationOutcome outcome : outcomes) {
+                writeOne(outcome);
+            }
+            writtenRows.increment(outcomes.size());
+        }
+        long writtenAt = System.nanoTime();
+        for (Queued entry : entries) {
+            persistTimer.record(writtenAt - entry.queuedAtNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Store the response and log row of a single validation.
+     * Database problems are logged but never thrown.
+     */
+    public void writeOne(ValidationOutcome outcome) {
+        AccountValidationResponse validationResponse = outcome.getResponse();
+        if (validationResponse != null) {
+            try {
+                responseRepository.save(validationResponse);
+                logger.info("Saved AccountValidationResponse to database: {}", validationResponse.getId());
+            } catch (Exception e) {
+                logger.error("Failed to save AccountValidationResponse to database: {}", e.getMessage());
+            }
+        }
+
+        if (outcome.getLog() == null) {
+            return;
+        }
+        try {
+            validationLogService.saveValidationLog(outcome.getLog());
+        } catch (Exception e) {
+            logger.error("Failed to save validation log for account {}: {}", outcome.getAccountId(), e.getMessage());
+        }
+    }
+
+    /**
+     * account_validation and logsbook rows are both sent as JDBC batches; logsbook ids come
+     * from a pooled sequence rather than IDENTITY, which would disable Hibernate batching.
+     */
+    private void insertAll(List<ValidationOutcome> outcomes) {
+        List<AccountValidationResponse> responses = new ArrayList<>(outcomes.size());
+        List<AccountValidationLog> logs = new ArrayList<>(outcomes.size());
+        for (ValidationOutcome outcome : outcomes) {
+            AccountValidationResponse validationResponse = outcome.getResponse();
+            if (validationResponse != null && validationResponse.getId() != null) {
+                responses.add(validationResponse);
+            }
+            if (outcome.getLog() != null) {
+                logs.add(outcome.getLog());
+            }
+        }
+
+        responseRepository.saveAll(responses);
+        validationLogService.saveValidationLogs(logs);
+        logger.info("Saved batch of {} validation logs and {} responses", logs.size(), responses.size());
+    }
+
+    private synchronized void adjustUnwritten(long delta) {
+        unwritten += delta;
+        if (unwritten <= 0) {
+            notifyAll();
+        }
+    }
+
+    private static class Queued {
+
+        private final ValidationOutcome outcome;
+        private final long queuedAtNanos = System.nanoTime();
+
+        Queued(ValidationOutcome outcome) {
+            this.outcome = outcome;
+        }
+    }
+}
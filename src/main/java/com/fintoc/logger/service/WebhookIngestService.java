@@ -0,0 +1,335 @@
+package com.fintoc.logger.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintoc.logger.config.WebhookIngestConfig;
+import com.fintoc.logger.entity.WebhookLog;
+import com.fintoc.logger.repository.WebhookLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fast-ack ingestion of Fintoc webhooks (fintoc.webhook.ingest.enabled).
+ * A verified webhook is appended to the local journal and acknowledged straight away; one worker
+ * thread reads the journal in order, stores the webhooks in batches and then moves the journal's
+ * checkpoint past them. Whatever was journaled but not stored when the process stopped is stored
+ * after the next start. A webhook stored twice that way is skipped by the unique event_id.
+ */
+@Service
+public class WebhookIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookIngestService.class);
+    private static final long POLL_MS = 100;
+
+    private final WebhookService webhookService;
+    private final ObjectMapper objectMapper;
+    private final WebhookLogRepository webhookLogRepository;
+    private final WebhookIngestConfig.Fsync fsync;
+    private final int batchSize;
+    private final long retryBackoffMs;
+    private final WebhookJournal journal;
+    private final Thread worker;
+    private final Counter acceptedWebhooks;
+    private final Counter storedWebhooks;
+    private final Counter skippedWebhooks;
+
+    // Journaled and not stored yet; guarded by this
+    private long pending;
+    private volatile boolean stopping;
+
+    @Autowired
+    public WebhookIngestService(WebhookIngestConfig config,
+                                WebhookService webhookService,
+                                ObjectMapper objectMapper,
+                                WebhookLogRepository webhookLogRepository,
+                                MeterRegistry meterRegistry) {
+        this.webhookService = webhookService;
+        this.objectMapper = objectMapper;
+        this.webhookLogRepository = webhookLogRepository;
+        this.fsync = config.getFsync();
+        this.batchSize = Math.max(1, config.getBatchSize());
+        this.retryBackoffMs = config.getRetryBackoffMs();
+
+        Gauge.builder("fintoc.webhook.ingest.pending", this, WebhookIngestService::getPending)
+            .description("Webhooks acknowledged and journaled but not stored yet")
+            .register(meterRegistry);
+        this.acceptedWebhooks = Counter.builder("fintoc.webhook.ingest.accepted")
+            .description("Webhooks acknowledged after being journaled")
+            .register(meterRegistry);
+        this.storedWebhooks = Counter.builder("fintoc.webhook.ingest.stored")
+            .description("Journaled webhooks stored in webhook_log")
+            .register(meterRegistry);
+        this.skippedWebhooks = Counter.builder("fintoc.webhook.ingest.skipped")
+            .description("Journaled webhooks not stored because they were already stored or not valid JSON")
+            .register(meterRegistry);
+
+        if (!config.isEnabled()) {
+            this.journal = null;
+            this.worker = null;
+            return;
+        }
+        try {
+            this.journal = new WebhookJournal(Paths.get(config.getJournalDir()),
+                (int) Math.min(Integer.MAX_VALUE, config.getSegmentSize().toBytes()), fsync);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open webhook journal in " + config.getJournalDir(), e);
+        }
+        this.pending = journal.countUnread();
+        if (pending > 0) {
+            logger.info("Replaying {} journaled webhooks not stored before the last shutdown", pending);
+        }
+        logger.info("Webhook fast-ack ingestion enabled, journal in {} (fsync {})", config.getJournalDir(), fsync);
+
+        this.worker = new Thread(this::ingestLoop, "fintoc-webhook-ingest");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    public boolean isEnabled() {
+        return journal != null;
+    }
+
+    /**
+     * Journal a verified webhook for storing in the background.
+     * @return false if it could not be journaled; the caller should then process it itself
+     */
+    public boolean accept(String signatureHeader, byte[] rawBody) {
+        if (journal == null || stopping) {
+            return false;
+        }
+        adjustPending(1);
+        try {
+            journal.append(signatureHeader, rawBody);
+            acceptedWebhooks.increment();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            adjustPending(-1);
+            logger.error("Could not journal webhook: {}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Block until everything journaled so far has been stored, or the timeout passes
+     */
+    public boolean flush(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            while (pending > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * With fsync INTERVAL, write the journal through to the disk every fsync-interval-ms
+     */
+    @Scheduled(fixedDelayString = "${fintoc.webhook.ingest.fsync-interval-ms:100}")
+    public void syncJournal() {
+        if (journal == null || stopping || fsync != WebhookIngestConfig.Fsync.INTERVAL) {
+            return;
+        }
+        try {
+            journal.force();
+        } catch (IOException e) {
+            logger.error("Failed to sync webhook journal: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (journal == null) {
+            return;
+        }
+        stopping = true;
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (pending > 0) {
+                logger.info("{} journaled webhooks not stored yet, they are stored after the next start", pending);
+            }
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.error("Failed to close webhook journal: {}", e.getMessage());
+        }
+    }
+
+    private synchronized long getPending() {
+        return pending;
+    }
+
+    private void ingestLoop() {
+        while (!stopping) {
+            List<WebhookJournal.Entry> batch = journal.read(batchSize);
+            if (batch.isEmpty()) {
+                try {
+                    journal.awaitData(POLL_MS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                continue;
+            }
+            // Until the database takes them; on shutdown they stay in the journal for the next start
+            while (!store(batch)) {
+                if (stopping || !sleep(retryBackoffMs)) {
+                    return;
+                }
+            }
+            try {
+                journal.commit(batch.get(batch.size() - 1));
+            } catch (IOException e) {
+                // They are stored; at worst they are read again after a restart and skipped as duplicates
+                logger.error("Failed to move webhook journal checkpoint: {}", e.getMessage());
+            }
+            adjustPending(-batch.size());
+        }
+    }
+
+    /**
+     * Store journaled webhooks in one transaction; if that fails store each on its own, so one
+     * duplicate event does not hold up the others.
+     * @return false if the database could not be reached or refused a webhook that is not stored
+     *         yet, and the batch should be tried again
+     */
+    private boolean store(List<WebhookJournal.Entry> batch) {
+        List<Parsed> parsed = new ArrayList<>(batch.size());
+        Set<String> batchEventIds = new HashSet<>();
+        for (WebhookJournal.Entry entry : batch) {
+            JsonNode data;
+            try {
+                data = objectMapper.readTree(entry.getBody());
+            } catch (IOException e) {
+                // Signed by Fintoc but not JSON; nothing to store, and retrying will not change that
+                logger.error("Skipping journaled webhook that is not valid JSON: {}", e.getMessage());
+                skippedWebhooks.increment();
+                continue;
+            }
+            // Redeliveries stored recently or earlier in this batch would only fail the batch;
+            // webhooks without an id are left to the database, like RecentWebhookEvents does
+            String eventId = data.path("id").asText();
+            boolean repeatedInBatch = !eventId.isEmpty() && !batchEventIds.add(eventId);
+            if (repeatedInBatch || webhookService.isDuplicate(eventId)) {
+                logger.debug("Skipping journaled webhook {}, already stored", eventId);
+                skippedWebhooks.increment();
+                continue;
+            }
+            parsed.add(new Parsed(entry, data));
+        }
+
+        List<WebhookLog> logs = toWebhookLogs(parsed);
+        try {
+            webhookService.saveWebhookLogs(logs);
+        } catch (RuntimeException e) {
+            logger.warn("Batch store of {} journaled webhooks failed, storing them one by one: {}",
+                logs.size(), e.getMessage());
+            return storeOneByOne(parsed);
+        }
+        for (WebhookLog webhookLog : logs) {
+            webhookService.afterStored(webhookLog);
+        }
+        storedWebhooks.increment(logs.size());
+        logger.debug("Stored {} journaled webhooks", logs.size());
+        return true;
+    }
+
+    private boolean storeOneByOne(List<Parsed> parsed) {
+        // Fresh entities: the ones from the rolled back batch may carry ids that were never committed
+        for (WebhookLog webhookLog : toWebhookLogs(parsed)) {
+            try {
+                webhookLogRepository.save(webhookLog);
+            } catch (DataIntegrityViolationException e) {
+                // Only a stored event_id makes it safe to move the journal past this webhook
+                if (!isStored(webhookLog.getEventId())) {
+                    logger.error("Failed to store journaled webhook {}, keeping it in the journal and retrying in {}ms: {}",
+                        webhookLog.getEventId(), retryBackoffMs, e.getMessage());
+                    return false;
+                }
+                logger.warn("Skipping journaled webhook {}, already stored", webhookLog.getEventId());
+                webhookService.recordRedelivery(webhookLog.getEventId());
+                skippedWebhooks.increment();
+                continue;
+            } catch (RuntimeException e) {
+                logger.error("Failed to store journaled webhook {}, retrying in {}ms: {}",
+                    webhookLog.getEventId(), retryBackoffMs, e.getMessage());
+                return false;
+            }
+            webhookService.afterStored(webhookLog);
+            storedWebhooks.increment();
+        }
+        return true;
+    }
+
+    private boolean isStored(String eventId) {
+        try {
+            return webhookLogRepository.existsByEventId(eventId);
+        } catch (RuntimeException e) {
+            logger.error("Could not check whether webhook {} is stored: {}", eventId, e.getMessage());
+            return false;
+        }
+    }
+
+    private List<WebhookLog> toWebhookLogs(List<Parsed> parsed) {
+        List<WebhookLog> logs = new ArrayList<>(parsed.size());
+        for (Parsed webhook : parsed) {
+            logs.add(webhookService.toWebhookLog(webhook.data, webhook.entry.getSignatureHeader(),
+                new String(webhook.entry.getBody(), StandardCharsets.UTF_8)));
+        }
+        return logs;
+    }
+
+    private boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private synchronized void adjustPending(long delta) {
+        pending += delta;
+        if (pending <= 0) {
+            notifyAll();
+        }
+    }
+
+    private static class Parsed {
+
+        private final WebhookJournal.Entry entry;
+        private final JsonNode data;
+
+        Parsed(WebhookJournal.Entry entry, JsonNode data) {
+            this.entry = entry;
+            this.data = data;
+        }
+    }
+}
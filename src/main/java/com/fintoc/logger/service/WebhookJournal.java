@@ -0,0 +1,380 @@
+package com.fintoc.logger.service;
+
+import com.fintoc.logger.config.WebhookIngestConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of received webhooks, in memory-mapped segment files.
+ * Each record is [payload length][CRC32 of payload][signature header length][signature header][body].
+ * One reader (the ingest worker) walks the records in order and commits what it has stored; the
+ * commit position is kept in a checkpoint file, segments before it are deleted, and everything
+ * after it is read again when the journal is opened after a restart. A record cut short by a
+ * crash fails its CRC and is dropped, so it was never acknowledged either.
+ * Appends may come from any thread; read, awaitData and commit from the reader only.
+ */
+final class WebhookJournal implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookJournal.class);
+    private static final String SEGMENT_PREFIX = "webhooks-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final WebhookIngestConfig.Fsync fsync;
+    private final FileChannel checkpointChannel;
+    // Segments from the committed one to the one being appended to; guarded by this
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+    private Segment appendSegment;
+    private int appendOffset;
+
+    // Reader position; only touched by the reader
+    private long readSequence;
+    private int readOffset;
+
+    WebhookJournal(Path directory, int segmentSize, WebhookIngestConfig.Fsync fsync) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.fsync = fsync;
+        Files.createDirectories(directory);
+        this.checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        ByteBuffer checkpoint = ByteBuffer.allocate(12);
+        boolean hasCheckpoint = checkpointChannel.read(checkpoint, 0) == 12;
+        long committedSequence = hasCheckpoint ? checkpoint.getLong(0) : 0;
+        int committedOffset = hasCheckpoint ? checkpoint.getInt(8) : 0;
+
+        for (Map.Entry<Long, Path> file : listSegments().entrySet()) {
+            if (file.getKey() < committedSequence) {
+                // Fully stored before the last shutdown but not deleted yet
+                Files.deleteIfExists(file.getValue());
+            } else {
+                segments.put(file.getKey(), Segment.open(file.getKey(), file.getValue(), 0));
+            }
+        }
+        if (segments.isEmpty()) {
+            segments.put(committedSequence, Segment.open(committedSequence, segmentPath(committedSequence), segmentSize));
+            committedOffset = 0;
+        }
+        for (Segment segment : segments.values()) {
+            segment.published = segment.validEnd();
+            segment.sealed = segment != segments.lastEntry().getValue();
+        }
+        appendSegment = segments.lastEntry().getValue();
+        appendOffset = appendSegment.published;
+        appendSegment.clearFrom(appendOffset);
+
+        readSequence = segments.firstKey();
+        readOffset = readSequence == committedSequence ? Math.min(committedOffset, segments.firstEntry().getValue().published) : 0;
+    }
+
+    /**
+     * Append one webhook. Returns once it is in the journal (and on disk, with fsync ALWAYS).
+     */
+    void append(String signatureHeader, byte[] body) throws IOException {
+        byte[] signature = signatureHeader != null ? signatureHeader.getBytes(StandardCharsets.UTF_8) : new byte[0];
+        int payloadLength = 4 + signature.length + body.length;
+        CRC32 crc = new CRC32();
+        crc.update(intBytes(signature.length));
+        crc.update(signature);
+        crc.update(body);
+
+        synchronized (this) {
+            if (appendOffset + HEADER_BYTES + payloadLength > appendSegment.capacity()) {
+                roll(HEADER_BYTES + payloadLength);
+            }
+            ByteBuffer view = appendSegment.writeView;
+            view.position(appendOffset);
+            view.putInt(payloadLength).putInt((int) crc.getValue()).putInt(signature.length).put(signature).put(body);
+            if (fsync == WebhookIngestConfig.Fsync.ALWAYS) {
+                appendSegment.buffer.force();
+            }
+            appendOffset += HEADER_BYTES + payloadLength;
+            appendSegment.published = appendOffset;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Up to max records after the reader's position, moving the position past them
+     */
+    List<Entry> read(int max) {
+        List<Entry> entries = new ArrayList<>();
+        while (entries.size() < max) {
+            Segment segment = segment(readSequence);
+            if (readOffset < segment.published) {
+                Entry entry = segment.readEntry(readSequence, readOffset);
+                if (entry == null) {
+                    logger.error("Corrupt record in webhook journal segment {} at {}, skipping the rest of it",
+                        readSequence, readOffset);
+                    readOffset = segment.published;
+                    continue;
+                }
+                entries.add(entry);
+                readOffset = entry.endOffset;
+            } else if (segment.sealed) {
+                readSequence++;
+                readOffset = 0;
+            } else {
+                break;
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Wait up to timeoutMs for a record after the reader's position
+     */
+    synchronized void awaitData(long timeoutMs) throws InterruptedException {
+        if (readSequence == appendSegment.sequence && readOffset >= appendOffset) {
+            wait(timeoutMs);
+        }
+    }
+
+    /**
+     * Records up to and including this one are stored: move the checkpoint past it and delete
+     * the segments before it
+     */
+    void commit(Entry last) throws IOException {
+        ByteBuffer checkpoint = ByteBuffer.allocate(12);
+        checkpoint.putLong(0, last.sequence).putInt(8, last.endOffset);
+        checkpointChannel.write(checkpoint, 0);
+        if (fsync == WebhookIngestConfig.Fsync.ALWAYS) {
+            checkpointChannel.force(false);
+        }
+
+        List<Segment> done = new ArrayList<>();
+        synchronized (this) {
+            while (segments.firstKey() < last.sequence) {
+                done.add(segments.pollFirstEntry().getValue());
+            }
+        }
+        for (Segment segment : done) {
+            segment.channel.close();
+            try {
+                Files.deleteIfExists(segmentPath(segment.sequence));
+            } catch (IOException e) {
+                // Still mapped on some platforms; it is behind the checkpoint and goes at the next start
+                logger.debug("Could not delete webhook journal segment {}: {}", segment.sequence, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Records appended and not yet read
+     */
+    int countUnread() {
+        int count = 0;
+        long sequence = readSequence;
+        int offset = readOffset;
+        while (true) {
+            Segment segment = segment(sequence);
+            if (offset < segment.published) {
+                Entry entry = segment.readEntry(sequence, offset);
+                if (entry == null) {
+                    offset = segment.published;
+                    continue;
+                }
+                count++;
+                offset = entry.endOffset;
+            } else if (segment.sealed) {
+                sequence++;
+                offset = 0;
+            } else {
+                return count;
+            }
+        }
+    }
+
+    /**
+     * Write appended records and the checkpoint through to the disk
+     */
+    void force() throws IOException {
+        Segment segment;
+        synchronized (this) {
+            segment = appendSegment;
+        }
+        segment.buffer.force();
+        checkpointChannel.force(false);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (fsync != WebhookIngestConfig.Fsync.NEVER) {
+            force();
+        }
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+        checkpointChannel.close();
+    }
+
+    private void roll(int recordBytes) throws IOException {
+        long sequence = appendSegment.sequence + 1;
+        Segment next = Segment.open(sequence, segmentPath(sequence), Math.max(segmentSize, recordBytes));
+        if (fsync != WebhookIngestConfig.Fsync.NEVER) {
+            appendSegment.buffer.force();
+        }
+        segments.put(sequence, next);
+        // Sealed only once the next segment exists, so a reader at the end of this one can move on
+        appendSegment.sealed = true;
+        appendSegment = next;
+        appendOffset = 0;
+    }
+
+    private synchronized Segment segment(long sequence) {
+        return segments.get(sequence);
+    }
+
+    private Map<Long, Path> listSegments() throws IOException {
+        Map<Long, Path> files = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                files.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())), path);
+            }
+        }
+        return files;
+    }
+
+    private Path segmentPath(long sequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX));
+    }
+
+    private static byte[] intBytes(int value) {
+        return ByteBuffer.allocate(4).putInt(value).array();
+    }
+
+    /**
+     * One journaled webhook, and where the record after it starts
+     */
+    static final class Entry {
+
+        private final long sequence;
+        private final int endOffset;
+        private final String signatureHeader;
+        private final byte[] body;
+
+        Entry(long sequence, int endOffset, String signatureHeader, byte[] body) {
+            this.sequence = sequence;
+            this.endOffset = endOffset;
+            this.signatureHeader = signatureHeader;
+            this.body = body;
+        }
+
+        String getSignatureHeader() {
+            return signatureHeader;
+        }
+
+        byte[] getBody() {
+            return body;
+        }
+    }
+
+    private static final class Segment {
+
+        private final long sequence;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        // Separate views so the writer's and the reader's positions do not interfere
+        private final ByteBuffer writeView;
+        private final ByteBuffer readView;
+        // End of the last complete record; written under the journal's lock
+        private volatile int published;
+        // No more records will be appended to this segment
+        private volatile boolean sealed;
+
+        private Segment(long sequence, FileChannel channel, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.channel = channel;
+            this.buffer = buffer;
+            this.writeView = buffer.duplicate();
+            this.readView = buffer.duplicate();
+        }
+
+        /**
+         * Map a segment file, creating it with size bytes if it does not exist yet
+         */
+        static Segment open(long sequence, Path path, int size) throws IOException {
+            FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long length = Math.max(channel.size(), size);
+            return new Segment(sequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, length));
+        }
+
+        int capacity() {
+            return buffer.capacity();
+        }
+
+        /**
+         * The record at offset, or null if it is incomplete or fails its CRC
+         */
+        Entry readEntry(long sequence, int offset) {
+            if (offset + HEADER_BYTES + 4 > readView.capacity()) {
+                return null;
+            }
+            int payloadLength = readView.getInt(offset);
+            if (payloadLength < 4 || offset + HEADER_BYTES + payloadLength > readView.capacity()) {
+                return null;
+            }
+            byte[] payload = new byte[payloadLength];
+            readView.position(offset + HEADER_BYTES);
+            readView.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            int signatureLength = ByteBuffer.wrap(payload).getInt();
+            if ((int) crc.getValue() != readView.getInt(offset + 4)
+                    || signatureLength < 0 || signatureLength > payloadLength - 4) {
+                return null;
+            }
+            String signatureHeader = signatureLength > 0
+                ? new String(payload, 4, signatureLength, StandardCharsets.UTF_8) : null;
+            byte[] body = new byte[payloadLength - 4 - signatureLength];
+            System.arraycopy(payload, 4 + signatureLength, body, 0, body.length);
+            return new Entry(sequence, offset + HEADER_BYTES + payloadLength, signatureHeader, body);
+        }
+
+        /**
+         * End of the complete records from the start of the segment
+         */
+        int validEnd() {
+            int offset = 0;
+            Entry entry;
+            while ((entry = readEntry(sequence, offset)) != null) {
+                offset = entry.endOffset;
+            }
+            return offset;
+        }
+
+        /**
+         * Zero what a torn append left after offset, so it cannot be taken for a record later
+         */
+        void clearFrom(int offset) {
+            // Only after a crash mid-append; a clean segment is all zeros past its last record
+            if (offset + 4 <= buffer.capacity() && buffer.getInt(offset) != 0) {
+                for (int i = offset; i < buffer.capacity(); i++) {
+                    buffer.put(i, (byte) 0);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,388 @@
+package com.fintoc.logger.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintoc.logger.config.WebhookReplayConfig;
+import com.fintoc.logger.entity.WebhookLog;
+import com.fintoc.logger.repository.WebhookLogRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays stored webhooks: re-parses raw_body and rewrites the columns derived from it, for rows
+ * that were never processed (or also those that failed). Rows are read by id with keyset
+ * pagination, re-parsed in parallel on a bounded pool and updated in batches of
+ * update-batch-size, no faster than the rate asked for. After each page the last id is written
+ * to the checkpoint file, so a stopped or crashed run picks up from there; replaying a row twice
+ * gives the same row, so redoing part of a page after a crash is harmless. One run at a time.
+ */
+@Service
+public class WebhookReplayService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebhookReplayService.class);
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    public enum Scope {
+        // processed = false
+        UNPROCESSED,
+        // processed = false or status = 'failed'
+        FAILED
+    }
+
+    private final WebhookLogRepository webhookLogRepository;
+    private final WebhookService webhookService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final WebhookReplayConfig config;
+    private final Path checkpointFile;
+    private final Counter replayedRows;
+    private final Counter failedRows;
+
+    // Guarded by this
+    private Run run;
+
+    @Autowired
+    public WebhookReplayService(WebhookReplayConfig config,
+                                WebhookLogRepository webhookLogRepository,
+                                WebhookService webhookService,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry) {
+        this.config = config;
+        this.webhookLogRepository = webhookLogRepository;
+        this.webhookService = webhookService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.checkpointFile = Paths.get(config.getCheckpointFile());
+        this.replayedRows = Counter.builder("fintoc.webhook.replay.replayed")
+            .description("Stored webhooks re-parsed and updated by a replay")
+            .register(meterRegistry);
+        this.failedRows = Counter.builder("fintoc.webhook.replay.failed")
+            .description("Stored webhooks a replay could not re-parse")
+            .register(meterRegistry);
+    }
+
+    /**
+     * Start a replay in the background, from the checkpoint unless restart is set.
+     * @param rate rows per second, null for default-rate
+     * @param concurrency worker threads, null for default-concurrency
+     * @throws IllegalStateException if a replay is already running
+     */
+    public synchronized Map<String, Object> start(Scope scope, Integer rate, Integer concurrency, boolean restart) {
+        int runRate = rate != null ? rate : config.getDefaultRate();
+        int runConcurrency = concurrency != null ? concurrency : config.getDefaultConcurrency();
+        if (runRate < 1 || runRate > config.getMaxRate()) {
+            throw new IllegalArgumentException("rate must be between 1 and " + config.getMaxRate());
+        }
+        if (runConcurrency < 1 || runConcurrency > config.getMaxConcurrency()) {
+            throw new IllegalArgumentException("concurrency must be between 1 and " + config.getMaxConcurrency());
+        }
+        if (run != null && run.isRunning()) {
+            throw new IllegalStateException("A webhook replay is already running");
+        }
+
+        long afterId = restart ? 0 : readCheckpoint(scope);
+        run = new Run(scope, runRate, runConcurrency, afterId);
+        logger.info("Starting {} webhook replay after id {} at {} rows/s with {} workers",
+            scope, afterId, runRate, runConcurrency);
+        run.start();
+        return run.toStatus();
+    }
+
+    /**
+     * The current or last replay, or state idle if there was none since startup
+     */
+    public synchronized Map<String, Object> status() {
+        if (run == null) {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("state", "idle");
+            return status;
+        }
+        return run.toStatus();
+    }
+
+    /**
+     * Ask the running replay to stop after the chunks it is on; it keeps its checkpoint
+     * @return false if no replay was running
+     */
+    public synchronized boolean stop() {
+        if (run == null || !run.isRunning()) {
+            return false;
+        }
+        run.stopRequested = true;
+        return true;
+    }
+
+    /**
+     * Wait for the current replay to finish (tests)
+     */
+    boolean awaitFinished(long timeout, TimeUnit unit) throws InterruptedException {
+        Run current;
+        synchronized (this) {
+            current = run;
+        }
+        if (current == null) {
+            return true;
+        }
+        current.coordinator.join(unit.toMillis(timeout));
+        return !current.coordinator.isAlive();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        Run current;
+        synchronized (this) {
+            current = run;
+            if (current == null || !current.isRunning()) {
+                return;
+            }
+            current.stopRequested = true;
+        }
+        try {
+            current.coordinator.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Re-parse and update one chunk of rows in one transaction; the updates go out as one JDBC batch
+     */
+    private void replayChunk(Run current, List<Long> ids) {
+        List<WebhookLog> replayed = new ArrayList<>(ids.size());
+        int failed = transactionTemplate.execute(transaction -> {
+            int unparseable = 0;
+            for (WebhookLog webhookLog : webhookLogRepository.findAllById(ids)) {
+                JsonNode data = parse(webhookLog);
+                if (data == null) {
+                    // Left as it is, so it still shows up under /webhook-logs/unprocessed
+                    unparseable++;
+                    continue;
+                }
+                webhookService.applyEventColumns(webhookLog, data);
+                webhookLog.setProcessed(true);
+                replayed.add(webhookLog);
+            }
+            return unparseable;
+        });
+        for (WebhookLog webhookLog : replayed) {
+            webhookService.afterStored(webhookLog);
+        }
+        replayedRows.increment(replayed.size());
+        failedRows.increment(failed);
+        current.rowsReplayed.addAndGet(replayed.size());
+        current.rowsFailed.addAndGet(failed);
+    }
+
+    private JsonNode parse(WebhookLog webhookLog) {
+        if (webhookLog.getRawBody() == null) {
+            logger.warn("Cannot replay webhook log {}, it has no raw body", webhookLog.getId());
+            return null;
+        }
+        try {
+            return objectMapper.readTree(webhookLog.getRawBody());
+        } catch (IOException e) {
+            logger.warn("Cannot replay webhook log {}, raw body is not valid JSON: {}", webhookLog.getId(), e.getMessage());
+            return null;
+        }
+    }
+
+    private List<Long> nextPage(Scope scope, long afterId) {
+        PageRequest page = PageRequest.of(0, Math.max(1, config.getPageSize()));
+        return scope == Scope.FAILED
+            ? webhookLogRepository.findFailedIdsAfter(afterId, page)
+            : webhookLogRepository.findUnprocessedIdsAfter(afterId, page);
+    }
+
+    private long readCheckpoint(Scope scope) {
+        if (!Files.exists(checkpointFile)) {
+            return 0;
+        }
+        Properties checkpoint = new Properties();
+        try (InputStream in = Files.newInputStream(checkpointFile)) {
+            checkpoint.load(in);
+            return Long.parseLong(checkpoint.getProperty(scope.name().toLowerCase() + ".last-id", "0"));
+        } catch (IOException | NumberFormatException e) {
+            logger.warn("Cannot read webhook replay checkpoint {}, starting from the first row: {}",
+                checkpointFile, e.getMessage());
+            return 0;
+        }
+    }
+
+    private void writeCheckpoint(Scope scope, long lastId) throws IOException {
+        Properties checkpoint = new Properties();
+        if (Files.exists(checkpointFile)) {
+            try (InputStream in = Files.newInputStream(checkpointFile)) {
+                checkpoint.load(in);
+            }
+        }
+        checkpoint.setProperty(scope.name().toLowerCase() + ".last-id", String.valueOf(lastId));
+        Path dir = checkpointFile.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        // Write a new file and move it over the old one, so a crash never leaves half a checkpoint
+        Path tmp = Files.createTempFile(dir, checkpointFile.getFileName().toString(), ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            checkpoint.store(out, "Webhook replay checkpoint");
+        }
+        Files.move(tmp, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private class Run {
+
+        private final Scope scope;
+        private final int rate;
+        private final int concurrency;
+        private final long nanosPerRow;
+        private final Thread coordinator;
+        private final AtomicLong rowsReplayed = new AtomicLong();
+        private final AtomicLong rowsFailed = new AtomicLong();
+        private final LocalDateTime startedAt = LocalDateTime.now();
+
+        private volatile boolean stopRequested;
+        private volatile long lastId;
+        private volatile String state = "running";
+        private volatile String error;
+        private volatile LocalDateTime finishedAt;
+        // Next time a chunk may start, spacing chunks out to the rate; guarded by this Run
+        private long nextChunkNanos = System.nanoTime();
+
+        Run(Scope scope, int rate, int concurrency, long afterId) {
+            this.scope = scope;
+            this.rate = rate;
+            this.concurrency = concurrency;
+            this.nanosPerRow = NANOS_PER_SECOND / rate;
+            this.lastId = afterId;
+            this.coordinator = new Thread(this::replayLoop, "fintoc-webhook-replay");
+            this.coordinator.setDaemon(true);
+        }
+
+        void start() {
+            coordinator.start();
+        }
+
+        boolean isRunning() {
+            return coordinator.isAlive();
+        }
+
+        private void replayLoop() {
+            AtomicInteger threadNumber = new AtomicInteger();
+            ExecutorService workers = Executors.newFixedThreadPool(concurrency, runnable -> {
+                Thread thread = new Thread(runnable, "webhook-replay-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            try {
+                while (!stopRequested) {
+                    List<Long> ids = nextPage(scope, lastId);
+                    if (ids.isEmpty()) {
+                        break;
+                    }
+                    replayPage(workers, ids);
+                    lastId = ids.get(ids.size() - 1);
+                    writeCheckpoint(scope, lastId);
+                }
+                state = stopRequested ? "stopped" : "completed";
+            } catch (InterruptedException e) {
+                state = "stopped";
+            } catch (Exception e) {
+                // The checkpoint is still at the last whole page, so starting again picks up from there
+                logger.error("Webhook replay failed after id {}: {}", lastId, e.getMessage(), e);
+                error = e.getMessage();
+                state = "failed";
+            } finally {
+                workers.shutdownNow();
+                finishedAt = LocalDateTime.now();
+                logger.info("Webhook replay {} after id {}: {} rows replayed, {} could not be parsed",
+                    state, lastId, rowsReplayed.get(), rowsFailed.get());
+            }
+        }
+
+        private void replayPage(ExecutorService workers, List<Long> ids) throws Exception {
+            int chunkSize = Math.max(1, config.getUpdateBatchSize());
+            List<Future<?>> chunks = new ArrayList<>();
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + chunkSize));
+                chunks.add(workers.submit(() -> {
+                    pace(chunk.size());
+                    replayChunk(this, chunk);
+                    return null;
+                }));
+            }
+            // The whole page has to be in before the checkpoint moves past it
+            for (Future<?> chunk : chunks) {
+                try {
+                    chunk.get();
+                } catch (ExecutionException e) {
+                    for (Future<?> other : chunks) {
+                        other.cancel(true);
+                    }
+                    throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                }
+            }
+        }
+
+        /**
+         * Wait until this chunk's rows fit in the rate
+         */
+        private void pace(int rows) throws InterruptedException {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                long startAt = Math.max(now, nextChunkNanos);
+                nextChunkNanos = startAt + rows * nanosPerRow;
+                waitNanos = startAt - now;
+            }
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+
+        Map<String, Object> toStatus() {
+            Map<String, Object> status = new LinkedHashMap<>();
+            status.put("state", state);
+            status.put("scope", scope.name().toLowerCase());
+            status.put("last_id", lastId);
+            status.put("rows_replayed", rowsReplayed.get());
+            status.put("rows_failed", rowsFailed.get());
+            status.put("rate", rate);
+            status.put("concurrency", concurrency);
+            status.put("started_at", startedAt.toString());
+            if (finishedAt != null) {
+                status.put("finished_at", finishedAt.toString());
+            }
+            if (error != null) {
+                status.put("error", error);
+            }
+            return status;
+        }
+    }
+}
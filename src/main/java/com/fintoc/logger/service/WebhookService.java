@@ -8,7 +8,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
@@ -16,6 +18,7 @@ import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Service for handling Fintoc webhook processing and signature verification
@@ -32,13 +35,23 @@ public class WebhookService {
     @Value("${fintoc.api.key:}")
     private String apiKey;
 
+    // Signatures with a t= further than this from now are rejected as replays
+    @Value("${fintoc.webhook.tolerance-seconds:300}")
+    private long toleranceSeconds = 300;
+
     private final ObjectMapper objectMapper;
     private final WebhookLogRepository webhookLogRepository;
+    private final ValidationResultCache validationResultCache;
+    private final RecentWebhookEvents recentWebhookEvents;
+    private final ThreadLocal<KeyedMac> macs = new ThreadLocal<>();
 
     @Autowired
-    public WebhookService(ObjectMapper objectMapper, WebhookLogRepository webhookLogRepository) {
+    public WebhookService(ObjectMapper objectMapper, WebhookLogRepository webhookLogRepository,
+                          ValidationResultCache validationResultCache, RecentWebhookEvents recentWebhookEvents) {
         this.objectMapper = objectMapper;
         this.webhookLogRepository = webhookLogRepository;
+        this.validationResultCache = validationResultCache;
+        this.recentWebhookEvents = recentWebhookEvents;
     }
 
     /**
@@ -46,8 +59,17 @@ public class WebhookService {
      * Expected format: t=timestamp,v1=signature
      */
     public boolean verifyWebhookSignature(String payload, String signatureHeader) {
+        return verifyWebhookSignature(payload.getBytes(StandardCharsets.UTF_8), signatureHeader);
+    }
+
+    /**
+     * Verify Fintoc webhook signature over the raw request body, cheapest checks first: the
+     * header format, then the timestamp, then the HMAC. The body is neither parsed nor logged
+     * here, so rejecting a forged or replayed request costs one HMAC at most.
+     */
+    public boolean verifyWebhookSignature(byte[] payload, String signatureHeader) {
         if (signatureHeader == null || signatureHeader.isEmpty()) {
-            logger.warn("Missing fintoc-signature header");
+            logger.debug("Missing fintoc-signature header");
             return false;
         }
 
@@ -66,12 +88,21 @@ public class WebhookService {
             }
 
             if (timestamp == null || signature == null) {
-                logger.warn("Invalid signature header format: {}", signatureHeader);
+                logger.debug("Invalid signature header format: {}", signatureHeader);
                 return false;
             }
 
-            // Create the signed payload: timestamp + . + payload
-            String signedPayload = timestamp + "." + payload;
+            long age;
+            try {
+                age = System.currentTimeMillis() / 1000 - Long.parseLong(timestamp);
+            } catch (NumberFormatException e) {
+                logger.debug("Invalid signature timestamp: {}", timestamp);
+                return false;
+            }
+            if (Math.abs(age) > toleranceSeconds) {
+                logger.debug("Webhook signature timestamp {} is {}s off, rejecting", timestamp, age);
+                return false;
+            }
 
             // Use webhook secret if configured, otherwise use API key
             String secretToUse = (webhookSecret != null && !webhookSecret.isEmpty()) ? webhookSecret : apiKey;
@@ -81,22 +112,20 @@ public class WebhookService {
                 return false;
             }
 
-            // Calculate expected signature
-            String expectedSignature = calculateHmacSha256(signedPayload, secretToUse);
-
-            logger.debug("Using secret type: {}, Signed payload: {}", 
-                (webhookSecret != null && !webhookSecret.isEmpty()) ? "webhook-secret" : "api-key", 
-                signedPayload);
+            // Calculate expected signature over the signed payload: timestamp + . + payload
+            String expectedSignature = calculateHmacSha256(timestamp, payload, secretToUse);
 
             // Compare signatures (constant time comparison to prevent timing attacks)
             boolean isValid = constantTimeEquals(signature, expectedSignature);
 
             if (!isValid) {
-                logger.warn("Webhook signature mismatch. Expected: {}, Got: {}", expectedSignature, signature);
-                logger.warn("Signed payload was: {}", signedPayload);
-                logger.warn("Secret used: {} characters", secretToUse.length());
+                // Forged traffic is logged once, by the caller; details only at DEBUG
+                if (logger.isDebugEnabled()) {
+                    logger.debug("Webhook signature mismatch, signed payload was: {}.{}",
+                        timestamp, new String(payload, StandardCharsets.UTF_8));
+                }
             } else {
-                logger.info("Webhook signature verification successful using: {}", 
+                logger.debug("Webhook signature verification successful using: {}",
                     (webhookSecret != null && !webhookSecret.isEmpty()) ? "webhook-secret" : "api-key");
             }
 
@@ -109,67 +138,68 @@ public class WebhookService {
     }
 
     /**
-     * Process webhook event and store in database
+     * Build a fintoc-signature header (t=timestamp,v1=signature) for a payload, with the same
+     * secret verifyWebhookSignature checks against. Used by the local Fintoc stub.
+     */
+    public String signWebhookPayload(String payload, long timestampSeconds) {
+        String secretToUse = (webhookSecret != null && !webhookSecret.isEmpty()) ? webhookSecret : apiKey;
+        if (secretToUse == null || secretToUse.isEmpty()) {
+            throw new IllegalStateException("No webhook secret or API key configured for signing");
+        }
+        try {
+            return "t=" + timestampSeconds + ",v1=" + calculateHmacSha256(String.valueOf(timestampSeconds),
+                payload.getBytes(StandardCharsets.UTF_8), secretToUse);
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("Failed to sign webhook payload", e);
+        }
+    }
+
+    /**
+     * True if this event was stored recently, so a redelivery can be acknowledged without
+     * storing it again. Checked in memory only; older duplicates are caught when storing.
+     */
+    public boolean isDuplicate(String eventId) {
+        if (recentWebhookEvents.contains(eventId)) {
+            recentWebhookEvents.recordDuplicate();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Note an event that turned out to be stored already when storing it again, so its next
+     * redelivery is caught in memory
+     */
+    public void recordRedelivery(String eventId) {
+        recentWebhookEvents.remember(eventId);
+        recentWebhookEvents.recordDuplicate();
+    }
+
+    /**
+     * Process webhook event and store in database.
+     * An event that is already stored counts as processed: nothing is written and the
+     * redelivery is acknowledged.
      */
     public boolean processWebhook(JsonNode webhookData, String signature, String rawBody) {
         try {
-            // Extract event details
-            String eventId = webhookData.path("id").asText();
-            String eventType = webhookData.path("type").asText();
-            String mode = webhookData.path("mode").asText();
-            String createdAt = webhookData.path("created_at").asText();
-            
-            logger.info("Processing webhook event: {} of type: {} created at: {}", eventId, eventType, createdAt);
-
-            // Extract data section
-            JsonNode dataSection = webhookData.path("data");
-            String accountVerificationId = dataSection.path("id").asText();
-            String status = dataSection.path("status").asText();
-            String reason = dataSection.path("reason").asText(null);
-            String receiptUrl = dataSection.path("receipt_url").asText(null);
-            String transferId = dataSection.path("transfer_id").asText(null);
-            String transactionDate = dataSection.path("transaction_date").asText(null);
-
-            // Extract counterparty information
-            JsonNode counterparty = dataSection.path("counterparty");
-            String holderId = counterparty.path("holder_id").asText(null);
-            String holderName = counterparty.path("holder_name").asText(null);
-            String accountNumber = counterparty.path("account_number").asText(null);
-            String accountType = counterparty.path("account_type").asText(null);
-
-            // Extract institution information
-            JsonNode institution = counterparty.path("institution");
-            String institutionId = institution.path("id").asText(null);
-            String institutionName = institution.path("name").asText(null);
-            String institutionCountry = institution.path("country").asText(null);
-
-            // Create webhook log entry
-            WebhookLog webhookLog = new WebhookLog();
-            webhookLog.setEventId(eventId);
-            webhookLog.setEventType(eventType);
-            webhookLog.setMode(mode);
-            webhookLog.setCreatedAt(LocalDateTime.now());
-            webhookLog.setRawBody(rawBody);
-            webhookLog.setSignatureHeader(signature);
-            webhookLog.setProcessed(true);
-            webhookLog.setAccountVerificationId(accountVerificationId);
-            webhookLog.setStatus(status);
-            webhookLog.setReason(reason);
-            webhookLog.setReceiptUrl(receiptUrl);
-            webhookLog.setTransferId(transferId);
-            webhookLog.setTransactionDate(transactionDate);
-            webhookLog.setHolderId(holderId);
-            webhookLog.setHolderName(holderName);
-            webhookLog.setAccountNumber(accountNumber);
-            webhookLog.setAccountType(accountType);
-            webhookLog.setInstitutionId(institutionId);
-            webhookLog.setInstitutionName(institutionName);
-            webhookLog.setInstitutionCountry(institutionCountry);
-
-            // Save to database
-            webhookLogRepository.save(webhookLog);
-
-            logger.info("Successfully processed and stored webhook: {}", eventId);
+            WebhookLog webhookLog = toWebhookLog(webhookData, signature, rawBody);
+            logger.info("Processing webhook event: {} of type: {} created at: {}", webhookLog.getEventId(),
+                webhookLog.getEventType(), webhookData.path("created_at").asText());
+
+            // Save to database; the unique event_id turns away a duplicate the memory check missed
+            try {
+                webhookLogRepository.save(webhookLog);
+            } catch (DataIntegrityViolationException e) {
+                if (!webhookLogRepository.existsByEventId(webhookLog.getEventId())) {
+                    throw e;
+                }
+                recordRedelivery(webhookLog.getEventId());
+                logger.info("Webhook {} was already stored, acknowledging the redelivery", webhookLog.getEventId());
+                return true;
+            }
+            afterStored(webhookLog);
+
+            logger.info("Successfully processed and stored webhook: {}", webhookLog.getEventId());
             return true;
 
         } catch (Exception e) {
@@ -179,20 +209,117 @@ public class WebhookService {
     }
 
     /**
-     * Calculate HMAC-SHA256 signature
+     * Map a webhook event to its webhook_log row, without storing it
+     */
+    public WebhookLog toWebhookLog(JsonNode webhookData, String signature, String rawBody) {
+        // Create webhook log entry
+        WebhookLog webhookLog = new WebhookLog();
+        webhookLog.setEventId(webhookData.path("id").asText());
+        webhookLog.setCreatedAt(LocalDateTime.now());
+        webhookLog.setRawBody(rawBody);
+        webhookLog.setSignatureHeader(signature);
+        applyEventColumns(webhookLog, webhookData);
+        webhookLog.setProcessed(true);
+        return webhookLog;
+    }
+
+    /**
+     * Set the columns of a webhook_log row that are derived from its event: type, mode, the
+     * account verification, counterparty and institution. Used for new rows and when replaying
+     * stored ones from their raw body.
+     */
+    public void applyEventColumns(WebhookLog webhookLog, JsonNode webhookData) {
+        // Extract event details
+        String eventType = webhookData.path("type").asText();
+        String mode = webhookData.path("mode").asText();
+
+        // Extract data section
+        JsonNode dataSection = webhookData.path("data");
+        String accountVerificationId = dataSection.path("id").asText();
+        String status = dataSection.path("status").asText();
+        String reason = dataSection.path("reason").asText(null);
+        String receiptUrl = dataSection.path("receipt_url").asText(null);
+        String transferId = dataSection.path("transfer_id").asText(null);
+        String transactionDate = dataSection.path("transaction_date").asText(null);
+
+        // Extract counterparty information
+        JsonNode counterparty = dataSection.path("counterparty");
+        String holderId = counterparty.path("holder_id").asText(null);
+        String holderName = counterparty.path("holder_name").asText(null);
+        String accountNumber = counterparty.path("account_number").asText(null);
+        String accountType = counterparty.path("account_type").asText(null);
+
+        // Extract institution information
+        JsonNode institution = counterparty.path("institution");
+        String institutionId = institution.path("id").asText(null);
+        String institutionName = institution.path("name").asText(null);
+        String institutionCountry = institution.path("country").asText(null);
+
+        webhookLog.setEventType(eventType);
+        webhookLog.setMode(mode);
+        webhookLog.setAccountVerificationId(accountVerificationId);
+        webhookLog.setStatus(status);
+        webhookLog.setReason(reason);
+        webhookLog.setReceiptUrl(receiptUrl);
+        webhookLog.setTransferId(transferId);
+        webhookLog.setTransactionDate(transactionDate);
+        webhookLog.setHolderId(holderId);
+        webhookLog.setHolderName(holderName);
+        webhookLog.setAccountNumber(accountNumber);
+        webhookLog.setAccountType(accountType);
+        webhookLog.setInstitutionId(institutionId);
+        webhookLog.setInstitutionName(institutionName);
+        webhookLog.setInstitutionCountry(institutionCountry);
+    }
+
+    /**
+     * Store a group of webhook_log rows in one transaction. Their ids come from a pooled
+     * sequence, so Hibernate sends the inserts as JDBC batches of hibernate.jdbc.batch_size.
+     * Call afterStored for each once the transaction has committed.
      */
-    private String calculateHmacSha256(String data, String secret) throws NoSuchAlgorithmException, InvalidKeyException {
-        Mac mac = Mac.getInstance(HMAC_ALGORITHM);
-        SecretKeySpec secretKeySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
-        mac.init(secretKeySpec);
-        byte[] hmacBytes = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-        
-        // Convert to hex string
-        StringBuilder result = new StringBuilder();
-        for (byte b : hmacBytes) {
-            result.append(String.format("%02x", b));
+    @Transactional
+    public List<WebhookLog> saveWebhookLogs(List<WebhookLog> webhookLogs) {
+        List<WebhookLog> savedLogs = webhookLogRepository.saveAll(webhookLogs);
+        logger.debug("Saved {} webhook logs", savedLogs.size());
+        return savedLogs;
+    }
+
+    /**
+     * Follow-up once a webhook_log row is stored
+     */
+    public void afterStored(WebhookLog webhookLog) {
+        recentWebhookEvents.remember(webhookLog.getEventId());
+
+        // The cached validation for this account is now stale
+        validationResultCache.invalidateByValidationId(webhookLog.getAccountVerificationId());
+        validationResultCache.invalidateAccount(webhookLog.getAccountNumber());
+    }
+
+    /**
+     * Calculate HMAC-SHA256 signature of timestamp + "." + payload, as lowercase hex
+     */
+    private String calculateHmacSha256(String timestamp, byte[] payload, String secret)
+            throws NoSuchAlgorithmException, InvalidKeyException {
+        Mac mac = macFor(secret);
+        // Fed in pieces so the signed payload is never built as one String
+        mac.update(timestamp.getBytes(StandardCharsets.UTF_8));
+        mac.update((byte) '.');
+        return Codecs.hex(mac.doFinal(payload));
+    }
+
+    /**
+     * This thread's Mac, keyed with secret. doFinal() leaves a Mac keyed for the next message,
+     * so the provider lookup and key setup only happen once per thread (or when the secret changes).
+     */
+    private Mac macFor(String secret) throws NoSuchAlgorithmException, InvalidKeyException {
+        KeyedMac keyed = macs.get();
+        if (keyed == null || !keyed.secret.equals(secret)) {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            keyed = new KeyedMac(secret, mac);
+            macs.set(keyed);
         }
-        return result.toString();
+        return keyed.mac;
     }
 
     /**
@@ -209,4 +336,15 @@ public class WebhookService {
         }
         return result == 0;
     }
-}
\ No newline at end of file
+
+    private static class KeyedMac {
+
+        private final String secret;
+        private final Mac mac;
+
+        KeyedMac(String secret, Mac mac) {
+            this.secret = secret;
+            this.mac = mac;
+        }
+    }
+}
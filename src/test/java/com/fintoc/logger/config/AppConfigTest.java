@@ -0,0 +1,62 @@
+package com.fintoc.logger.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+    "fintoc.http-client.max-idle-connections=7",
+    "fintoc.http-client.keep-alive-seconds=42",
+    "fintoc.http-client.connect-timeout-ms=1100",
+    "fintoc.http-client.read-timeout-ms=2200",
+    "fintoc.http-client.write-timeout-ms=3300",
+    "fintoc.http-client.call-timeout-ms=4400",
+    "fintoc.http-client.max-requests=12",
+    "fintoc.http-client.max-requests-per-host=3",
+    "fintoc.http-client.http2-enabled=false"
+})
+@ActiveProfiles("test")
+public class AppConfigTest {
+
+    @Autowired
+    private OkHttpClient fintocHttpClient;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void testHttpClientUsesConfiguredSettings() {
+        assertEquals(1100, fintocHttpClient.connectTimeoutMillis());
+        assertEquals(2200, fintocHttpClient.readTimeoutMillis());
+        assertEquals(3300, fintocHttpClient.writeTimeoutMillis());
+        assertEquals(4400, fintocHttpClient.callTimeoutMillis());
+
+        assertEquals(12, fintocHttpClient.dispatcher().getMaxRequests());
+        assertEquals(3, fintocHttpClient.dispatcher().getMaxRequestsPerHost());
+
+        assertEquals(Collections.singletonList(Protocol.HTTP_1_1), fintocHttpClient.protocols());
+
+        // ConnectionPool does not expose its limits, so read them from the real pool
+        Object pool = ReflectionTestUtils.getField(fintocHttpClient.connectionPool(), "delegate");
+        assertEquals(7, ReflectionTestUtils.getField(pool, "maxIdleConnections"));
+        assertEquals(TimeUnit.SECONDS.toNanos(42), ReflectionTestUtils.getField(pool, "keepAliveDurationNs"));
+    }
+
+    @Test
+    public void testHttpClientGaugesAreRegistered() {
+        assertNotNull(meterRegistry.find("fintoc.http.pool.connections").gauge());
+        assertNotNull(meterRegistry.find("fintoc.http.pool.idle").gauge());
+        assertNotNull(meterRegistry.find("fintoc.http.dispatcher.running").gauge());
+        assertNotNull(meterRegistry.find("fintoc.http.dispatcher.queued").gauge());
+    }
+}
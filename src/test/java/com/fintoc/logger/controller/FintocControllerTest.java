@@ -0,0 +1,88 @@
+package com.fintoc.logger.controller;
+
+import com.fintoc.logger.entity.AccountValidationResponse;
+import com.fintoc.logger.service.BatchValidationService;
+import com.fintoc.logger.service.FintocApiService;
+import com.fintoc.logger.service.FintocUnavailableException;
+import com.fintoc.logger.service.JwsSignatureService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(FintocController.class)
+public class FintocControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private FintocApiService fintocApiService;
+
+    @MockBean
+    private JwsSignatureService jwsSignatureService;
+
+    @MockBean
+    private BatchValidationService batchValidationService;
+
+    @Test
+    public void testValidateAccountReturnsServiceResult() throws Exception {
+        AccountValidationResponse response = new AccountValidationResponse();
+        response.setId("av_123");
+        when(fintocApiService.validateAccountAsync("123456789"))
+            .thenReturn(CompletableFuture.completedFuture(new ResponseEntity<>(response, HttpStatus.CREATED)));
+
+        MvcResult result = mockMvc.perform(post("/fintoc/accounts/123456789/validate"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isCreated())
+            .andExpect(jsonPath("$.id").value("av_123"));
+    }
+
+    @Test
+    public void testOpenCircuitAnswersServiceUnavailable() throws Exception {
+        CompletableFuture<ResponseEntity<AccountValidationResponse>> refused = new CompletableFuture<>();
+        refused.completeExceptionally(new RuntimeException("Account validation failed",
+            new FintocUnavailableException("Fintoc circuit breaker is open")));
+        when(fintocApiService.validateAccountAsync("123456789")).thenReturn(refused);
+
+        MvcResult result = mockMvc.perform(post("/fintoc/accounts/123456789/validate"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+            .andExpect(status().isServiceUnavailable());
+    }
+
+    @Test
+    public void testOversizedBatchIsRejectedBeforeCheckingEntries() throws Exception {
+        when(batchValidationService.getMaxAccounts()).thenReturn(2);
+
+        mockMvc.perform(post("/fintoc/accounts/validate-batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"accounts\":[\"bad account\",\"123\",\"also bad!\"]}"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.max_accounts").value(2))
+            .andExpect(jsonPath("$.invalid_positions").doesNotExist());
+
+        verify(batchValidationService, never()).validateBatch(anyList(), any());
+    }
+}
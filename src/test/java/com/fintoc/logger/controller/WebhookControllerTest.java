@@ -0,0 +1,103 @@
+package com.fintoc.logger.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fintoc.logger.service.WebhookIngestService;
+import com.fintoc.logger.service.WebhookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(WebhookController.class)
+public class WebhookControllerTest {
+
+    private static final String EVENT = "{\"id\":\"evt_123\",\"type\":\"account_verification.succeeded\"}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private WebhookService webhookService;
+
+    @MockBean
+    private WebhookIngestService webhookIngestService;
+
+    @Test
+    public void testInvalidSignatureIsRejectedBeforeParsing() throws Exception {
+        when(webhookService.verifyWebhookSignature(any(byte[].class), eq("t=1,v1=forged"))).thenReturn(false);
+
+        // Not JSON at all: parsing first would have failed with a 500
+        mockMvc.perform(post("/webhooks/fintoc")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("fintoc-signature", "t=1,v1=forged")
+                .content("{not json"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("invalid_signature"));
+
+        verify(webhookService, never()).processWebhook(any(), any(), any());
+    }
+
+    @Test
+    public void testValidWebhookIsParsedOnceAndProcessed() throws Exception {
+        when(webhookService.verifyWebhookSignature(any(byte[].class), eq("t=1,v1=ok"))).thenReturn(true);
+        when(webhookService.processWebhook(any(JsonNode.class), eq("t=1,v1=ok"), eq(EVENT))).thenReturn(true);
+
+        mockMvc.perform(post("/webhooks/fintoc")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("fintoc-signature", "t=1,v1=ok")
+                .content(EVENT))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.event_id").value("evt_123"));
+
+        verify(webhookService).verifyWebhookSignature(argThat((byte[] body) -> new String(body, StandardCharsets.UTF_8).equals(EVENT)), eq("t=1,v1=ok"));
+        verify(webhookService).processWebhook(argThat(tree -> "evt_123".equals(tree.path("id").asText())),
+            eq("t=1,v1=ok"), eq(EVENT));
+    }
+
+    @Test
+    public void testDuplicateIsAcknowledgedWithoutStoring() throws Exception {
+        when(webhookService.verifyWebhookSignature(any(byte[].class), eq("t=1,v1=ok"))).thenReturn(true);
+        when(webhookService.isDuplicate("evt_123")).thenReturn(true);
+
+        mockMvc.perform(post("/webhooks/fintoc")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("fintoc-signature", "t=1,v1=ok")
+                .content(EVENT))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("duplicate"))
+            .andExpect(jsonPath("$.event_id").value("evt_123"));
+
+        verify(webhookService, never()).processWebhook(any(), any(), any());
+    }
+
+    @Test
+    public void testFastAckJournalsAndAcknowledgesWithoutProcessing() throws Exception {
+        when(webhookService.verifyWebhookSignature(any(byte[].class), eq("t=1,v1=ok"))).thenReturn(true);
+        when(webhookIngestService.isEnabled()).thenReturn(true);
+        when(webhookIngestService.accept(eq("t=1,v1=ok"), any(byte[].class))).thenReturn(true);
+
+        mockMvc.perform(post("/webhooks/fintoc")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("fintoc-signature", "t=1,v1=ok")
+                .content(EVENT))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.status").value("accepted"));
+
+        verify(webhookIngestService).accept(eq("t=1,v1=ok"),
+            argThat((byte[] body) -> new String(body, StandardCharsets.UTF_8).equals(EVENT)));
+        verify(webhookService, never()).processWebhook(any(), any(), any());
+    }
+}
@@ -8,6 +8,11 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -73,6 +78,32 @@ public class AccountValidationLogServiceTest {
         assertEquals("link_123", createdLog.getLinkId());
     }
 
+    @Test
+    public void testCreateValidationLogForFailureWithoutHttpStatus() {
+        // A call that never got an HTTP response (e.g. connection reset) has no status
+        AccountValidationLog createdLog = validationLogService.createValidationLog(
+            "test_account_999",
+            null,
+            "{\"Authorization\":[\"test\"]}",
+            "{\"account_number\":\"test_account_999\"}",
+            null,
+            null,
+            null,
+            30L,
+            "test_key_****",
+            false,
+            "Connection reset",
+            null
+        );
+
+        // Stored with status 0 and marked as failed instead of throwing
+        assertNotNull(createdLog.getId());
+        assertEquals(0, createdLog.getResponseStatus());
+        assertFalse(createdLog.getSuccess());
+        assertEquals("FAILED", createdLog.getValidationResult());
+        assertEquals("Connection reset", createdLog.getErrorMessage());
+    }
+
     @Test
     public void testGetTotalValidationLogsCount() {
         // Initially should be 0
@@ -90,6 +121,28 @@ public class AccountValidationLogServiceTest {
         assertEquals(initialCount + 1, newCount);
     }
 
+    @Test
+    public void testSaveValidationLogsAssignsDistinctSequenceIds() {
+        // More rows than one sequence allocation, so the pooled block has to be refilled
+        List<AccountValidationLog> validationLogs = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            AccountValidationLog validationLog = new AccountValidationLog("batch_account_" + i, "ownership");
+            validationLog.setResponseStatus(200);
+            validationLog.setSuccess(true);
+            validationLogs.add(validationLog);
+        }
+
+        List<AccountValidationLog> savedLogs = validationLogService.saveValidationLogs(validationLogs);
+
+        Set<Long> ids = new HashSet<>();
+        for (AccountValidationLog savedLog : savedLogs) {
+            assertNotNull(savedLog.getId());
+            ids.add(savedLog.getId());
+        }
+        assertEquals(120, ids.size());
+        assertEquals(120, validationLogRepository.findAllById(ids).size());
+    }
+
     @Test
     public void testValidationResultHelperMethods() {
         AccountValidationLog log = new AccountValidationLog("test_account", "test");
@@ -0,0 +1,194 @@
+package com.fintoc.logger.service;
+
+import com.fintoc.logger.dto.BatchValidationResultDto;
+import com.fintoc.logger.entity.AccountValidationLog;
+import com.fintoc.logger.entity.AccountValidationResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class BatchValidationServiceTest {
+
+    private final ScheduledExecutorService fakeFintoc = Executors.newScheduledThreadPool(8);
+    private final FintocApiService fintocApiService = mock(FintocApiService.class);
+
+    @AfterEach
+    public void tearDown() {
+        fakeFintoc.shutdownNow();
+    }
+
+    @Test
+    public void testFanOutNeverExceedsSharedConcurrencyLimit() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        when(fintocApiService.executeValidation(anyString())).thenAnswer(invocation -> {
+            int now = inFlight.incrementAndGet();
+            maxInFlight.accumulateAndGet(now, Math::max);
+            CompletableFuture<ValidationOutcome> future = new CompletableFuture<>();
+            String accountId = invocation.getArgument(0);
+            fakeFintoc.schedule(() -> {
+                inFlight.decrementAndGet();
+                future.complete(outcome(accountId, 200));
+            }, 5, TimeUnit.MILLISECONDS);
+            return future;
+        });
+
+        BatchValidationService service = new BatchValidationService(fintocApiService, 3, 100, 1000, 2);
+        try {
+            // Two batches at once share the same 3 permits
+            CompletableFuture<Void> first = service.validateBatch(accounts(20), result -> { });
+            CompletableFuture<Void> second = service.validateBatch(accounts(20), result -> { });
+            CompletableFuture.allOf(first, second).get(10, TimeUnit.SECONDS);
+        } finally {
+            service.shutdown();
+        }
+
+        assertTrue(maxInFlight.get() <= 3, "max in flight was " + maxInFlight.get());
+        verify(fintocApiService, times(40)).executeValidation(anyString());
+    }
+
+    @Test
+    public void testPersistsFullBatchesAndFlushesRemainder() throws Exception {
+        when(fintocApiService.executeValidation(anyString()))
+            .thenAnswer(invocation -> CompletableFuture.completedFuture(outcome(invocation.getArgument(0), 200)));
+
+        BatchValidationService service = new BatchValidationService(fintocApiService, 4, 4, 1000, 1);
+        List<BatchValidationResultDto> results = new ArrayList<>();
+        try {
+            service.validateBatch(accounts(10), results::add).get(10, TimeUnit.SECONDS);
+        } finally {
+            service.shutdown();
+        }
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ValidationOutcome>> batches = ArgumentCaptor.forClass(List.class);
+        verify(fintocApiService, times(3)).persistOutcomes(batches.capture());
+        List<Integer> sizes = new ArrayList<>();
+        for (List<ValidationOutcome> batch : batches.getAllValues()) {
+            sizes.add(batch.size());
+        }
+        // Two full batches, then the remainder flushed at the end
+        assertEquals(Arrays.asList(4, 4, 2), sizes);
+        assertEquals(10, results.size());
+        verify(fintocApiService, never()).persistOutcome(any());
+    }
+
+    @Test
+    public void testFallsBackToRowByRowWhenBatchInsertFails() throws Exception {
+        when(fintocApiService.executeValidation(anyString()))
+            .thenAnswer(invocation -> CompletableFuture.completedFuture(outcome(invocation.getArgument(0), 200)));
+        doThrow(new RuntimeException("constraint violation")).when(fintocApiService).persistOutcomes(anyList());
+
+        BatchValidationService service = new BatchValidationService(fintocApiService, 2, 5, 1000, 1);
+        try {
+            service.validateBatch(accounts(5), result -> { }).get(10, TimeUnit.SECONDS);
+        } finally {
+            service.shutdown();
+        }
+
+        verify(fintocApiService, times(1)).persistOutcomes(anyList());
+        verify(fintocApiService, times(5)).persistOutcome(any());
+    }
+
+    @Test
+    public void testResultLinesReflectUpstreamStatus() throws Exception {
+        when(fintocApiService.executeValidation("ok-1"))
+            .thenReturn(CompletableFuture.completedFuture(outcome("ok-1", 201)));
+        when(fintocApiService.executeValidation("throttled-1"))
+            .thenReturn(CompletableFuture.completedFuture(outcome("throttled-1", 429)));
+        CompletableFuture<ValidationOutcome> broken = new CompletableFuture<>();
+        broken.completeExceptionally(new IllegalStateException("boom"));
+        when(fintocApiService.executeValidation("broken-1")).thenReturn(broken);
+
+        BatchValidationService service = new BatchValidationService(fintocApiService, 1, 100, 1000, 1);
+        ConcurrentLinkedQueue<BatchValidationResultDto> results = new ConcurrentLinkedQueue<>();
+        try {
+            service.validateBatch(Arrays.asList("ok-1", "throttled-1", "broken-1"), results::add)
+                .get(10, TimeUnit.SECONDS);
+        } finally {
+            service.shutdown();
+        }
+
+        assertEquals(3, results.size());
+        for (BatchValidationResultDto result : results) {
+            switch (result.getAccountId()) {
+                case "ok-1":
+                    assertTrue(result.getSuccess());
+                    assertEquals("av_ok-1", result.getValidationId());
+                    assertNull(result.getError());
+                    break;
+                case "throttled-1":
+                    assertFalse(result.getSuccess());
+                    assertEquals(429, result.getHttpStatus());
+                    assertEquals("{\"error\":\"status 429\"}", result.getError());
+                    break;
+                default:
+                    assertFalse(result.getSuccess());
+                    assertEquals("boom", result.getError());
+            }
+        }
+    }
+
+    @Test
+    public void testStopsSubmittingWhenReceiverFails() throws Exception {
+        // Completes later, so only one call holds the single permit at a time
+        when(fintocApiService.executeValidation(anyString())).thenAnswer(invocation -> {
+            CompletableFuture<ValidationOutcome> future = new CompletableFuture<>();
+            String accountId = invocation.getArgument(0);
+            fakeFintoc.schedule(() -> future.complete(outcome(accountId, 200)), 5, TimeUnit.MILLISECONDS);
+            return future;
+        });
+
+        BatchValidationService service = new BatchValidationService(fintocApiService, 1, 100, 1000, 1);
+        try {
+            service.validateBatch(accounts(10), result -> {
+                throw new IllegalStateException("client gone");
+            }).get(10, TimeUnit.SECONDS);
+        } finally {
+            service.shutdown();
+        }
+
+        verify(fintocApiService, times(1)).executeValidation(anyString());
+        // The in-flight result is still stored
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<ValidationOutcome>> batches = ArgumentCaptor.forClass(List.class);
+        verify(fintocApiService, times(1)).persistOutcomes(batches.capture());
+        assertEquals(1, batches.getValue().size());
+    }
+
+    private static List<String> accounts(int count) {
+        List<String> accounts = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            accounts.add("acc-" + i);
+        }
+        return accounts;
+    }
+
+    private static ValidationOutcome outcome(String accountId, int status) {
+        String body = status < 300 ? "{\"id\":\"av_" + accountId + "\"}" : "{\"error\":\"status " + status + "\"}";
+        AccountValidationLog log = AccountValidationLogService.buildValidationLog(accountId, null, null, null,
+            status, null, body, 5L, "****", status < 300, null, null);
+        AccountValidationResponse response = new AccountValidationResponse();
+        if (status < 300) {
+            response.setId("av_" + accountId);
+            response.setStatus("pending");
+        }
+        return ValidationOutcome.success(accountId, response, log, status);
+    }
+}
@@ -0,0 +1,68 @@
+package com.fintoc.logger.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CodecsTest {
+
+    @Test
+    public void testHexMatchesFormatter() {
+        byte[] bytes = new byte[256];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        StringBuilder expected = new StringBuilder();
+        for (byte b : bytes) {
+            expected.append(String.format("%02x", b));
+        }
+
+        assertEquals(expected.toString(), Codecs.hex(bytes));
+
+        byte[] dst = new byte[2 + bytes.length * 2];
+        assertEquals(dst.length, Codecs.hexInto(bytes, dst, 2));
+        assertEquals(expected.toString(), new String(dst, 2, bytes.length * 2, StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void testBase64UrlMatchesJdkEncoderForEveryTailLength() {
+        Random random = new Random(42);
+        Base64.Encoder jdk = Base64.getUrlEncoder().withoutPadding();
+        for (int length = 0; length < 70; length++) {
+            byte[] src = new byte[length];
+            random.nextBytes(src);
+            String expected = jdk.encodeToString(src);
+
+            byte[] dst = new byte[3 + Codecs.base64UrlLength(length)];
+            int end = Codecs.base64UrlInto(src, dst, 3);
+
+            assertEquals(dst.length, end, "length " + length);
+            assertEquals(expected, new String(dst, 3, end - 3, StandardCharsets.US_ASCII), "length " + length);
+        }
+    }
+
+    @Test
+    public void testJoinBase64Url() {
+        byte[] header = "{\"alg\":\"RS256\"}".getBytes(StandardCharsets.UTF_8);
+        byte[] payload = "{\"monto\":\"ñandú\"}".getBytes(StandardCharsets.UTF_8);
+        Base64.Encoder jdk = Base64.getUrlEncoder().withoutPadding();
+
+        byte[] joined = Codecs.joinBase64Url(header, payload);
+
+        assertEquals(jdk.encodeToString(header) + "." + jdk.encodeToString(payload),
+            Codecs.ascii(joined, joined.length));
+    }
+
+    @Test
+    public void testAsciiIntoRejectsNonAscii() {
+        byte[] dst = new byte[8];
+
+        assertEquals(3, Codecs.asciiInto("xabcx", 1, 4, dst, 0));
+        assertEquals("abc", Codecs.ascii(dst, 3));
+        assertEquals(-1, Codecs.asciiInto("aé", 0, 2, dst, 0));
+    }
+}
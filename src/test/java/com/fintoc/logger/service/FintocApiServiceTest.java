@@ -0,0 +1,583 @@
+package com.fintoc.logger.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintoc.logger.config.HedgeConfig;
+import com.fintoc.logger.config.PersistenceConfig;
+import com.fintoc.logger.config.RateLimitConfig;
+import com.fintoc.logger.config.ResilienceConfig;
+import com.fintoc.logger.config.RetryConfig;
+import com.fintoc.logger.config.ValidationCacheConfig;
+import com.fintoc.logger.entity.AccountValidationLog;
+import com.fintoc.logger.entity.AccountValidationResponse;
+import com.fintoc.logger.repository.AccountValidationResponseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class FintocApiServiceTest {
+
+    private MockWebServer server;
+    private OkHttpClient client;
+    private FintocApiService fintocApiService;
+    private FintocRateLimiter rateLimiter;
+    private FintocCircuitBreaker circuitBreaker;
+    private ValidationWriteBehind writeBehind;
+    // Hedging is covered separately and off everywhere else
+    private HedgeConfig hedgeConfig = new HedgeConfig();
+
+    private final AccountValidationLogService validationLogService = mock(AccountValidationLogService.class);
+    private final AccountValidationResponseRepository responseRepository = mock(AccountValidationResponseRepository.class);
+    private final JwsSignatureService jwsSignatureService = mock(JwsSignatureService.class);
+    private final AtomicReference<String> logWriterThread = new AtomicReference<>();
+    private final List<AccountValidationLog> writtenLogs = new CopyOnWriteArrayList<>();
+    private final List<AccountValidationResponse> writtenResponses = new CopyOnWriteArrayList<>();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+
+        // Send every Fintoc call to the mock server instead of api.fintoc.com
+        HttpUrl target = server.url("/");
+        client = new OkHttpClient.Builder()
+            .addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                .url(chain.request().url().newBuilder()
+                    .scheme(target.scheme())
+                    .host(target.host())
+                    .port(target.port())
+                    .build())
+                .build()))
+            .build();
+
+        when(jwsSignatureService.createJwsHeader(anyString())).thenReturn("signed-header");
+        when(validationLogService.saveValidationLogs(anyList())).thenAnswer(invocation -> {
+            logWriterThread.set(Thread.currentThread().getName());
+            writtenLogs.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+        when(responseRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            writtenResponses.addAll(invocation.getArgument(0));
+            return invocation.getArgument(0);
+        });
+
+        // Caching is covered separately; most tests need every call to reach the server
+        ValidationCacheConfig cacheConfig = new ValidationCacheConfig();
+        cacheConfig.setEnabled(false);
+        fintocApiService = createService(cacheConfig);
+    }
+
+    private FintocApiService createService(ValidationCacheConfig cacheConfig) {
+        // Retries are covered separately; an unanswered retry would hang on MockWebServer's empty queue
+        RetryConfig retryConfig = new RetryConfig();
+        retryConfig.setMaxAttempts(1);
+        return createService(cacheConfig, retryConfig);
+    }
+
+    private FintocApiService createService(ValidationCacheConfig cacheConfig, RetryConfig retryConfig) {
+        rateLimiter = new FintocRateLimiter(new RateLimitConfig(), meterRegistry);
+        circuitBreaker = new FintocCircuitBreaker(new ResilienceConfig(), validationLogService, meterRegistry);
+        PersistenceConfig persistenceConfig = new PersistenceConfig();
+        persistenceConfig.setFlushIntervalMs(10);
+        writeBehind = new ValidationWriteBehind(persistenceConfig, responseRepository, validationLogService,
+            mock(PlatformTransactionManager.class), meterRegistry);
+        FintocApiService service = new FintocApiService(client, new ObjectMapper(), validationLogService,
+            responseRepository, jwsSignatureService, new ValidationResultCache(cacheConfig, meterRegistry),
+            rateLimiter, circuitBreaker, retryConfig, hedgeConfig, writeBehind, meterRegistry);
+        ReflectionTestUtils.setField(service, "apiKey", "sk_test_1234567890");
+        return service;
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        fintocApiService.shutdown();
+        rateLimiter.shutdown();
+        writeBehind.shutdown();
+        server.shutdown();
+    }
+
+    @Test
+    public void testValidateAccountAsyncSuccess() throws Exception {
+        server.enqueue(new MockResponse()
+            .setResponseCode(201)
+            .setHeader("content-type", "application/json")
+            .setBody("{\"id\":\"av_123\",\"status\":\"pending\"}"));
+
+        ResponseEntity<AccountValidationResponse> response =
+            fintocApiService.validateAccountAsync("123456789").get(5, TimeUnit.SECONDS);
+
+        assertEquals(201, response.getStatusCodeValue());
+        assertEquals("av_123", response.getBody().getId());
+
+        RecordedRequest request = server.takeRequest(5, TimeUnit.SECONDS);
+        assertEquals("/v2/account_verifications", request.getPath());
+        assertEquals("{\"account_number\":\"123456789\"}", request.getBody().readUtf8());
+        assertEquals("signed-header", request.getHeader("Fintoc-JWS-Signature"));
+
+        assertEquals(1, writtenLogs().size());
+        assertEquals(response.getBody(), writtenResponses.get(0));
+        AccountValidationLog log = singleWrittenLog();
+        assertEquals("SUCCESS", log.getValidationResult());
+        // Written by the write-behind thread, not on an OkHttp dispatcher thread
+        assertEquals("fintoc-write-behind", logWriterThread.get());
+    }
+
+    @Test
+    public void testPhaseTimingsAreStoredAndPublished() throws Exception {
+        server.enqueue(new MockResponse()
+            .setResponseCode(201)
+            .setHeadersDelay(50, TimeUnit.MILLISECONDS)
+            .setHeader("content-type", "application/json")
+            .setBody("{\"id\":\"av_123\",\"status\":\"pending\"}"));
+
+        fintocApiService.validateAccountAsync("123456789").get(5, TimeUnit.SECONDS);
+
+        AccountValidationLog log = singleWrittenLog();
+        assertNotNull(log.getSignTimeUs());
+        assertNotNull(log.getConnectTimeUs());
+        // Fintoc's 50ms shows up as time to first byte
+        assertTrue(log.getTtfbTimeUs() >= 50_000, "ttfb " + log.getTtfbTimeUs());
+        assertNotNull(log.getBodyReadTimeUs());
+        assertNotNull(log.getParseTimeUs());
+        assertNotNull(log.getPersistWaitTimeUs());
+        for (String phase : new String[]{"sign", "connect", "ttfb", "body_read", "parse", "persist"}) {
+            assertEquals(1, meterRegistry.get("fintoc.validation.phase").tag("phase", phase).timer().count(), phase);
+        }
+    }
+
+    @Test
+    public void testPhasesThatDidNotRunStayEmpty() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+
+        CompletableFuture<ResponseEntity<AccountValidationResponse>> future =
+            fintocApiService.validateAccountAsync("123456789");
+        assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+
+        AccountValidationLog log = singleWrittenLog();
+        assertNotNull(log.getSignTimeUs());
+        assertNull(log.getTtfbTimeUs());
+        assertNull(log.getBodyReadTimeUs());
+        assertNull(log.getParseTimeUs());
+    }
+
+    @Test
+    public void testValidateAccountAsyncConnectionFailure() throws Exception {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+
+        CompletableFuture<ResponseEntity<AccountValidationResponse>> future =
+            fintocApiService.validateAccountAsync("123456789");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertTrue(e.getCause() instanceof RuntimeException);
+        assertEquals("Account validation failed", e.getCause().getMessage());
+
+        AccountValidationLog log = singleWrittenLog();
+        assertEquals(0, log.getResponseStatus());
+        assertEquals("FAILED", log.getValidationResult());
+        assertTrue(writtenResponses.isEmpty());
+    }
+
+    @Test
+    public void testValidateAccountAsyncFailureBeforeEnqueue() throws Exception {
+        when(jwsSignatureService.createJwsHeader(anyString())).thenThrow(new RuntimeException("no private key"));
+
+        CompletableFuture<ResponseEntity<AccountValidationResponse>> future =
+            fintocApiService.validateAccountAsync("123456789");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertEquals("Account validation failed", e.getCause().getMessage());
+        assertEquals("no private key", e.getCause().getCause().getMessage());
+
+        // Nothing reached Fintoc, but the attempt is still logged
+        assertEquals(0, server.getRequestCount());
+        assertEquals(1, writtenLogs().size());
+    }
+
+    @Test
+    public void testValidateAccountRethrowsFailure() {
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+
+        RuntimeException e = assertThrows(RuntimeException.class,
+            () -> fintocApiService.validateAccount("123456789"));
+        assertEquals("Account validation failed", e.getMessage());
+    }
+
+    @Test
+    public void testConcurrentValidationsForSameAccountShareOneCall() throws Exception {
+        server.enqueue(new MockResponse()
+            .setResponseCode(201)
+            .setHeadersDelay(300, TimeUnit.MILLISECONDS)
+            .setBody("{\"id\":\"av_shared\",\"status\":\"pending\"}"));
+
+        CompletableFuture<ResponseEntity<AccountValidationResponse>> first =
+            fintocApiService.validateAccountAsync("123456789");
+        CompletableFuture<ResponseEntity<AccountValidationResponse>> second =
+            fintocApiService.validateAccountAsync("123456789");
+
+        assertEquals("av_shared", first.get(5, TimeUnit.SECONDS).getBody().getId());
+        assertEquals("av_shared", second.get(5, TimeUnit.SECONDS).getBody().getId());
+
+        // One Fintoc call, one stored row, and the second caller counted as coalesced
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, writtenLogs().size());
+        assertEquals(1.0, meterRegistry.get("fintoc.validation.coalesced").counter().count());
+    }
+
+    @Test
+    public void testSequentialValidationsAreNotCoalesced() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(201).setBody("{\"id\":\"av_1\"}"));
+        server.enqueue(new MockResponse().setResponseCode(201).setBody("{\"id\":\"av_2\"}"));
+
+        assertEquals("av_1", fintocApiService.validateAccountAsync("123456789").get(5, TimeUnit.SECONDS).getBody().getId());
+        assertEquals("av_2", fintocApiService.validateAccountAsync("123456789").get(5, TimeUnit.SECONDS).getBody().getId());
+
+        assertEquals(2, server.getRequestCount());
+        assertEquals(0.0, meterRegistry.get("fintoc.validation.coalesced").counter().count());
+    }
+
+    @Test
+    public void testRepeatedValidationServedFromCache() throws Exception {
+        fintocApiService.shutdown();
+        rateLimiter.shutdown();
+        writeBehind.shutdown();
+        fintocApiService = createService(new ValidationCacheConfig());
+        server.enqueue(new MockResponse().setResponseCode(201).setBody("{\"id\":\"av_1\"}"));
+
+        assertEquals("av_1", fintocApiService.validateAccountAsync("123456789").get(5, TimeUnit.SECONDS).getBody().getId());
+        ResponseEntity<AccountValidationResponse> cached =
+            fintocApiService.validateAccountAsync("123456789").get(5, TimeUnit.SECONDS);
+
+        assertEquals(201, cached.getStatusCodeValue());
+        assertEquals("av_1", cached.getBody().getId());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(1, writtenLogs().size());
+    }
+
+    @Test
+    public void testFailedValidationIsNotCached() throws Exception {
+        fintocApiService.shutdown();
+        rateLimiter.shutdown();
+        writeBehind.shutdown();
+        fintocApiService = createService(new ValidationCacheConfig());
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        server.enqueue(new MockResponse().setResponseCode(201).setBody("{\"id\":\"av_1\"}"));
+
+        CompletableFuture<ResponseEntity<AccountValidationResponse>> failed =
+            fintocApiService.validateAccountAsync("123456789");
+        assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+
+        assertEquals("av_1", fintocApiService.validateAccountAsync("123456789").get(5, TimeUnit.SECONDS).getBody().getId());
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void testThrottledResponseSlowsLimiterAndKeepsStatus() throws Exception {
+        server.enqueue(new MockResponse()
+            .setResponseCode(429)
+            .setHeader("Retry-After", "1")
+            .setBody("{\"error\":{\"type\":\"rate_limit_error\"}}"));
+        double rateBefore = rateLimiter.getCurrentRate();
+
+        ResponseEntity<AccountValidationResponse> response =
+            fintocApiService.validateAccountAsync("123456789").get(5, TimeUnit.SECONDS);
+
+        assertEquals(429, response.getStatusCodeValue());
+        assertEquals(rateBefore / 2, rateLimiter.getCurrentRate(), 0.001);
+
+        AccountValidationLog log = singleWrittenLog();
+        assertEquals(429, log.getResponseStatus());
+        assertEquals("Throttled by Fintoc (HTTP 429), retry after 1", log.getErrorMessage());
+        assertEquals("FAILED", log.getValidationResult());
+    }
+
+    @Test
+    public void testCallRejectedByRateLimiterIsNotSentOrLogged() throws Exception {
+        // A 429 asking for a pause far beyond max-wait-ms makes the next call fail fast
+        rateLimiter.onThrottled(Duration.ofMinutes(5));
+
+        CompletableFuture<ResponseEntity<AccountValidationResponse>> future =
+            fintocApiService.validateAccountAsync("123456789");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+        assertEquals("Account validation failed", e.getCause().getMessage());
+        assertTrue(e.getCause().getCause() instanceof RateLimitExceededException);
+        assertEquals(0, server.getRequestCount());
+        verify(jwsSignatureService, never()).createJwsHeader(anyString());
+        assertTrue(writtenLogs().isEmpty());
+    }
+
+    @Test
+    public void testOpenCircuitFailsFastWithoutCallingFintoc() throws Exception {
+        circuitBreaker.getCircuitBreaker().transitionToOpenState();
+
+        CompletableFuture<ResponseEntity<AccountValidationResponse>> future =
+            fintocApiService.validateAccountAsync("123456789");
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(1, TimeUnit.SECONDS));
+        assertTrue(e.getCause().getCause() instanceof FintocUnavailableException);
+        assertEquals(0, server.getRequestCount());
+        verify(jwsSignatureService, never()).createJwsHeader(anyString());
+        // Refusals are summarised later, not written per call
+        assertTrue(writtenLogs().isEmpty());
+    }
+
+    @Test
+    public void testServerErrorsCountAgainstCircuit() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(503).setBody("{}"));
+
+        fintocApiService.validateAccountAsync("123456789").get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, circuitBreaker.getCircuitBreaker().getMetrics().getNumberOfFailedCalls());
+        assertEquals(0, circuitBreaker.getCircuitBreaker().getMetrics().getNumberOfSuccessfulCalls());
+    }
+
+    @Test
+    public void testRetriesTransientFailuresWithSameIdempotencyKey() throws Exception {
+        recreateWithRetries(3);
+        server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        server.enqueue(new MockResponse().setResponseCode(503).setBody("{}"));
+        server.enqueue(new MockResponse().setResponseCode(201).setBody("{\"id\":\"av_retried\"}"));
+
+        ResponseEntity<AccountValidationResponse> response =
+            fintocApiService.validateAccountAsync("123456789").get(5, TimeUnit.SECONDS);
+
+        assertEquals(201, response.getStatusCodeValue());
+        assertEquals("av_retried", response.getBody().getId());
+        assertEquals(3, server.getRequestCount());
+
+        // Every attempt is signed again but shares one idempotency key
+        verify(jwsSignatureService, times(3)).createJwsHeader(anyString());
+        // (the dropped first connection is recorded without headers)
+        server.takeRequest();
+        String firstKey = server.takeRequest().getHeader("Idempotency-Key");
+        assertNotNull(firstKey);
+        assertEquals(firstKey, server.takeRequest().getHeader("Idempotency-Key"));
+
+        // One log row, listing all three attempts
+        AccountValidationLog log = singleWrittenLog();
+        JsonNode details = new ObjectMapper().readTree(log.getValidationDetails());
+        assertEquals(firstKey, details.path("idempotency_key").asText());
+        assertEquals(3, details.path("attempts").size());
+        assertEquals(0, details.path("attempts").get(0).path("status").asInt());
+        assertEquals("HTTP 503", details.path("attempts").get(1).path("error").asText());
+        assertEquals(201, details.path("attempts").get(2).path("status").asInt());
+        assertTrue(details.path("attempts").get(2).has("time_ms"));
+    }
+
+    @Test
+    public void testClientErrorsAreNotRetried() throws Exception {
+        recreateWithRetries(3);
+        server.enqueue(new MockResponse().setResponseCode(422).setBody("{\"error\":{}}"));
+
+        ResponseEntity<AccountValidationResponse> response =
+            fintocApiService.validateAccountAsync("123456789").get(5, TimeUnit.SECONDS);
+
+        assertEquals(422, response.getStatusCodeValue());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void testClientErrorWithHtmlBodyIsLoggedWithItsStatusAndNotRetried() throws Exception {
+        recreateWithRetries(3);
+        String html = "<html><body><h1>400 Bad Request</h1></body></html>";
+        server.enqueue(new MockResponse()
+            .setResponseCode(400)
+            .setHeader("content-type", "text/html")
+            .setBody(html));
+
+        ResponseEntity<AccountValidationResponse> response =
+            fintocApiService.validateAccountAsync("123456789").get(5, TimeUnit.SECONDS);
+
+        assertEquals(400, response.getStatusCodeValue());
+        assertEquals(1, server.getRequestCount());
+        AccountValidationLog log = singleWrittenLog();
+        assertEquals(400, log.getResponseStatus());
+        assertEquals(html, log.getResponseBody());
+        assertFalse(log.getSuccess());
+        assertEquals(1, new ObjectMapper().readTree(log.getValidationDetails()).path("attempts").size());
+    }
+
+    @Test
+    public void testUnreadableSuccessBodyIsNotRetried() throws Exception {
+        recreateWithRetries(3);
+        server.enqueue(new MockResponse().setResponseCode(201).setBody("<html>not json</html>"));
+
+        ExecutionException e = assertThrows(ExecutionException.class,
+            () -> fintocApiService.validateAccountAsync("123456789").get(5, TimeUnit.SECONDS));
+
+        assertTrue(e.getCause().getCause() instanceof IllegalStateException);
+        assertEquals(1, server.getRequestCount());
+        AccountValidationLog log = singleWrittenLog();
+        assertEquals(201, log.getResponseStatus());
+        assertEquals("<html>not json</html>", log.getResponseBody());
+    }
+
+    @Test
+    public void testGivesUpAfterMaxAttempts() throws Exception {
+        recreateWithRetries(2);
+        server.enqueue(new MockResponse().setResponseCode(502).setBody("{}"));
+        server.enqueue(new MockResponse().setResponseCode(502).setBody("{}"));
+
+        ResponseEntity<AccountValidationResponse> response =
+            fintocApiService.validateAccountAsync("123456789").get(5, TimeUnit.SECONDS);
+
+        assertEquals(502, response.getStatusCodeValue());
+        assertEquals(2, server.getRequestCount());
+        assertEquals(1, writtenLogs().size());
+    }
+
+    @Test
+    public void testBaseUrlIsConfigurable() throws Exception {
+        fintocApiService.shutdown();
+        rateLimiter.shutdown();
+        writeBehind.shutdown();
+        // Plain client: the configured base URL alone must reach the server
+        client = new OkHttpClient();
+        ValidationCacheConfig cacheConfig = new ValidationCacheConfig();
+        cacheConfig.setEnabled(false);
+        fintocApiService = createService(cacheConfig);
+        ReflectionTestUtils.setField(fintocApiService, "baseUrl", server.url("/stub/fintoc/v2").toString());
+        server.enqueue(new MockResponse()
+            .setResponseCode(201)
+            .setHeader("content-type", "application/json")
+            .setBody("{\"id\":\"av_123\",\"status\":\"pending\"}"));
+
+        fintocApiService.validateAccountAsync("123456789").get(5, TimeUnit.SECONDS);
+
+        assertEquals("/stub/fintoc/v2/account_verifications", server.takeRequest(5, TimeUnit.SECONDS).getPath());
+    }
+
+    @Test
+    public void testSlowCallIsHedgedWithSameIdempotencyKey() throws Exception {
+        fintocApiService.shutdown();
+        rateLimiter.shutdown();
+        writeBehind.shutdown();
+        hedgeConfig = new HedgeConfig();
+        hedgeConfig.setEnabled(true);
+        hedgeConfig.setMinSamples(5);
+        // Long enough for the first request to reach the server before the hedge does
+        hedgeConfig.setMinDelayMs(300);
+        ValidationCacheConfig cacheConfig = new ValidationCacheConfig();
+        cacheConfig.setEnabled(false);
+        fintocApiService = createService(cacheConfig);
+        RecentLatency latency = (RecentLatency) ReflectionTestUtils.getField(fintocApiService, "recentLatency");
+        for (int i = 0; i < 5; i++) {
+            latency.record(10);
+        }
+
+        // The first request stalls; the hedge sent after ~300ms gets the fast answer
+        server.enqueue(new MockResponse()
+            .setHeadersDelay(3, TimeUnit.SECONDS)
+            .setResponseCode(201)
+            .setHeader("content-type", "application/json")
+            .setBody("{\"id\":\"av_slow\",\"status\":\"pending\"}"));
+        server.enqueue(new MockResponse()
+            .setResponseCode(201)
+            .setHeader("content-type", "application/json")
+            .setBody("{\"id\":\"av_fast\",\"status\":\"pending\"}"));
+
+        long start = System.nanoTime();
+        ResponseEntity<AccountValidationResponse> response =
+            fintocApiService.validateAccountAsync("123456789").get(5, TimeUnit.SECONDS);
+
+        assertEquals("av_fast", response.getBody().getId());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+        RecordedRequest primary = server.takeRequest(5, TimeUnit.SECONDS);
+        RecordedRequest hedge = server.takeRequest(5, TimeUnit.SECONDS);
+        assertNotNull(primary.getHeader("Idempotency-Key"));
+        assertEquals(primary.getHeader("Idempotency-Key"), hedge.getHeader("Idempotency-Key"));
+
+        AccountValidationLog log = singleWrittenLog();
+        JsonNode attempt = new ObjectMapper().readTree(log.getValidationDetails()).path("attempts").get(0);
+        assertTrue(attempt.path("hedged").asBoolean());
+        assertEquals("hedge", attempt.path("hedge_winner").asText());
+        assertEquals(1.0, meterRegistry.get("fintoc.hedge.won").counter().count());
+
+        // Once the cancelled primary has given its bulkhead slot back, only the winner is in the phase timers
+        double maxCalls = meterRegistry.get("resilience4j.bulkhead.max.allowed.concurrent.calls").gauge().value();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("resilience4j.bulkhead.available.concurrent.calls").gauge().value() < maxCalls) {
+            assertTrue(System.nanoTime() < deadline, "cancelled primary never completed");
+            Thread.sleep(10);
+        }
+        assertEquals(1, meterRegistry.get("fintoc.validation.phase").tag("phase", "sign").timer().count());
+        assertEquals(1, meterRegistry.get("fintoc.validation.phase").tag("phase", "connect").timer().count());
+    }
+
+    @Test
+    public void testNoHedgeWithoutEnoughLatencyHistory() throws Exception {
+        fintocApiService.shutdown();
+        rateLimiter.shutdown();
+        writeBehind.shutdown();
+        hedgeConfig = new HedgeConfig();
+        hedgeConfig.setEnabled(true);
+        hedgeConfig.setMinDelayMs(1);
+        ValidationCacheConfig cacheConfig = new ValidationCacheConfig();
+        cacheConfig.setEnabled(false);
+        fintocApiService = createService(cacheConfig);
+
+        server.enqueue(new MockResponse()
+            .setHeadersDelay(200, TimeUnit.MILLISECONDS)
+            .setResponseCode(201)
+            .setHeader("content-type", "application/json")
+            .setBody("{\"id\":\"av_123\",\"status\":\"pending\"}"));
+
+        fintocApiService.validateAccountAsync("123456789").get(5, TimeUnit.SECONDS);
+
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0.0, meterRegistry.get("fintoc.hedge.fired").counter().count());
+    }
+
+    /**
+     * Wait for the write-behind queue to drain and return the logsbook rows it wrote
+     */
+    private List<AccountValidationLog> writtenLogs() throws InterruptedException {
+        assertTrue(writeBehind.flush(5, TimeUnit.SECONDS));
+        return new ArrayList<>(writtenLogs);
+    }
+
+    private AccountValidationLog singleWrittenLog() throws InterruptedException {
+        List<AccountValidationLog> logs = writtenLogs();
+        assertEquals(1, logs.size());
+        return logs.get(0);
+    }
+
+    private void recreateWithRetries(int maxAttempts) {
+        fintocApiService.shutdown();
+        rateLimiter.shutdown();
+        writeBehind.shutdown();
+        ValidationCacheConfig cacheConfig = new ValidationCacheConfig();
+        cacheConfig.setEnabled(false);
+        RetryConfig retryConfig = new RetryConfig();
+        retryConfig.setMaxAttempts(maxAttempts);
+        retryConfig.setInitialBackoffMs(5);
+        fintocApiService = createService(cacheConfig, retryConfig);
+    }
+}
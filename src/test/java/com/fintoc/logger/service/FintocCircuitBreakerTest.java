@@ -0,0 +1,117 @@
+package com.fintoc.logger.service;
+
+import com.fintoc.logger.config.ResilienceConfig;
+import com.fintoc.logger.entity.AccountValidationLog;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.net.SocketTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class FintocCircuitBreakerTest {
+
+    private final AccountValidationLogService validationLogService = mock(AccountValidationLogService.class);
+
+    private FintocCircuitBreaker create(int maxConcurrentCalls) {
+        ResilienceConfig config = new ResilienceConfig();
+        config.setSlidingWindowSize(4);
+        config.setMinimumNumberOfCalls(4);
+        config.setMaxConcurrentCalls(maxConcurrentCalls);
+        return new FintocCircuitBreaker(config, validationLogService, new SimpleMeterRegistry());
+    }
+
+    @Test
+    public void testOpensAfterNetworkFailuresAndServerErrors() {
+        FintocCircuitBreaker breaker = create(10);
+
+        for (int i = 0; i < 2; i++) {
+            breaker.acquire();
+            breaker.onComplete(1000, networkFailure());
+            breaker.acquire();
+            breaker.onComplete(1000, answered(502));
+        }
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertThrows(FintocUnavailableException.class, breaker::checkNotOpen);
+        assertThrows(FintocUnavailableException.class, breaker::acquire);
+    }
+
+    @Test
+    public void testClientErrorsThrottlingAndLocalFailuresKeepCircuitClosed() {
+        FintocCircuitBreaker breaker = create(10);
+
+        for (int i = 0; i < 4; i++) {
+            breaker.acquire();
+            breaker.onComplete(1000, answered(422));
+            breaker.acquire();
+            breaker.onComplete(1000, answered(429));
+            breaker.acquire();
+            breaker.onComplete(1000, ValidationOutcome.failure("acc", null, 0,
+                new RuntimeException("Account validation failed", new IllegalStateException("no key"))));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getCircuitBreaker().getMetrics().getNumberOfFailedCalls());
+    }
+
+    @Test
+    public void testBulkheadRefusesCallsOverTheCap() {
+        FintocCircuitBreaker breaker = create(2);
+
+        breaker.acquire();
+        breaker.acquire();
+        FintocUnavailableException e = assertThrows(FintocUnavailableException.class, breaker::acquire);
+        assertEquals("Too many concurrent Fintoc calls", e.getMessage());
+
+        // Finishing a call frees its slot
+        breaker.onComplete(1000, answered(200));
+        breaker.acquire();
+    }
+
+    @Test
+    public void testRefusedCallsAreWrittenAsOneSummaryRow() {
+        FintocCircuitBreaker breaker = create(10);
+        breaker.getCircuitBreaker().transitionToOpenState();
+
+        for (int i = 0; i < 5; i++) {
+            assertThrows(FintocUnavailableException.class, breaker::checkNotOpen);
+        }
+        breaker.flushRejections();
+        // Nothing new to report
+        breaker.flushRejections();
+
+        ArgumentCaptor<AccountValidationLog> log = ArgumentCaptor.forClass(AccountValidationLog.class);
+        verify(validationLogService, times(1)).saveValidationLog(log.capture());
+        assertEquals("circuit_breaker", log.getValue().getValidationType());
+        assertEquals(503, log.getValue().getResponseStatus());
+        assertTrue(log.getValue().getErrorMessage().startsWith("5 Fintoc calls refused"),
+            log.getValue().getErrorMessage());
+    }
+
+    @Test
+    public void testDisabledBreakerLetsEverythingThrough() {
+        ResilienceConfig config = new ResilienceConfig();
+        config.setEnabled(false);
+        config.setMaxConcurrentCalls(1);
+        FintocCircuitBreaker breaker = new FintocCircuitBreaker(config, validationLogService, new SimpleMeterRegistry());
+
+        breaker.acquire();
+        breaker.acquire();
+        breaker.checkNotOpen();
+        verify(validationLogService, never()).saveValidationLog(any());
+    }
+
+    private static ValidationOutcome networkFailure() {
+        return ValidationOutcome.failure("acc", null, 0,
+            new RuntimeException("Account validation failed", new SocketTimeoutException("timeout")));
+    }
+
+    private static ValidationOutcome answered(int status) {
+        return ValidationOutcome.success("acc", null, null, status);
+    }
+}
@@ -0,0 +1,117 @@
+package com.fintoc.logger.service;
+
+import com.fintoc.logger.config.RateLimitConfig;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FintocRateLimiterTest {
+
+    private final AtomicLong now = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private FintocRateLimiter rateLimiter;
+
+    @AfterEach
+    public void tearDown() {
+        if (rateLimiter != null) {
+            rateLimiter.shutdown();
+        }
+    }
+
+    private FintocRateLimiter create(double rate, int burst, long maxWaitMs) {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setInitialRate(rate);
+        config.setBurst(burst);
+        config.setMaxWaitMs(maxWaitMs);
+        rateLimiter = new FintocRateLimiter(config, meterRegistry, now::get);
+        return rateLimiter;
+    }
+
+    @Test
+    public void testBurstIsFreeThenCallsAreSpacedByRate() {
+        FintocRateLimiter limiter = create(10, 3, 5000);
+
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        // 10 calls/s: the fourth call waits one interval, the fifth two
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.reserve());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(200), limiter.reserve());
+
+        // After a quiet second the burst is available again
+        now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertEquals(0, limiter.reserve());
+    }
+
+    @Test
+    public void testRejectsWhenWaitExceedsMaximum() {
+        FintocRateLimiter limiter = create(10, 1, 150);
+
+        assertEquals(0, limiter.reserve());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.reserve());
+        assertEquals(-1, limiter.reserve());
+
+        CompletableFuture<Void> rejected = limiter.acquire();
+        assertTrue(rejected.isCompletedExceptionally());
+        assertEquals(1.0, meterRegistry.get("fintoc.ratelimit.rejected").counter().count());
+    }
+
+    @Test
+    public void testThrottleCutsRateOnceAndHonoursRetryAfter() {
+        FintocRateLimiter limiter = create(20, 5, 10000);
+
+        limiter.onThrottled(Duration.ofSeconds(2));
+        limiter.onThrottled(Duration.ofSeconds(2));
+        // Two 429s from the same burst count as one signal
+        assertEquals(10, limiter.getCurrentRate(), 0.001);
+        assertEquals(TimeUnit.SECONDS.toNanos(2), limiter.reserve());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(3));
+        limiter.onThrottled(null);
+        assertEquals(5, limiter.getCurrentRate(), 0.001);
+        assertEquals(3.0, meterRegistry.get("fintoc.ratelimit.throttled").counter().count());
+        assertEquals(5.0, meterRegistry.get("fintoc.ratelimit.rate").gauge().value(), 0.001);
+    }
+
+    @Test
+    public void testSuccessesRaiseRateUpToMaximum() {
+        FintocRateLimiter limiter = create(49, 5, 5000);
+
+        for (int i = 0; i < 1000; i++) {
+            limiter.onSuccess();
+        }
+        assertEquals(50, limiter.getCurrentRate(), 0.001);
+    }
+
+    @Test
+    public void testDelayedSlotCompletesAndQueueDrains() throws Exception {
+        RateLimitConfig config = new RateLimitConfig();
+        config.setInitialRate(20);
+        config.setBurst(1);
+        rateLimiter = new FintocRateLimiter(config, meterRegistry);
+
+        assertTrue(rateLimiter.acquire().isDone());
+        CompletableFuture<Void> delayed = rateLimiter.acquire();
+        assertFalse(delayed.isDone());
+        assertEquals(1, rateLimiter.getQueuedCalls());
+
+        delayed.get(1, TimeUnit.SECONDS);
+        assertEquals(0, rateLimiter.getQueuedCalls());
+    }
+
+    @Test
+    public void testParseRetryAfter() {
+        assertEquals(Duration.ofSeconds(30), FintocRateLimiter.parseRetryAfter("30"));
+        assertEquals(Duration.ZERO, FintocRateLimiter.parseRetryAfter("Wed, 21 Oct 2015 07:28:00 GMT"));
+        assertNull(FintocRateLimiter.parseRetryAfter("soon"));
+        assertNull(FintocRateLimiter.parseRetryAfter(null));
+    }
+}
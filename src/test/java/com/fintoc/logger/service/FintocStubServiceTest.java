@@ -0,0 +1,128 @@
+package com.fintoc.logger.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintoc.logger.config.FintocStubConfig;
+import com.fintoc.logger.entity.AccountValidationResponse;
+import com.fintoc.logger.repository.WebhookLogRepository;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+public class FintocStubServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final FintocStubConfig config = new FintocStubConfig();
+    private WebhookService webhookService;
+    private FintocStubService stubService;
+
+    @BeforeEach
+    public void setUp() {
+        webhookService = new WebhookService(objectMapper, mock(WebhookLogRepository.class),
+            mock(ValidationResultCache.class), mock(RecentWebhookEvents.class));
+        ReflectionTestUtils.setField(webhookService, "apiKey", "sk_test_1234567890");
+        config.setWebhooksEnabled(false);
+        stubService = new FintocStubService(config, new OkHttpClient(), objectMapper, webhookService);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        stubService.shutdown();
+    }
+
+    @Test
+    public void testLatencyStaysWithinConfiguredBounds() {
+        config.setLatencyMinMs(20);
+        config.setLatencyMedianMs(100);
+        config.setLatencyP99Ms(400);
+        config.setLatencyMaxMs(500);
+        Random random = new Random(42);
+
+        long belowMedian = 0;
+        for (int i = 0; i < 1000; i++) {
+            long latency = stubService.sampleLatencyMs(random);
+            assertTrue(latency >= 20 && latency <= 500, "latency " + latency);
+            if (latency <= 100) {
+                belowMedian++;
+            }
+        }
+        assertTrue(belowMedian > 400 && belowMedian < 600, "below median: " + belowMedian);
+
+        config.setLatencyDistribution("fixed");
+        assertEquals(100, stubService.sampleLatencyMs(random));
+    }
+
+    @Test
+    public void testVerificationResponseParsesAsFintocResponse() throws Exception {
+        config.setLatencyDistribution("fixed");
+        config.setLatencyMedianMs(1);
+        config.setPayloadPaddingBytes(2048);
+
+        ResponseEntity<String> response = stubService
+            .createAccountVerification("{\"account_number\":\"123456789\"}", null)
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals(201, response.getStatusCodeValue());
+        assertTrue(response.getBody().length() > 2048);
+        AccountValidationResponse parsed = objectMapper.readValue(response.getBody(), AccountValidationResponse.class);
+        assertTrue(parsed.getId().startsWith("av_stub_"));
+        assertEquals("pending", parsed.getStatus());
+        assertEquals("123456789", parsed.getCounterparty().getAccountNumber());
+    }
+
+    @Test
+    public void testSameIdempotencyKeyGetsSameVerification() throws Exception {
+        ResponseEntity<String> first = stubService.answer("{\"account_number\":\"123\"}", "key-1");
+        ResponseEntity<String> second = stubService.answer("{\"account_number\":\"123\"}", "key-1");
+        ResponseEntity<String> other = stubService.answer("{\"account_number\":\"123\"}", "key-2");
+
+        String firstId = objectMapper.readTree(first.getBody()).path("id").asText();
+        assertEquals(firstId, objectMapper.readTree(second.getBody()).path("id").asText());
+        assertNotEquals(firstId, objectMapper.readTree(other.getBody()).path("id").asText());
+    }
+
+    @Test
+    public void testErrorAndThrottleRates() throws Exception {
+        config.setThrottleRate(1.0);
+        ResponseEntity<String> throttled = stubService.answer("{\"account_number\":\"123\"}", null);
+        assertEquals(429, throttled.getStatusCodeValue());
+        assertEquals("1", throttled.getHeaders().getFirst("Retry-After"));
+
+        config.setThrottleRate(0.0);
+        config.setErrorRate(1.0);
+        assertEquals(500, stubService.answer("{\"account_number\":\"123\"}", null).getStatusCodeValue());
+    }
+
+    @Test
+    public void testWebhookIsSignedForTheWebhookEndpoint() throws Exception {
+        MockWebServer receiver = new MockWebServer();
+        receiver.enqueue(new MockResponse().setResponseCode(200));
+        receiver.start();
+        try {
+            config.setWebhookUrl(receiver.url("/webhooks/fintoc").toString());
+
+            stubService.postWebhook("av_stub_1", "123456789");
+
+            RecordedRequest webhook = receiver.takeRequest(5, TimeUnit.SECONDS);
+            assertNotNull(webhook);
+            String body = webhook.getBody().readUtf8();
+            assertTrue(webhookService.verifyWebhookSignature(body, webhook.getHeader("fintoc-signature")));
+            assertEquals("av_stub_1", objectMapper.readTree(body).path("data").path("id").asText());
+            assertEquals("123456789", objectMapper.readTree(body)
+                .path("data").path("counterparty").path("account_number").asText());
+        } finally {
+            receiver.shutdown();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.fintoc.logger.service;
+
+import com.fintoc.logger.config.JwsSignatureConfig;
+import com.fintoc.logger.dto.JwsBatchResultDto;
+import com.fintoc.logger.dto.JwsTokenDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class JwsBatchServiceTest {
+
+    private JwsSignatureService jwsSignatureService;
+    private NonceTrackingService nonceTrackingService;
+    private JwsBatchService batchService;
+    // Nonces the stubbed store has seen
+    private final Set<String> storedNonces = new HashSet<>();
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        KeyPair pair = generator.generateKeyPair();
+        JwsSignatureConfig config = new JwsSignatureConfig();
+        config.setPrivateKey(Base64.getEncoder().encodeToString(pair.getPrivate().getEncoded()));
+        config.setPublicKey(Base64.getEncoder().encodeToString(pair.getPublic().getEncoded()));
+        jwsSignatureService = new JwsSignatureService(config);
+
+        nonceTrackingService = mock(NonceTrackingService.class);
+        when(nonceTrackingService.validateAndMarkNonces(anyCollection())).thenAnswer(invocation -> {
+            Set<String> accepted = new HashSet<>();
+            for (String nonce : invocation.<Collection<String>>getArgument(0)) {
+                if (storedNonces.add(nonce)) {
+                    accepted.add(nonce);
+                }
+            }
+            return accepted;
+        });
+        ReflectionTestUtils.setField(jwsSignatureService, "nonceTrackingService", nonceTrackingService);
+
+        // Chunks of 4 so the tests cross chunk boundaries
+        batchService = new JwsBatchService(jwsSignatureService, nonceTrackingService, 3, 4, 100, 1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        batchService.shutdown();
+    }
+
+    @Test
+    public void testCreateJwsHeadersReportsEveryBodyInOrder() throws Exception {
+        List<String> bodies = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            bodies.add("{\"account_number\":\"" + i + "\"}");
+        }
+        bodies.set(5, "");
+
+        List<JwsBatchResultDto> results = run(batchService.createJwsHeaders(bodies, collector()));
+
+        assertEquals(10, results.size());
+        for (int i = 0; i < 10; i++) {
+            JwsBatchResultDto result = results.get(i);
+            assertEquals(i, result.getIndex());
+            if (i == 5) {
+                assertEquals("error", result.getStatus());
+            } else {
+                assertEquals("success", result.getStatus());
+                assertTrue(jwsSignatureService.verifyJwsSignature(result.getJwsHeader(), bodies.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void testVerifyJwsMarksOnlyBadTokensInvalid() throws Exception {
+        String body = "{\"account_number\":\"123\"}";
+        String detached = jwsSignatureService.createJwsHeader(body);
+        String complete = jwsSignatureService.createCompleteJws(body);
+        List<JwsTokenDto> tokens = Arrays.asList(
+            new JwsTokenDto(detached, body),
+            new JwsTokenDto(complete, null),
+            new JwsTokenDto(detached, "{\"account_number\":\"456\"}"),
+            new JwsTokenDto(null, null),
+            new JwsTokenDto(complete, null));
+
+        List<JwsBatchResultDto> results = run(batchService.verifyJws(tokens, collector()));
+
+        assertEquals(Arrays.asList("valid", "valid", "invalid", "error", "valid"), statuses(results));
+        verifyNoInteractions(nonceTrackingService);
+    }
+
+    @Test
+    public void testComprehensiveChecksNoncesOncePerChunk() throws Exception {
+        List<JwsTokenDto> tokens = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            tokens.add(new JwsTokenDto(jwsSignatureService.createCompleteJws("{\"n\":" + i + "}"), null));
+        }
+        // Replay of item 0 within the first chunk, and a forged token whose nonce must not be burned
+        tokens.add(2, tokens.get(0));
+        String unused = jwsSignatureService.createCompleteJws("{\"n\":6}");
+        tokens.add(new JwsTokenDto(unused.substring(0, unused.lastIndexOf('.') + 1) + "AAAA", null));
+
+        List<JwsBatchResultDto> results = run(batchService.validateJwsComprehensive(tokens, collector()));
+
+        assertEquals(Arrays.asList("valid", "valid", "invalid", "valid", "valid", "valid", "valid", "invalid"),
+            statuses(results));
+        assertEquals("Nonce already used", results.get(2).getError());
+        // 8 items in chunks of 4: two round trips, 6 distinct nonces stored
+        verify(nonceTrackingService, times(2)).validateAndMarkNonces(anyCollection());
+        verify(nonceTrackingService, never()).validateAndMarkNonce(anyString());
+        assertEquals(6, storedNonces.size());
+
+        // The whole batch again is a replay
+        List<JwsBatchResultDto> replay = run(batchService.validateJwsComprehensive(tokens.subList(0, 2), collector()));
+        assertEquals(Arrays.asList("invalid", "invalid"), statuses(replay));
+    }
+
+    @Test
+    public void testFailedBatchNonceCheckFallsBackToSingleChecks() throws Exception {
+        when(nonceTrackingService.validateAndMarkNonces(anyCollection()))
+            .thenThrow(new IllegalStateException("duplicate key"));
+        when(nonceTrackingService.validateAndMarkNonce(anyString())).thenReturn(true, false);
+        List<JwsTokenDto> tokens = Arrays.asList(
+            new JwsTokenDto(jwsSignatureService.createCompleteJws("{}"), null),
+            new JwsTokenDto(jwsSignatureService.createCompleteJws("{}"), null));
+
+        List<JwsBatchResultDto> results = run(batchService.validateJwsComprehensive(tokens, collector()));
+
+        assertEquals(Arrays.asList("valid", "invalid"), statuses(results));
+    }
+
+    private final List<JwsBatchResultDto> collected = new ArrayList<>();
+
+    private java.util.function.Consumer<JwsBatchResultDto> collector() {
+        collected.clear();
+        return collected::add;
+    }
+
+    private List<JwsBatchResultDto> run(java.util.concurrent.CompletableFuture<Void> batch) throws Exception {
+        batch.get(30, TimeUnit.SECONDS);
+        return new ArrayList<>(collected);
+    }
+
+    private static List<String> statuses(List<JwsBatchResultDto> results) {
+        List<String> statuses = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+            statuses.add(results.get(i).getStatus());
+        }
+        return statuses;
+    }
+}
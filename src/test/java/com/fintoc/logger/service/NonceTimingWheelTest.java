@@ -0,0 +1,64 @@
+package com.fintoc.logger.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NonceTimingWheelTest {
+
+    private static final long TICK = 1000;
+    private static final long TTL = 10 * TICK;
+
+    @Test
+    public void testRejectsNonceSeenWithinTtl() {
+        NonceTimingWheel wheel = new NonceTimingWheel(TTL, TICK, 100, 0);
+
+        assertTrue(wheel.add("a", 0));
+        assertFalse(wheel.add("a", 500));
+        assertFalse(wheel.add("a", TTL));
+        assertTrue(wheel.add("b", TTL));
+    }
+
+    @Test
+    public void testForgetsNoncesAfterTtl() {
+        NonceTimingWheel wheel = new NonceTimingWheel(TTL, TICK, 100, 0);
+        wheel.add("a", 0);
+        wheel.add("b", 5 * TICK);
+
+        wheel.expire(TTL + TICK);
+        assertFalse(wheel.contains("a"));
+        assertTrue(wheel.contains("b"));
+
+        // Idle for several turns of the wheel, then everything is gone
+        wheel.expire(100 * TTL);
+        assertEquals(0, wheel.size());
+        assertTrue(wheel.add("a", 100 * TTL));
+        assertFalse(wheel.add("a", 100 * TTL + TICK));
+    }
+
+    @Test
+    public void testReaddedNonceKeepsItsNewExpiry() {
+        NonceTimingWheel wheel = new NonceTimingWheel(TTL, TICK, 100, 0);
+        wheel.add("a", 0);
+        wheel.remove("a");
+        assertTrue(wheel.add("a", 3 * TICK));
+
+        // The stale bucket entry from the first add must not expire the second one
+        wheel.expire(TTL + TICK);
+        assertTrue(wheel.contains("a"));
+        wheel.expire(TTL + 4 * TICK);
+        assertFalse(wheel.contains("a"));
+    }
+
+    @Test
+    public void testFullWheelStopsRemembering() {
+        NonceTimingWheel wheel = new NonceTimingWheel(TTL, TICK, 2, 0);
+        assertTrue(wheel.add("a", 0));
+        assertTrue(wheel.add("b", 0));
+
+        assertTrue(wheel.add("c", 0));
+        assertTrue(wheel.add("c", 0));
+        assertFalse(wheel.add("a", 0));
+        assertEquals(2, wheel.size());
+    }
+}
@@ -0,0 +1,106 @@
+package com.fintoc.logger.service;
+
+import com.fintoc.logger.repository.NonceTrackingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+public class NonceTrackingServiceTest {
+
+    @Autowired
+    private NonceTrackingService nonceTrackingService;
+
+    @Autowired
+    private NonceTrackingRepository nonceRepository;
+
+    @Test
+    public void testBatchMarksOnlyUnusedNonces() {
+        long hour = NonceTrackingRepository.hourOf(LocalDateTime.now());
+        assertTrue(nonceTrackingService.validateAndMarkNonce("nonce-a"));
+
+        Set<String> accepted = nonceTrackingService.validateAndMarkNonces(
+            Arrays.asList("nonce-a", "nonce-b", "nonce-c", "nonce-b", "", null));
+
+        assertEquals(new HashSet<>(Arrays.asList("nonce-b", "nonce-c")), accepted);
+        assertTrue(nonceRepository.existsByNonce("nonce-b", hour));
+        assertTrue(nonceRepository.existsByNonce("nonce-c", hour));
+        assertFalse(nonceTrackingService.validateAndMarkNonce("nonce-c"));
+        assertTrue(nonceTrackingService.validateAndMarkNonces(Arrays.asList("nonce-b", "nonce-c")).isEmpty());
+    }
+
+    @Test
+    public void testNonceUsedOnAnotherInstanceIsRejected() {
+        // Stored by another instance, so not in this one's memory
+        LocalDateTime now = LocalDateTime.now();
+        nonceRepository.insertIfAbsent("nonce-elsewhere", now, now.plusHours(2), NonceTrackingRepository.hourOf(now));
+
+        assertFalse(nonceTrackingService.validateAndMarkNonce("nonce-elsewhere"));
+        assertTrue(nonceTrackingService.validateAndMarkNonce("nonce-fresh"));
+        assertFalse(nonceTrackingService.validateAndMarkNonce("nonce-fresh"));
+    }
+
+    @Test
+    public void testInsertIfAbsentInsertsOnce() {
+        LocalDateTime now = LocalDateTime.now();
+        long hour = NonceTrackingRepository.hourOf(now);
+
+        assertEquals(1, nonceRepository.insertIfAbsent("nonce-once", now, now.plusHours(2), hour));
+        assertEquals(0, nonceRepository.insertIfAbsent("nonce-once", now, now.plusHours(2), hour));
+        assertTrue(nonceRepository.existsByNonce("nonce-once", hour));
+    }
+
+    @Test
+    public void testNonceStaysUsedForTwoHoursAcrossHourBoundaries() {
+        LocalDateTime now = LocalDateTime.now();
+        long hour = NonceTrackingRepository.hourOf(now);
+
+        assertEquals(1, nonceRepository.insertIfAbsent("nonce-hours", now, now.plusHours(2), hour));
+        // e.g. another instance whose clock is already in the next hour
+        assertEquals(0, nonceRepository.insertIfAbsent("nonce-hours", now, now.plusHours(2), hour + 1));
+        assertTrue(nonceRepository.existsByNonce("nonce-hours", hour + 2));
+        assertFalse(nonceRepository.existsByNonce("nonce-hours", hour + 3));
+    }
+
+    @Test
+    public void testMarksInAdjacentHoursShareASlot() {
+        LocalDateTime now = LocalDateTime.now();
+        long hour = NonceTrackingRepository.hourOf(now);
+        nonceRepository.insertAll(Collections.singleton("nonce-boundary"), now, now.plusHours(2), hour);
+
+        // A writer in the next hour that missed the first mark still collides on the shared slot
+        assertThrows(DataIntegrityViolationException.class, () ->
+            nonceRepository.insertAll(Collections.singleton("nonce-boundary"), now, now.plusHours(2), hour + 1));
+    }
+
+    @Test
+    public void testCleanupTruncatesOnlyExpiredSlots() {
+        LocalDateTime now = LocalDateTime.now();
+        long hour = NonceTrackingRepository.hourOf(now);
+        nonceRepository.insertIfAbsent("nonce-old", now.minusHours(4), now.minusHours(2), hour - 4);
+        nonceRepository.insertIfAbsent("nonce-older", now.minusHours(5), now.minusHours(3), hour - 5);
+        // Marked two hours ago: still used until this hour is over
+        nonceRepository.insertIfAbsent("nonce-recent", now.minusHours(2), now, hour - 2);
+        nonceRepository.insertIfAbsent("nonce-live", now, now.plusHours(2), hour);
+
+        nonceTrackingService.cleanupExpiredNonces();
+
+        assertFalse(nonceRepository.existsByNonce("nonce-old", hour - 3));
+        assertFalse(nonceRepository.existsByNonce("nonce-older", hour - 4));
+        assertTrue(nonceRepository.existsByNonce("nonce-recent", hour));
+        assertTrue(nonceRepository.existsByNonce("nonce-live", hour));
+    }
+}
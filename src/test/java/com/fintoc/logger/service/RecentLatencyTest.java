@@ -0,0 +1,40 @@
+package com.fintoc.logger.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecentLatencyTest {
+
+    @Test
+    public void testEmptyWindowHasNoPercentile() {
+        RecentLatency latency = new RecentLatency(10);
+
+        assertEquals(0, latency.size());
+        assertEquals(-1, latency.percentile(95));
+    }
+
+    @Test
+    public void testNearestRankPercentile() {
+        RecentLatency latency = new RecentLatency(100);
+        for (int i = 1; i <= 100; i++) {
+            latency.record(i);
+        }
+
+        assertEquals(50, latency.percentile(50));
+        assertEquals(95, latency.percentile(95));
+        assertEquals(100, latency.percentile(100));
+    }
+
+    @Test
+    public void testOldSamplesLeaveTheWindow() {
+        RecentLatency latency = new RecentLatency(3);
+        latency.record(1000);
+        latency.record(10);
+        latency.record(20);
+        latency.record(30);
+
+        assertEquals(3, latency.size());
+        assertEquals(30, latency.percentile(100));
+    }
+}
@@ -0,0 +1,82 @@
+package com.fintoc.logger.service;
+
+import com.fintoc.logger.config.ValidationCacheConfig;
+import com.fintoc.logger.entity.AccountValidationResponse;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ValidationResultCacheTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void testCachesSuccessfulAnswers() {
+        ValidationResultCache cache = new ValidationResultCache(new ValidationCacheConfig(), meterRegistry);
+        ValidationOutcome outcome = outcome("123", "av_1", 201);
+
+        assertNull(cache.get("123"));
+        cache.put(outcome);
+
+        assertSame(outcome, cache.get("123"));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "fintoc.validation").tag("result", "hit")
+            .functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "fintoc.validation").tag("result", "miss")
+            .functionCounter().count());
+    }
+
+    @Test
+    public void testCachesClientErrorsOnlyWhenNegativeCachingIsOn() {
+        ValidationResultCache cache = new ValidationResultCache(new ValidationCacheConfig(), meterRegistry);
+        cache.put(outcome("404-account", null, 404));
+        assertNotNull(cache.get("404-account"));
+
+        ValidationCacheConfig noNegative = new ValidationCacheConfig();
+        noNegative.setNegativeTtlSeconds(0);
+        ValidationResultCache strictCache = new ValidationResultCache(noNegative, new SimpleMeterRegistry());
+        strictCache.put(outcome("404-account", null, 404));
+        assertNull(strictCache.get("404-account"));
+    }
+
+    @Test
+    public void testSkipsTransientAndFailedOutcomes() {
+        ValidationResultCache cache = new ValidationResultCache(new ValidationCacheConfig(), meterRegistry);
+        cache.put(outcome("throttled", null, 429));
+        cache.put(outcome("server-error", null, 503));
+        cache.put(ValidationOutcome.failure("reset", null, 0, new RuntimeException("Account validation failed")));
+
+        assertNull(cache.get("throttled"));
+        assertNull(cache.get("server-error"));
+        assertNull(cache.get("reset"));
+    }
+
+    @Test
+    public void testWebhookInvalidatesByValidationId() {
+        ValidationResultCache cache = new ValidationResultCache(new ValidationCacheConfig(), meterRegistry);
+        cache.put(outcome("123", "av_1", 201));
+
+        cache.invalidateByValidationId("av_unknown");
+        assertNotNull(cache.get("123"));
+
+        cache.invalidateByValidationId("av_1");
+        assertNull(cache.get("123"));
+    }
+
+    @Test
+    public void testDisabledCacheStoresNothing() {
+        ValidationCacheConfig config = new ValidationCacheConfig();
+        config.setEnabled(false);
+        ValidationResultCache cache = new ValidationResultCache(config, meterRegistry);
+
+        cache.put(outcome("123", "av_1", 201));
+        assertNull(cache.get("123"));
+    }
+
+    private static ValidationOutcome outcome(String accountId, String validationId, int status) {
+        AccountValidationResponse response = new AccountValidationResponse();
+        response.setId(validationId);
+        return ValidationOutcome.success(accountId, response, null, status);
+    }
+}
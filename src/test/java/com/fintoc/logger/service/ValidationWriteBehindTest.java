@@ -0,0 +1,139 @@
+package com.fintoc.logger.service;
+
+import com.fintoc.logger.config.PersistenceConfig;
+import com.fintoc.logger.entity.AccountValidationLog;
+import com.fintoc.logger.entity.AccountValidationResponse;
+import com.fintoc.logger.repository.AccountValidationResponseRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class ValidationWriteBehindTest {
+
+    private final AccountValidationResponseRepository responseRepository = mock(AccountValidationResponseRepository.class);
+    private final AccountValidationLogService validationLogService = mock(AccountValidationLogService.class);
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+    private ValidationWriteBehind writeBehind;
+
+    private ValidationWriteBehind create(int queueCapacity, int flushSize, long flushIntervalMs, long offerTimeoutMs) {
+        PersistenceConfig config = new PersistenceConfig();
+        config.setQueueCapacity(queueCapacity);
+        config.setFlushSize(flushSize);
+        config.setFlushIntervalMs(flushIntervalMs);
+        config.setOfferTimeoutMs(offerTimeoutMs);
+        when(validationLogService.saveValidationLogs(anyList())).thenAnswer(invocation -> {
+            List<AccountValidationLog> logs = invocation.getArgument(0);
+            batchSizes.add(logs.size());
+            return logs;
+        });
+        writeBehind = new ValidationWriteBehind(config, responseRepository, validationLogService,
+            mock(PlatformTransactionManager.class), meterRegistry);
+        return writeBehind;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        writeBehind.shutdown();
+    }
+
+    @Test
+    public void testOutcomesAreWrittenInBatches() throws Exception {
+        create(100, 5, 1000, 1000);
+
+        for (int i = 0; i < 10; i++) {
+            writeBehind.submit(outcome("acc-" + i));
+        }
+
+        assertTrue(writeBehind.flush(5, TimeUnit.SECONDS));
+        assertEquals(10, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.size() <= 3, "batches: " + batchSizes);
+        verify(responseRepository, atLeastOnce()).saveAll(anyList());
+        verify(validationLogService, never()).saveValidationLog(any());
+    }
+
+    @Test
+    public void testPartialBatchIsWrittenAfterFlushInterval() throws Exception {
+        create(100, 100, 20, 1000);
+
+        writeBehind.submit(outcome("acc-1"));
+
+        assertTrue(writeBehind.flush(2, TimeUnit.SECONDS));
+        assertEquals(1, batchSizes.size());
+        assertEquals(1, meterRegistry.get("fintoc.validation.phase").tag("phase", "persist").timer().count());
+    }
+
+    @Test
+    public void testFailedBatchFallsBackToRowByRow() throws Exception {
+        create(100, 3, 1000, 1000);
+        doThrow(new RuntimeException("duplicate key")).when(responseRepository).saveAll(anyList());
+
+        for (int i = 0; i < 3; i++) {
+            writeBehind.submit(outcome("acc-" + i));
+        }
+
+        assertTrue(writeBehind.flush(5, TimeUnit.SECONDS));
+        verify(responseRepository, times(3)).save(any());
+        verify(validationLogService, times(3)).saveValidationLog(any());
+    }
+
+    @Test
+    public void testFullQueueMakesProducerWriteItself() throws Exception {
+        create(1, 1, 0, 10);
+        CountDownLatch writerBlocked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger producerWrites = new AtomicInteger();
+        when(validationLogService.saveValidationLogs(anyList())).thenAnswer(invocation -> {
+            if (Thread.currentThread().getName().equals("fintoc-write-behind")) {
+                writerBlocked.countDown();
+                release.await(5, TimeUnit.SECONDS);
+            } else {
+                producerWrites.incrementAndGet();
+            }
+            return invocation.getArgument(0);
+        });
+
+        writeBehind.submit(outcome("acc-1"));
+        assertTrue(writerBlocked.await(5, TimeUnit.SECONDS));
+        writeBehind.submit(outcome("acc-2"));   // fills the queue while the writer is busy
+        writeBehind.submit(outcome("acc-3"));   // no room: written on this thread
+
+        assertEquals(1, producerWrites.get());
+        assertEquals(1.0, meterRegistry.get("fintoc.persistence.overflow").counter().count());
+        release.countDown();
+        assertTrue(writeBehind.flush(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testShutdownWritesEverythingQueued() {
+        create(100, 1000, 60000, 1000);
+
+        for (int i = 0; i < 7; i++) {
+            writeBehind.submit(outcome("acc-" + i));
+        }
+        writeBehind.shutdown();
+
+        assertEquals(7, batchSizes.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    private static ValidationOutcome outcome(String accountId) {
+        AccountValidationResponse response = new AccountValidationResponse();
+        response.setId("av_" + accountId);
+        AccountValidationLog log = AccountValidationLogService.buildValidationLog(
+            accountId, null, null, null, 201, null, null, 10L, null, true, null, response.getId());
+        return ValidationOutcome.success(accountId, response, log, 201);
+    }
+}
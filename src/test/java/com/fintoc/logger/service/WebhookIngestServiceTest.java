@@ -0,0 +1,205 @@
+package com.fintoc.logger.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintoc.logger.config.WebhookIngestConfig;
+import com.fintoc.logger.entity.WebhookLog;
+import com.fintoc.logger.repository.WebhookLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class WebhookIngestServiceTest {
+
+    @TempDir
+    Path journalDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final WebhookService webhookService = mock(WebhookService.class);
+    private final WebhookLogRepository repository = mock(WebhookLogRepository.class);
+    private final List<String> storedEventIds = new CopyOnWriteArrayList<>();
+    private WebhookIngestService ingestService;
+
+    private WebhookIngestService create() {
+        WebhookIngestConfig config = new WebhookIngestConfig();
+        config.setEnabled(true);
+        config.setJournalDir(journalDir.toString());
+        config.setSegmentSize(DataSize.ofKilobytes(64));
+        config.setFsync(WebhookIngestConfig.Fsync.NEVER);
+        config.setBatchSize(10);
+        config.setRetryBackoffMs(10);
+        when(webhookService.toWebhookLog(any(JsonNode.class), any(), any())).thenAnswer(invocation -> {
+            WebhookLog webhookLog = new WebhookLog();
+            webhookLog.setEventId(invocation.<JsonNode>getArgument(0).path("id").asText());
+            webhookLog.setSignatureHeader(invocation.getArgument(1));
+            webhookLog.setRawBody(invocation.getArgument(2));
+            return webhookLog;
+        });
+        // The batch API goes straight to the repository, as the real one does inside its transaction
+        when(webhookService.saveWebhookLogs(anyList())).thenAnswer(invocation -> repository.saveAll(invocation.getArgument(0)));
+        ingestService = new WebhookIngestService(config, webhookService, objectMapper, repository,
+            new SimpleMeterRegistry());
+        return ingestService;
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (ingestService != null) {
+            ingestService.shutdown();
+        }
+    }
+
+    @Test
+    public void testAcceptedWebhooksAreStoredInBatches() throws Exception {
+        recordSaveAll();
+        create();
+
+        for (int i = 0; i < 25; i++) {
+            assertTrue(ingestService.accept("t=1,v1=sig", event("evt_" + i)));
+        }
+        assertTrue(ingestService.flush(5, TimeUnit.SECONDS));
+
+        assertEquals(25, storedEventIds.size());
+        assertEquals("evt_0", storedEventIds.get(0));
+        assertEquals("evt_24", storedEventIds.get(24));
+        verify(webhookService, times(25)).afterStored(any(WebhookLog.class));
+    }
+
+    @Test
+    public void testWebhooksNotStoredBeforeShutdownAreStoredAfterRestart() throws Exception {
+        when(repository.saveAll(anyIterable())).thenThrow(new DataAccessResourceFailureException("database down"));
+        when(repository.save(any(WebhookLog.class))).thenThrow(new DataAccessResourceFailureException("database down"));
+        create();
+        ingestService.accept("t=1,v1=sig", event("evt_1"));
+        ingestService.accept("t=1,v1=sig", event("evt_2"));
+        assertFalse(ingestService.flush(200, TimeUnit.MILLISECONDS));
+        ingestService.shutdown();
+
+        reset(repository);
+        recordSaveAll();
+        create();
+
+        assertTrue(ingestService.flush(5, TimeUnit.SECONDS));
+        assertEquals(List.of("evt_1", "evt_2"), storedEventIds);
+    }
+
+    @Test
+    public void testDuplicateEventIsSkippedWithoutLosingTheRest() throws Exception {
+        when(repository.saveAll(anyIterable())).thenThrow(new DataIntegrityViolationException("duplicate event_id"));
+        when(repository.save(any(WebhookLog.class))).thenAnswer(invocation -> {
+            WebhookLog webhookLog = invocation.getArgument(0);
+            if ("evt_dup".equals(webhookLog.getEventId())) {
+                throw new DataIntegrityViolationException("duplicate event_id");
+            }
+            storedEventIds.add(webhookLog.getEventId());
+            return webhookLog;
+        });
+        when(repository.existsByEventId("evt_dup")).thenReturn(true);
+        create();
+
+        ingestService.accept("t=1,v1=sig", event("evt_1"));
+        ingestService.accept("t=1,v1=sig", event("evt_dup"));
+        ingestService.accept("t=1,v1=sig", "not json".getBytes(StandardCharsets.UTF_8));
+        ingestService.accept("t=1,v1=sig", event("evt_2"));
+
+        assertTrue(ingestService.flush(5, TimeUnit.SECONDS));
+        assertEquals(List.of("evt_1", "evt_2"), storedEventIds);
+        verify(webhookService).recordRedelivery("evt_dup");
+    }
+
+    @Test
+    public void testWebhooksWithoutIdAreNotDroppedAsRepeats() throws Exception {
+        // Journaled while the database is down, so all three are read back in one batch
+        when(repository.saveAll(anyIterable())).thenThrow(new DataAccessResourceFailureException("database down"));
+        when(repository.save(any(WebhookLog.class))).thenThrow(new DataAccessResourceFailureException("database down"));
+        create();
+        for (int i = 0; i < 3; i++) {
+            ingestService.accept("t=1,v1=sig", "{\"type\":\"account_verification.succeeded\"}".getBytes(StandardCharsets.UTF_8));
+        }
+        ingestService.shutdown();
+
+        reset(repository);
+        recordSaveAll();
+        create();
+
+        assertTrue(ingestService.flush(5, TimeUnit.SECONDS));
+        assertEquals(3, storedEventIds.size());
+    }
+
+    @Test
+    public void testConstraintViolationOfNewEventKeepsItInTheJournal() throws Exception {
+        // e.g. a column too long for the table: not a duplicate, so it must not be dropped
+        when(repository.saveAll(anyIterable())).thenThrow(new DataIntegrityViolationException("value too long"));
+        when(repository.save(any(WebhookLog.class))).thenThrow(new DataIntegrityViolationException("value too long"));
+        when(repository.existsByEventId("evt_1")).thenReturn(false);
+        create();
+        ingestService.accept("t=1,v1=sig", event("evt_1"));
+
+        assertFalse(ingestService.flush(200, TimeUnit.MILLISECONDS));
+        verify(repository, atLeastOnce()).existsByEventId("evt_1");
+        ingestService.shutdown();
+
+        // Still journaled: stored once the database takes it
+        reset(repository);
+        recordSaveAll();
+        create();
+
+        assertTrue(ingestService.flush(5, TimeUnit.SECONDS));
+        assertEquals(List.of("evt_1"), storedEventIds);
+    }
+
+    @Test
+    public void testRedeliveriesAreSkippedBeforeTheBatch() throws Exception {
+        recordSaveAll();
+        // As the real service: stored events are remembered, whichever batch the repeat lands in
+        when(webhookService.isDuplicate(anyString())).thenAnswer(invocation ->
+            "evt_old".equals(invocation.getArgument(0)) || storedEventIds.contains(invocation.<String>getArgument(0)));
+        create();
+
+        ingestService.accept("t=1,v1=sig", event("evt_old"));
+        ingestService.accept("t=1,v1=sig", event("evt_1"));
+        ingestService.accept("t=2,v1=sig", event("evt_1"));
+
+        assertTrue(ingestService.flush(5, TimeUnit.SECONDS));
+        assertEquals(List.of("evt_1"), storedEventIds);
+        verify(repository, never()).save(any(WebhookLog.class));
+    }
+
+    @Test
+    public void testDisabledIngestionAcceptsNothing() {
+        WebhookIngestService disabled = new WebhookIngestService(new WebhookIngestConfig(), webhookService,
+            objectMapper, repository, new SimpleMeterRegistry());
+
+        assertFalse(disabled.isEnabled());
+        assertFalse(disabled.accept("t=1,v1=sig", event("evt_1")));
+    }
+
+    private void recordSaveAll() {
+        when(repository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            Iterable<WebhookLog> logs = invocation.getArgument(0);
+            logs.forEach(webhookLog -> storedEventIds.add(webhookLog.getEventId()));
+            return logs;
+        });
+    }
+
+    private static byte[] event(String id) {
+        return ("{\"id\":\"" + id + "\",\"type\":\"account_verification.succeeded\"}").getBytes(StandardCharsets.UTF_8);
+    }
+}
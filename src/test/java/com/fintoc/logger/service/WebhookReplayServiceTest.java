@@ -0,0 +1,169 @@
+package com.fintoc.logger.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintoc.logger.config.WebhookReplayConfig;
+import com.fintoc.logger.entity.WebhookLog;
+import com.fintoc.logger.repository.WebhookLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not @Transactional: the replay commits from its own threads
+@SpringBootTest
+@ActiveProfiles("test")
+public class WebhookReplayServiceTest {
+
+    @TempDir
+    Path checkpointDir;
+
+    @Autowired
+    private WebhookLogRepository webhookLogRepository;
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private WebhookReplayService replayService;
+
+    @BeforeEach
+    public void setUp() {
+        WebhookReplayConfig config = new WebhookReplayConfig();
+        config.setPageSize(10);
+        config.setUpdateBatchSize(4);
+        config.setCheckpointFile(checkpointDir.resolve("replay.checkpoint").toString());
+        replayService = new WebhookReplayService(config, webhookLogRepository, webhookService, objectMapper,
+            transactionManager, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        replayService.shutdown();
+        webhookLogRepository.deleteAll();
+    }
+
+    @Test
+    public void testReplayRewritesDerivedColumnsOfUnprocessedRows() throws Exception {
+        List<WebhookLog> stored = storeUnprocessed("evt_replay_", 25);
+        stored.add(store("evt_replay_broken", "{not json"));
+
+        replayService.start(WebhookReplayService.Scope.UNPROCESSED, 5000, 3, false);
+        assertTrue(replayService.awaitFinished(10, TimeUnit.SECONDS));
+
+        Map<String, Object> status = replayService.status();
+        assertEquals("completed", status.get("state"));
+        assertEquals(25L, status.get("rows_replayed"));
+        assertEquals(1L, status.get("rows_failed"));
+
+        WebhookLog replayed = webhookLogRepository.findById(stored.get(7).getId()).orElseThrow();
+        assertTrue(replayed.getProcessed());
+        assertEquals("account_verification.succeeded", replayed.getEventType());
+        assertEquals("live", replayed.getMode());
+        assertEquals("av_7", replayed.getAccountVerificationId());
+        assertEquals("succeeded", replayed.getStatus());
+        assertEquals("123456789", replayed.getAccountNumber());
+        assertEquals("cl_banco_de_chile", replayed.getInstitutionId());
+
+        // Not valid JSON: left unprocessed rather than half rewritten
+        WebhookLog broken = webhookLogRepository.findById(stored.get(25).getId()).orElseThrow();
+        assertFalse(broken.getProcessed());
+        assertEquals("unknown", broken.getEventType());
+    }
+
+    @Test
+    public void testReplayResumesFromCheckpoint() throws Exception {
+        storeUnprocessed("evt_first_", 12);
+        replayService.start(WebhookReplayService.Scope.UNPROCESSED, 5000, 2, false);
+        assertTrue(replayService.awaitFinished(10, TimeUnit.SECONDS));
+        assertEquals(12L, replayService.status().get("rows_replayed"));
+
+        // Rows from the first run made unprocessed again sit before the checkpoint and are not seen
+        for (WebhookLog webhookLog : webhookLogRepository.findAll()) {
+            webhookLog.setProcessed(false);
+            webhookLogRepository.save(webhookLog);
+        }
+        storeUnprocessed("evt_second_", 5);
+
+        replayService.start(WebhookReplayService.Scope.UNPROCESSED, 5000, 2, false);
+        assertTrue(replayService.awaitFinished(10, TimeUnit.SECONDS));
+        assertEquals(5L, replayService.status().get("rows_replayed"));
+
+        // restart goes back to the first row
+        replayService.start(WebhookReplayService.Scope.UNPROCESSED, 5000, 2, true);
+        assertTrue(replayService.awaitFinished(10, TimeUnit.SECONDS));
+        assertEquals(12L, replayService.status().get("rows_replayed"));
+        assertTrue(webhookLogRepository.findUnprocessedWebhooks().isEmpty());
+    }
+
+    @Test
+    public void testReplayIsPacedToTheRate() throws Exception {
+        storeUnprocessed("evt_paced_", 20);
+
+        long start = System.nanoTime();
+        replayService.start(WebhookReplayService.Scope.UNPROCESSED, 40, 4, false);
+        assertTrue(replayService.awaitFinished(10, TimeUnit.SECONDS));
+
+        // 20 rows at 40 rows/s; the first chunk starts at once, the last one 16 rows later
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(350));
+        assertEquals(20L, replayService.status().get("rows_replayed"));
+    }
+
+    @Test
+    public void testOnlyOneReplayRunsAtATime() throws Exception {
+        storeUnprocessed("evt_slow_", 10);
+        replayService.start(WebhookReplayService.Scope.FAILED, 5, 1, false);
+
+        assertThrows(IllegalStateException.class,
+            () -> replayService.start(WebhookReplayService.Scope.UNPROCESSED, 5, 1, false));
+        assertThrows(IllegalArgumentException.class,
+            () -> replayService.start(WebhookReplayService.Scope.UNPROCESSED, 5, 100, false));
+
+        assertTrue(replayService.stop());
+        assertTrue(replayService.awaitFinished(10, TimeUnit.SECONDS));
+        assertEquals("stopped", replayService.status().get("state"));
+    }
+
+    private List<WebhookLog> storeUnprocessed(String eventIdPrefix, int count) {
+        List<WebhookLog> stored = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            stored.add(store(eventIdPrefix + i, event(eventIdPrefix + i, i)));
+        }
+        return stored;
+    }
+
+    private WebhookLog store(String eventId, String rawBody) {
+        // As left by a webhook stored before it could be processed: only the raw columns
+        WebhookLog webhookLog = new WebhookLog();
+        webhookLog.setEventId(eventId);
+        webhookLog.setEventType("unknown");
+        webhookLog.setCreatedAt(LocalDateTime.now());
+        webhookLog.setRawBody(rawBody);
+        webhookLog.setProcessed(false);
+        return webhookLogRepository.save(webhookLog);
+    }
+
+    private static String event(String eventId, int i) {
+        return "{\"id\":\"" + eventId + "\",\"type\":\"account_verification.succeeded\",\"mode\":\"live\","
+            + "\"data\":{\"id\":\"av_" + i + "\",\"status\":\"succeeded\",\"counterparty\":{"
+            + "\"account_number\":\"123456789\",\"institution\":{\"id\":\"cl_banco_de_chile\"}}}}";
+    }
+}
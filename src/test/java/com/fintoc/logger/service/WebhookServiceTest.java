@@ -0,0 +1,119 @@
+package com.fintoc.logger.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fintoc.logger.entity.WebhookLog;
+import com.fintoc.logger.repository.WebhookLogRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class WebhookServiceTest {
+
+    private static final String PAYLOAD = "{\"id\":\"evt_123\",\"type\":\"account_verification.succeeded\"}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final WebhookLogRepository webhookLogRepository = mock(WebhookLogRepository.class);
+    private WebhookService webhookService;
+
+    @BeforeEach
+    public void setUp() {
+        webhookService = new WebhookService(objectMapper, webhookLogRepository,
+            mock(ValidationResultCache.class), new RecentWebhookEvents(new SimpleMeterRegistry(), 100, 1));
+        ReflectionTestUtils.setField(webhookService, "webhookSecret", "whsec_test");
+    }
+
+    @Test
+    public void testSignatureMatchesHmacOfTimestampAndPayload() throws Exception {
+        String header = webhookService.signWebhookPayload(PAYLOAD, 1700000000L);
+
+        assertEquals("t=1700000000,v1=" + hmacHex("whsec_test", "1700000000." + PAYLOAD), header);
+        // Second message on the same thread reuses the Mac and must not carry state over
+        assertEquals("t=1700000001,v1=" + hmacHex("whsec_test", "1700000001." + PAYLOAD),
+            webhookService.signWebhookPayload(PAYLOAD, 1700000001L));
+    }
+
+    @Test
+    public void testVerifyAcceptsOwnSignatureOnly() {
+        String header = webhookService.signWebhookPayload(PAYLOAD, now());
+
+        assertTrue(webhookService.verifyWebhookSignature(PAYLOAD, header));
+        assertTrue(webhookService.verifyWebhookSignature(PAYLOAD.getBytes(StandardCharsets.UTF_8), header));
+        assertFalse(webhookService.verifyWebhookSignature(PAYLOAD + " ", header));
+        assertFalse(webhookService.verifyWebhookSignature(PAYLOAD, null));
+    }
+
+    @Test
+    public void testVerifyRejectsStaleAndMalformedTimestamps() {
+        assertFalse(webhookService.verifyWebhookSignature(PAYLOAD, webhookService.signWebhookPayload(PAYLOAD, now() - 301)));
+        assertFalse(webhookService.verifyWebhookSignature(PAYLOAD, webhookService.signWebhookPayload(PAYLOAD, now() + 301)));
+        assertTrue(webhookService.verifyWebhookSignature(PAYLOAD, webhookService.signWebhookPayload(PAYLOAD, now() - 290)));
+
+        String header = webhookService.signWebhookPayload(PAYLOAD, now());
+        assertFalse(webhookService.verifyWebhookSignature(PAYLOAD, header.replaceFirst("t=\\d+", "t=soon")));
+        assertFalse(webhookService.verifyWebhookSignature(PAYLOAD, header.replaceFirst("t=\\d+,", "")));
+    }
+
+    @Test
+    public void testChangedSecretIsPickedUp() throws Exception {
+        String oldHeader = webhookService.signWebhookPayload(PAYLOAD, now());
+
+        ReflectionTestUtils.setField(webhookService, "webhookSecret", "whsec_rotated");
+
+        assertEquals("t=1700000000,v1=" + hmacHex("whsec_rotated", "1700000000." + PAYLOAD),
+            webhookService.signWebhookPayload(PAYLOAD, 1700000000L));
+        assertFalse(webhookService.verifyWebhookSignature(PAYLOAD, oldHeader));
+    }
+
+    @Test
+    public void testStoredEventIsRecognisedAsDuplicate() throws Exception {
+        assertFalse(webhookService.isDuplicate("evt_123"));
+
+        assertTrue(webhookService.processWebhook(objectMapper.readTree(PAYLOAD), "t=1,v1=sig", PAYLOAD));
+
+        assertTrue(webhookService.isDuplicate("evt_123"));
+        assertFalse(webhookService.isDuplicate("evt_456"));
+        verify(webhookLogRepository, times(1)).save(any(WebhookLog.class));
+    }
+
+    @Test
+    public void testRedeliveryOfOlderEventIsAcknowledged() throws Exception {
+        // Stored before this instance started, so only the unique event_id knows
+        when(webhookLogRepository.save(any(WebhookLog.class))).thenThrow(new DataIntegrityViolationException("duplicate"));
+        when(webhookLogRepository.existsByEventId("evt_123")).thenReturn(true);
+
+        assertTrue(webhookService.processWebhook(objectMapper.readTree(PAYLOAD), "t=1,v1=sig", PAYLOAD));
+        assertTrue(webhookService.isDuplicate("evt_123"));
+    }
+
+    @Test
+    public void testOtherConstraintViolationIsStillAFailure() throws Exception {
+        when(webhookLogRepository.save(any(WebhookLog.class))).thenThrow(new DataIntegrityViolationException("null event_type"));
+
+        assertFalse(webhookService.processWebhook(objectMapper.readTree(PAYLOAD), "t=1,v1=sig", PAYLOAD));
+        assertFalse(webhookService.isDuplicate("evt_123"));
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static String hmacHex(String secret, String data) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        StringBuilder hex = new StringBuilder();
+        for (byte b : mac.doFinal(data.getBytes(StandardCharsets.UTF_8))) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}